@@ -0,0 +1,256 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the analog in and analog out configuration last applied to the AD2 by {@link
+ * SerializedBackend}, so a capture or pulse train set up exactly like the previous one only has to
+ * be restarted. The configuration is only touched on the device thread. Any call that may have
+ * changed a setting behind the cache's back invalidates the affected part.
+ */
+class AnalogConfigCache {
+
+  private AcquisitionConfig acquisitionConfig = null;
+  private final Map<Integer, PulseTrainConfig> pulseTrainConfigs =
+      new HashMap<Integer, PulseTrainConfig>();
+
+  private volatile long configCallCount = 0;
+  private volatile long elidedConfigCallCount = 0;
+
+  /**
+   * @param config
+   * @return true if the acquisition is already configured like this. The caller only re-arms and
+   *     the call counts as elided.
+   */
+  boolean isAcquisitionApplied(AcquisitionConfig config) {
+
+    if (config.equals(acquisitionConfig)) {
+      elidedConfigCallCount++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records a full acquisition configuration call.
+   *
+   * @param config
+   * @param isSuccessful if not, the device state is unknown
+   */
+  void acquisitionApplied(AcquisitionConfig config, boolean isSuccessful) {
+
+    configCallCount++;
+    acquisitionConfig = isSuccessful ? config : null;
+  }
+
+  void invalidateAcquisition() {
+
+    acquisitionConfig = null;
+  }
+
+  /**
+   * Compares against the stored configuration without copying the config's data.
+   *
+   * @param channel
+   * @param config
+   * @return true if the waveform generator channel is already configured like this. The caller
+   *     only restarts it and the call counts as elided.
+   */
+  boolean isPulseTrainApplied(int channel, PulseTrainConfig config) {
+
+    if (config.equals(pulseTrainConfigs.get(channel))) {
+      elidedConfigCallCount++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records a full pulse train configuration call. The config's data is copied here, only on a
+   * miss, so the caller may reuse its array.
+   *
+   * @param channel
+   * @param config
+   * @param isSuccessful if not, the device state is unknown
+   */
+  void pulseTrainApplied(int channel, PulseTrainConfig config, boolean isSuccessful) {
+
+    configCallCount++;
+    if (isSuccessful) {
+      pulseTrainConfigs.put(channel, config.copy());
+    } else {
+      pulseTrainConfigs.remove(channel);
+    }
+  }
+
+  void invalidatePulseTrain(int channel) {
+
+    pulseTrainConfigs.remove(channel);
+  }
+
+  void invalidate() {
+
+    acquisitionConfig = null;
+    pulseTrainConfigs.clear();
+  }
+
+  /** @return how many configuration calls were sent to the AD2 */
+  long getConfigCallCount() {
+
+    return configCallCount;
+  }
+
+  /** @return how many configuration calls were replaced by a bare restart */
+  long getElidedConfigCallCount() {
+
+    return elidedConfigCallCount;
+  }
+
+  void resetStatistics() {
+
+    configCallCount = 0;
+    elidedConfigCallCount = 0;
+  }
+
+  /** The parameters of a triggered capture on both scope channels. */
+  static final class AcquisitionConfig {
+
+    private final boolean isLevelTrigger;
+    private final int waveformChannel;
+    private final double sampleFrequency;
+    private final int bufferSize;
+    private final boolean isScale2Volts;
+    private final double triggerLevel;
+
+    /**
+     * Constructor
+     *
+     * @param isLevelTrigger
+     * @param waveformChannel
+     * @param sampleFrequency
+     * @param bufferSize
+     * @param isScale2Volts
+     * @param triggerLevel
+     */
+    AcquisitionConfig(
+        boolean isLevelTrigger,
+        int waveformChannel,
+        double sampleFrequency,
+        int bufferSize,
+        boolean isScale2Volts,
+        double triggerLevel) {
+
+      this.isLevelTrigger = isLevelTrigger;
+      this.waveformChannel = waveformChannel;
+      this.sampleFrequency = sampleFrequency;
+      this.bufferSize = bufferSize;
+      this.isScale2Volts = isScale2Volts;
+      this.triggerLevel = triggerLevel;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (!(o instanceof AcquisitionConfig)) {
+        return false;
+      }
+      AcquisitionConfig other = (AcquisitionConfig) o;
+      return isLevelTrigger == other.isLevelTrigger
+          && waveformChannel == other.waveformChannel
+          && Double.compare(sampleFrequency, other.sampleFrequency) == 0
+          && bufferSize == other.bufferSize
+          && isScale2Volts == other.isScale2Volts
+          && Double.compare(triggerLevel, other.triggerLevel) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return Arrays.hashCode(
+          new double[] {
+            isLevelTrigger ? 1 : 0,
+            waveformChannel,
+            sampleFrequency,
+            bufferSize,
+            isScale2Volts ? 1 : 0,
+            triggerLevel
+          });
+    }
+  }
+
+  /** The parameters of a custom pulse train on one waveform generator channel. */
+  static final class PulseTrainConfig {
+
+    private final double frequency;
+    private final double offset;
+    private final int numPulses;
+    private final double[] data;
+
+    /**
+     * Constructor
+     *
+     * @param frequency
+     * @param offset
+     * @param numPulses
+     * @param data not copied, see {@link #copy()}
+     */
+    PulseTrainConfig(double frequency, double offset, int numPulses, double[] data) {
+
+      this.frequency = frequency;
+      this.offset = offset;
+      this.numPulses = numPulses;
+      this.data = data;
+    }
+
+    /** @return the same config with its own copy of the data, to be stored */
+    PulseTrainConfig copy() {
+
+      return new PulseTrainConfig(frequency, offset, numPulses, data == null ? null : data.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (!(o instanceof PulseTrainConfig)) {
+        return false;
+      }
+      PulseTrainConfig other = (PulseTrainConfig) o;
+      return Double.compare(frequency, other.frequency) == 0
+          && Double.compare(offset, other.offset) == 0
+          && numPulses == other.numPulses
+          && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+
+      return 31 * Arrays.hashCode(new double[] {frequency, offset, numPulses})
+          + Arrays.hashCode(data);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+/** The outcome and, if it succeeded, the samples of a {@link CaptureSpec} capture. */
+public class CaptureResult {
+
+  private final CaptureSpec captureSpec;
+  private final DWFProxy.ArmResult armResult;
+  private final double[] v1;
+  private final double[] v2;
+  private final SampleBufferPool sampleBufferPool;
+
+  /**
+   * Constructor
+   *
+   * @param captureSpec
+   * @param armResult
+   * @param v1 scope channel 1 over the spec's sample window, null if the capture failed
+   * @param v2 scope channel 2 over the spec's sample window, null if the capture failed
+   * @param sampleBufferPool where v1 and v2 came from, null if they aren't pooled
+   */
+  public CaptureResult(
+      CaptureSpec captureSpec,
+      DWFProxy.ArmResult armResult,
+      double[] v1,
+      double[] v2,
+      SampleBufferPool sampleBufferPool) {
+
+    this.captureSpec = captureSpec;
+    this.armResult = armResult;
+    this.v1 = v1;
+    this.v2 = v2;
+    this.sampleBufferPool = sampleBufferPool;
+  }
+
+  /** Hands the sample buffers back to their pool. Neither may be used afterwards. */
+  public void release() {
+
+    if (sampleBufferPool != null) {
+      sampleBufferPool.release(v1);
+      sampleBufferPool.release(v2);
+    }
+  }
+
+  /** @return true if the scope armed and the capture completed */
+  public boolean isSuccess() {
+
+    return v1 != null && v2 != null;
+  }
+
+  public CaptureSpec getCaptureSpec() {
+
+    return captureSpec;
+  }
+
+  public DWFProxy.ArmResult getArmResult() {
+
+    return armResult;
+  }
+
+  public double[] getV1() {
+
+    return v1;
+  }
+
+  public double[] getV2() {
+
+    return v2;
+  }
+
+  /** @return the index in the capture buffer of v1[0] and v2[0] */
+  public int getWindowStart() {
+
+    return captureSpec.getWindowStart();
+  }
+
+  public double getSamplePeriod() {
+
+    return 1.0 / captureSpec.getSampleFrequency();
+  }
+}
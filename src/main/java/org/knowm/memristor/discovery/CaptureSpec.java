@@ -0,0 +1,269 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+/**
+ * Describes one triggered capture of both scope channels and the pulse train that is played on a
+ * waveform generator channel to produce it, see {@link DWFProxy#captureAsync(CaptureSpec)}.
+ */
+public class CaptureSpec {
+
+  private final Trigger trigger;
+  private final double sampleFrequency;
+  private final int bufferSize;
+  private final boolean isScale2Volts;
+  private final double triggerLevel;
+  private final int waveformChannel;
+  private final double pulseFrequency;
+  private final int pulseNumber;
+  private final double[] pulseData;
+  private final int windowStart;
+  private final int windowEnd;
+  private final boolean isRepeatable;
+
+  private CaptureSpec(
+      Trigger trigger,
+      double sampleFrequency,
+      int bufferSize,
+      boolean isScale2Volts,
+      double triggerLevel,
+      int waveformChannel,
+      double pulseFrequency,
+      int pulseNumber,
+      double[] pulseData,
+      int windowStart,
+      int windowEnd,
+      boolean isRepeatable) {
+
+    this.trigger = trigger;
+    this.sampleFrequency = sampleFrequency;
+    this.bufferSize = bufferSize;
+    this.isScale2Volts = isScale2Volts;
+    this.triggerLevel = triggerLevel;
+    this.waveformChannel = waveformChannel;
+    this.pulseFrequency = pulseFrequency;
+    this.pulseNumber = pulseNumber;
+    this.pulseData = pulseData;
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+    this.isRepeatable = isRepeatable;
+  }
+
+  /**
+   * A capture that starts when the waveform generator channel starts playing the pulse train.
+   *
+   * @param waveformChannel
+   * @param sampleFrequency
+   * @param bufferSize
+   * @param isScale2Volts
+   * @param pulseFrequency
+   * @param pulseNumber
+   * @param pulseData one period of the custom waveform, as from WaveformUtils
+   * @return
+   */
+  public static CaptureSpec triggerOnWaveformGenerator(
+      int waveformChannel,
+      double sampleFrequency,
+      int bufferSize,
+      boolean isScale2Volts,
+      double pulseFrequency,
+      int pulseNumber,
+      double[] pulseData) {
+
+    return new CaptureSpec(
+        Trigger.WaveformGenerator,
+        sampleFrequency,
+        bufferSize,
+        isScale2Volts,
+        0,
+        waveformChannel,
+        pulseFrequency,
+        pulseNumber,
+        pulseData,
+        0,
+        bufferSize,
+        true);
+  }
+
+  /**
+   * A capture that starts when scope channel 1 crosses the trigger level.
+   *
+   * @param sampleFrequency
+   * @param triggerLevel
+   * @param bufferSize
+   * @param waveformChannel
+   * @param pulseFrequency
+   * @param pulseNumber
+   * @param pulseData one period of the custom waveform, as from WaveformUtils
+   * @return
+   */
+  public static CaptureSpec levelTrigger(
+      double sampleFrequency,
+      double triggerLevel,
+      int bufferSize,
+      int waveformChannel,
+      double pulseFrequency,
+      int pulseNumber,
+      double[] pulseData) {
+
+    return new CaptureSpec(
+        Trigger.Level,
+        sampleFrequency,
+        bufferSize,
+        false,
+        triggerLevel,
+        waveformChannel,
+        pulseFrequency,
+        pulseNumber,
+        pulseData,
+        0,
+        bufferSize,
+        true);
+  }
+
+  /**
+   * The same capture, but only the samples [windowStart, windowEnd) are read out of the device.
+   * Indices count from the first sample of the capture buffer. By default the whole buffer is read.
+   *
+   * @param windowStart first sample index of interest
+   * @param windowEnd one past the last sample index of interest
+   * @return
+   */
+  public CaptureSpec withWindow(int windowStart, int windowEnd) {
+
+    if (windowStart < 0 || windowEnd <= windowStart || windowEnd > bufferSize) {
+      throw new IllegalArgumentException(
+          "Invalid sample window ["
+              + windowStart
+              + ", "
+              + windowEnd
+              + ") for a buffer of "
+              + bufferSize
+              + "!");
+    }
+    return new CaptureSpec(
+        trigger,
+        sampleFrequency,
+        bufferSize,
+        isScale2Volts,
+        triggerLevel,
+        waveformChannel,
+        pulseFrequency,
+        pulseNumber,
+        pulseData,
+        windowStart,
+        windowEnd,
+        isRepeatable);
+  }
+
+  /**
+   * The same capture, but whether it may be retried after its pulse train was already played. By
+   * default it may, which suits read pulses. A capture whose pulses change the device, e.g. a
+   * write, should not be repeated, it is then only retried if the scope failed to arm.
+   *
+   * @param isRepeatable
+   * @return
+   */
+  public CaptureSpec withRepeatable(boolean isRepeatable) {
+
+    return new CaptureSpec(
+        trigger,
+        sampleFrequency,
+        bufferSize,
+        isScale2Volts,
+        triggerLevel,
+        waveformChannel,
+        pulseFrequency,
+        pulseNumber,
+        pulseData,
+        windowStart,
+        windowEnd,
+        isRepeatable);
+  }
+
+  public Trigger getTrigger() {
+
+    return trigger;
+  }
+
+  public double getSampleFrequency() {
+
+    return sampleFrequency;
+  }
+
+  public int getBufferSize() {
+
+    return bufferSize;
+  }
+
+  public boolean isScale2Volts() {
+
+    return isScale2Volts;
+  }
+
+  public double getTriggerLevel() {
+
+    return triggerLevel;
+  }
+
+  public int getWaveformChannel() {
+
+    return waveformChannel;
+  }
+
+  public double getPulseFrequency() {
+
+    return pulseFrequency;
+  }
+
+  public int getPulseNumber() {
+
+    return pulseNumber;
+  }
+
+  public double[] getPulseData() {
+
+    return pulseData;
+  }
+
+  public int getWindowStart() {
+
+    return windowStart;
+  }
+
+  public int getWindowEnd() {
+
+    return windowEnd;
+  }
+
+  public boolean isRepeatable() {
+
+    return isRepeatable;
+  }
+
+  public enum Trigger {
+    WaveformGenerator,
+    Level
+  }
+}
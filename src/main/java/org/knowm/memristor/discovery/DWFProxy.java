@@ -25,6 +25,12 @@ package org.knowm.memristor.discovery;
 
 import java.beans.PropertyChangeListener;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.event.SwingPropertyChangeSupport;
 import org.knowm.waveforms4j.DWF;
@@ -40,22 +46,83 @@ public class DWFProxy {
   // public final static int DEFAULT_SELECTOR_DIO = 0b0000_0000_0000_0000;
   public static final String AD2_STARTUP_CHANGE = "AD2_START_UP";
   public static final String DIGITAL_IO_READ = "DIGITAL_IO_READ";
-  final DWF dwf;
+
+  /** How long {@link #waitUntilArmed()} waits for the scope to arm before giving up. */
+  public static final long DEFAULT_ARM_TIMEOUT_MS = 5000;
+
+  /** The scope is polled back-to-back for this long before the waiting thread starts parking. */
+  private static final long ARM_SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+  private static final long ARM_PARK_MIN_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+  private static final long ARM_PARK_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+  /**
+   * A capture is given twice its expected acquisition time plus this much before it is abandoned.
+   */
+  public static final long CAPTURE_TIMEOUT_SLACK_MS = 1000;
+
+  /** How long before the expected end of acquisition the capture wait wakes up to poll. */
+  private static final long CAPTURE_WAKE_LEAD_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+  /** After the expected end of acquisition the status is polled back-to-back for this long. */
+  private static final long CAPTURE_SPIN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  // DwfState values returned by FDwfAnalogInStatus
+  private static final byte DWF_STATE_ARMED = 1;
+  private static final byte DWF_STATE_DONE = 2;
+  private static final byte DWF_STATE_MAX = 7;
+
+  final DeviceBackend dwf;
+  private final DeviceExecutor deviceExecutor;
+  private final AnalogConfigCache analogConfigCache = new AnalogConfigCache();
+  private final DeviceWatchdog deviceWatchdog = new DeviceWatchdog();
+  private final SampleBufferPool sampleBufferPool =
+      new SampleBufferPool(SampleBufferPool.DEFAULT_BUFFERS_PER_LENGTH);
 
   // ///////////////////////////////////////////////////////////
   // State Variables //////////////////////////////////////////
   // ///////////////////////////////////////////////////////////
   private final Logger logger = LoggerFactory.getLogger(DWFProxy.class);
   private final int boardVersion;
-  private boolean isAD2Running = false;
-  private int digitalIOStates = ALL_DIO_OFF;
+  private volatile boolean isAD2Running = false;
+  // only written on the device thread
+  private volatile int digitalIOStates = ALL_DIO_OFF;
   private SwingPropertyChangeSupport swingPropertyChangeSupport;
 
-  /** Constructor */
+  // arm wait statistics, guarded by armStatisticsLock. Not by this, the arm wait runs on the device
+  // thread, which must never wait for a lock held by a thread that may be waiting for the device.
+  private final Object armStatisticsLock = new Object();
+  private long armWaitCount = 0;
+  private long armTimeoutCount = 0;
+  private long armErrorCount = 0;
+  private long lastArmLatencyNanos = 0;
+  private long maxArmLatencyNanos = 0;
+  private long totalArmLatencyNanos = 0;
+
+  // digital I/O shadow register policy and statistics, only written on the device thread
+  private volatile int dioVerifyInterval = 1;
+  private volatile int dioWritesSinceVerify = 0;
+  private volatile long dioWriteCount = 0;
+  private volatile long dioVerifyCount = 0;
+  private volatile long dioMismatchCount = 0;
+
+  /** Constructor for the real AD2 */
   public DWFProxy(int boardVersion) {
 
+    this(boardVersion, new DWFBackend());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param deviceBackend the AD2 or a stand-in for it, only ever called on the device thread
+   */
+  public DWFProxy(int boardVersion, DeviceBackend deviceBackend) {
+
     this.boardVersion = boardVersion;
-    dwf = new DWF();
+    deviceExecutor = new DeviceExecutor("AD2 Device", DeviceExecutor.DEFAULT_QUEUE_CAPACITY);
+    dwf = new SerializedBackend(deviceBackend, deviceExecutor, analogConfigCache);
     swingPropertyChangeSupport = new SwingPropertyChangeSupport(this);
   }
 
@@ -78,46 +145,458 @@ public class DWFProxy {
     new AD2StartupWorker().execute();
   }
 
-  public void waitUntilArmed() {
+  /**
+   * Starts the AD2 up like {@link #startupAD2()}, but returns once it is done. For headless use,
+   * where nothing is waiting for {@link #AD2_STARTUP_CHANGE}.
+   *
+   * @return true if the AD2 is running
+   */
+  public boolean startupAD2AndWait() {
+
+    AD2StartupWorker ad2StartupWorker = new AD2StartupWorker();
+    ad2StartupWorker.execute();
+    try {
+      return ad2StartupWorker.get();
+    } catch (ExecutionException e) {
+      logger.error("AD2 start up failed!", e.getCause());
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * This is called by the main app when the user switches experiments. All experiments share the
+   * same supply, scope channel and DIO output enable setup, so an open AD2 is kept open and only
+   * what the previous experiment left behind is undone: both waveform generators and the scope are
+   * stopped, and the DIO is returned to the board default if it differs from it. If the AD2 isn't
+   * open it is started up as usual. The previous experiment must have stopped using the AD2 by
+   * then, the main app shuts the AD2 down first if one of its workers was still running.
+   */
+  public void switchExperiment() {
+
+    if (!isAD2Running) {
+      startupAD2();
+      return;
+    }
 
-    // long startTime = System.currentTimeMillis();
+    long startTime = System.nanoTime();
+    deviceExecutor.call(
+        new Callable<Void>() {
+
+          @Override
+          public Void call() {
+
+            dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, false);
+            dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_2, false);
+            dwf.FDwfAnalogInConfigure(false, false);
+
+            // unchanged DIO isn't rewritten, the read back makes sure the next experiment starts
+            // from the real states
+            writeDigitalIOStates(~0, getDefaultDigitalIOStates(), false);
+            if (!readBackDigitalIOStates()) {
+              writeDigitalIOStates(~0, getDefaultDigitalIOStates(), true);
+            }
+            return null;
+          }
+        });
+    logger.debug(
+        "Warm experiment switch took "
+            + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime)
+            + " us.");
+
+    // the new experiment's controllers enable themselves on this
+    swingPropertyChangeSupport.firePropertyChange(DWFProxy.AD2_STARTUP_CHANGE, false, true);
+  }
+
+  /**
+   * Waits up to {@link #DEFAULT_ARM_TIMEOUT_MS} for the analog in to arm.
+   *
+   * @return the outcome of the wait
+   */
+  public ArmResult waitUntilArmed() {
+
+    return waitUntilArmed(TimeUnit.MILLISECONDS.toNanos(DEFAULT_ARM_TIMEOUT_MS));
+  }
+
+  /**
+   * Waits for the analog in to arm. The status is polled back-to-back for a short while, since the
+   * scope usually arms within a few polls. After that the thread parks between polls with a growing
+   * back-off, so a slow arm doesn't pin a core or flood the USB link with status requests.
+   *
+   * @param timeoutNanos
+   * @return the outcome of the wait
+   */
+  public ArmResult waitUntilArmed(long timeoutNanos) {
+
+    long startTime = System.nanoTime();
+    long spinDeadline = startTime + ARM_SPIN_NANOS;
+    long deadline = startTime + timeoutNanos;
+    long parkNanos = ARM_PARK_MIN_NANOS;
+
+    ArmResult result;
     while (true) {
       byte status = dwf.FDwfAnalogInStatus(true);
-      // System.out.println("status: " + status);
-      if (status == 1) { // armed
-        // System.out.println("armed.");
+      if (status == DWF_STATE_ARMED) {
+        result = ArmResult.Armed;
         break;
       }
+      if (status < 0 || status > DWF_STATE_MAX) {
+        logger.error("Analog in status failed while waiting to arm: " + dwf.FDwfGetLastErrorMsg());
+        result = ArmResult.DeviceError;
+        break;
+      }
+
+      long now = System.nanoTime();
+      if (now - deadline >= 0) {
+        logger.warn("Analog in did not arm within " + timeoutNanos / 1_000_000 + " ms!");
+        result = ArmResult.Timeout;
+        break;
+      }
+      if (now - spinDeadline >= 0) {
+        LockSupport.parkNanos(Math.min(parkNanos, deadline - now));
+        parkNanos = Math.min(parkNanos * 2, ARM_PARK_MAX_NANOS);
+      }
     }
-    // System.out.println("time = " + (System.currentTimeMillis() - startTime));
 
+    recordArmWait(result, System.nanoTime() - startTime);
+    return result;
   }
 
+  private void recordArmWait(ArmResult result, long latencyNanos) {
+
+    synchronized (armStatisticsLock) {
+      armWaitCount++;
+      if (result == ArmResult.Timeout) {
+        armTimeoutCount++;
+      } else if (result == ArmResult.DeviceError) {
+        armErrorCount++;
+      }
+      lastArmLatencyNanos = latencyNanos;
+      maxArmLatencyNanos = Math.max(maxArmLatencyNanos, latencyNanos);
+      totalArmLatencyNanos += latencyNanos;
+    }
+  }
+
+  /**
+   * Waits for a capture of pulseNumber periods at the given frequency to complete.
+   *
+   * @param frequency
+   * @param pulseNumber
+   * @return true if the capture is done and the data can be read
+   */
   public boolean capturePulseData(double frequency, int pulseNumber) {
 
-    // Read In Data
-    int bailCount = 0;
-    while (true) {
-      try {
-        long sleepTime = (long) (1 / frequency * pulseNumber * 1000);
-        // System.out.println("sleepTime = " + sleepTime);
-        Thread.sleep(sleepTime);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
+    return awaitCaptureDone((long) (pulseNumber / frequency * 1E9));
+  }
+
+  /**
+   * Waits for a capture of bufferSize samples at the given sample rate to complete. Use this rather
+   * than {@link #capturePulseData(double, int)} when the buffer isn't a whole number of pulse
+   * periods.
+   *
+   * @param sampleRate
+   * @param bufferSize
+   * @return true if the capture is done and the data can be read
+   */
+  public boolean waitUntilCaptured(double sampleRate, int bufferSize) {
+
+    return awaitCaptureDone((long) (bufferSize / sampleRate * 1E9));
+  }
+
+  /**
+   * Parks until shortly before the acquisition should be complete, then polls the status
+   * back-to-back until it is. If the capture runs late the polls are spaced out again with the same
+   * back-off as the arm wait.
+   *
+   * @param acquisitionNanos the expected time from trigger to the last sample
+   * @return true if the capture is done
+   */
+  private boolean awaitCaptureDone(long acquisitionNanos) {
+
+    long startTime = System.nanoTime();
+    long expectedDone = startTime + acquisitionNanos;
+    long spinDeadline = expectedDone + CAPTURE_SPIN_NANOS;
+    long deadline =
+        startTime + 2 * acquisitionNanos + TimeUnit.MILLISECONDS.toNanos(CAPTURE_TIMEOUT_SLACK_MS);
+    long parkNanos = ARM_PARK_MIN_NANOS;
+
+    long sleepNanos = acquisitionNanos - CAPTURE_WAKE_LEAD_NANOS;
+    while (sleepNanos > 0) {
+      LockSupport.parkNanos(sleepNanos);
+      if (Thread.interrupted()) {
+        Thread.currentThread().interrupt();
+        return false;
       }
+      // parkNanos may return early
+      sleepNanos = expectedDone - CAPTURE_WAKE_LEAD_NANOS - System.nanoTime();
+    }
+
+    while (true) {
       byte status = dwf.FDwfAnalogInStatus(true);
-      // System.out.println("status: " + status);
-      if (status == 2) { // done capturing
-        // System.out.println("bailCount = " + bailCount);
+      if (status == DWF_STATE_DONE) {
         return true;
       }
-      if (bailCount++ > 1000) {
-        System.out.println("Bailed!!!");
+      if (status < 0 || status > DWF_STATE_MAX) {
+        logger.error("Analog in status failed while capturing: " + dwf.FDwfGetLastErrorMsg());
         return false;
       }
+
+      long now = System.nanoTime();
+      if (now - deadline >= 0) {
+        logger.warn(
+            "Capture not done "
+                + (now - startTime) / 1_000_000
+                + " ms after start, expected "
+                + acquisitionNanos / 1_000_000
+                + " ms!");
+        return false;
+      }
+      if (now - spinDeadline >= 0) {
+        LockSupport.parkNanos(Math.min(parkNanos, deadline - now));
+        parkNanos = Math.min(parkNanos * 2, ARM_PARK_MAX_NANOS);
+      }
     }
   }
 
+  /**
+   * Queues a complete capture on the device thread: start the acquisition, wait for the scope to
+   * arm, play the pulse train, wait for the acquisition to complete and read out both channels.
+   * The caller can process the previous result, or queue the next capture, while this one runs.
+   *
+   * <p>A failed capture is retried, see {@link #setMaxCaptureAttempts(int)}, and the AD2 is
+   * re-opened first if it reported an error.
+   *
+   * @param captureSpec the acquisition, pulse train and sample window of the capture
+   * @return completes with the samples, or with a failed result if the scope didn't arm or the
+   *     capture didn't complete
+   */
+  public CompletableFuture<CaptureResult> captureAsync(final CaptureSpec captureSpec) {
+
+    return deviceExecutor.submit(
+        new Callable<CaptureResult>() {
+
+          @Override
+          public CaptureResult call() {
+
+            return capture(captureSpec);
+          }
+        });
+  }
+
+  private CaptureResult capture(CaptureSpec captureSpec) {
+
+    CaptureResult captureResult = captureOnce(captureSpec);
+    for (int retry = 0;
+        !captureResult.isSuccess() && retry < deviceWatchdog.getMaxCaptureAttempts() - 1;
+        retry++) {
+
+      // the pulses were played if the scope armed
+      boolean isPulsed = captureResult.getArmResult() == ArmResult.Armed;
+      if (isPulsed && !captureSpec.isRepeatable()) {
+        break;
+      }
+      if (!recoverFromFailedCapture(retry)) {
+        break;
+      }
+      deviceWatchdog.captureRetried();
+      captureResult = captureOnce(captureSpec);
+      if (captureResult.isSuccess()) {
+        deviceWatchdog.captureRecovered();
+        logger.info("Capture succeeded on retry " + (retry + 1) + ".");
+      }
+    }
+    if (!captureResult.isSuccess()) {
+      deviceWatchdog.captureFailed();
+    }
+    return captureResult;
+  }
+
+  /**
+   * Stops the failed acquisition and waits out the backoff. If the AD2 reported an error or no
+   * longer answers, it is re-opened.
+   *
+   * @param retry 0 for the first retry
+   * @return false if the capture shouldn't be retried
+   */
+  private boolean recoverFromFailedCapture(int retry) {
+
+    String lastErrorMsg = dwf.FDwfGetLastErrorMsg();
+    dwf.stopAnalogCaptureBothChannels();
+    if (DeviceWatchdog.isDeviceError(lastErrorMsg) || !isAnalogInResponding()) {
+      deviceWatchdog.deviceError(lastErrorMsg);
+      logger.warn("AD2 error during capture: " + lastErrorMsg);
+      if (!reconnectAD2()) {
+        return false;
+      }
+    }
+    return deviceWatchdog.backoff(retry);
+  }
+
+  private boolean isAnalogInResponding() {
+
+    byte status = dwf.FDwfAnalogInStatus(false);
+    return status >= 0 && status <= DWF_STATE_MAX;
+  }
+
+  /**
+   * Closes the AD2 and opens it again with the present DIO states, with backoff between the
+   * attempts. If it can't be opened it is reported as shut down.
+   *
+   * @return true if the AD2 is running again
+   */
+  private boolean reconnectAD2() {
+
+    for (int attempt = 0; attempt < DeviceWatchdog.MAX_RECONNECT_ATTEMPTS; attempt++) {
+      if (attempt > 0 && !deviceWatchdog.backoff(attempt)) {
+        break;
+      }
+      dwf.FDwfDeviceCloseAll();
+      if (openAD2(digitalIOStates)) {
+        deviceWatchdog.reconnected();
+        logger.info("AD2 re-opened after " + (attempt + 1) + " attempt(s).");
+        setAD2Running(true);
+        return true;
+      }
+    }
+
+    deviceWatchdog.reconnectFailed();
+    logger.error("Could not re-open the AD2: " + dwf.FDwfGetLastErrorMsg());
+    setAD2Running(false);
+    return false;
+  }
+
+  /** Tells the GUI if the watchdog lost or regained the AD2. */
+  private void setAD2Running(final boolean isRunning) {
+
+    if (isAD2Running == isRunning) {
+      return;
+    }
+    isAD2Running = isRunning;
+    SwingUtilities.invokeLater(
+        new Runnable() {
+
+          @Override
+          public void run() {
+
+            swingPropertyChangeSupport.firePropertyChange(
+                DWFProxy.AD2_STARTUP_CHANGE, !isRunning, isRunning);
+          }
+        });
+  }
+
+  /**
+   * Makes sure the AD2 is still there, for long running experiments to call between measurements.
+   * If it doesn't answer it is re-opened.
+   *
+   * @return true if the AD2 is running
+   */
+  public boolean checkAD2() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            if (isAD2Running && isAnalogInResponding()) {
+              return true;
+            }
+            String lastErrorMsg = dwf.FDwfGetLastErrorMsg();
+            deviceWatchdog.deviceError(lastErrorMsg);
+            logger.warn("AD2 not responding: " + lastErrorMsg);
+            return reconnectAD2();
+          }
+        });
+  }
+
+  private CaptureResult captureOnce(CaptureSpec captureSpec) {
+
+    if (captureSpec.getTrigger() == CaptureSpec.Trigger.Level) {
+      dwf.startAnalogCaptureBothChannelsLevelTrigger(
+          captureSpec.getSampleFrequency(),
+          captureSpec.getTriggerLevel(),
+          captureSpec.getBufferSize());
+    } else {
+      dwf.startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+          captureSpec.getWaveformChannel(),
+          captureSpec.getSampleFrequency(),
+          captureSpec.getBufferSize(),
+          captureSpec.isScale2Volts());
+    }
+
+    ArmResult armResult = waitUntilArmed();
+    if (armResult != ArmResult.Armed) {
+      return new CaptureResult(captureSpec, armResult, null, null, null);
+    }
+
+    dwf.startCustomPulseTrain(
+        captureSpec.getWaveformChannel(),
+        captureSpec.getPulseFrequency(),
+        0,
+        captureSpec.getPulseNumber(),
+        captureSpec.getPulseData());
+
+    if (!waitUntilCaptured(captureSpec.getSampleFrequency(), captureSpec.getBufferSize())) {
+      return new CaptureResult(captureSpec, armResult, null, null, null);
+    }
+
+    // only transfer and convert the samples the spec's window asks for
+    int windowEnd = Math.min(dwf.FDwfAnalogInStatusSamplesValid(), captureSpec.getWindowEnd());
+    int windowStart = Math.min(captureSpec.getWindowStart(), windowEnd);
+    double[] v1 = sampleBufferPool.acquire(windowEnd - windowStart);
+    double[] v2 = sampleBufferPool.acquire(windowEnd - windowStart);
+    readChannel(DWF.OSCILLOSCOPE_CHANNEL_1, v1, windowStart, windowEnd);
+    readChannel(DWF.OSCILLOSCOPE_CHANNEL_2, v2, windowStart, windowEnd);
+    return new CaptureResult(captureSpec, armResult, v1, v2, sampleBufferPool);
+  }
+
+  /**
+   * Reads the first n samples of the last capture on a scope channel into dst, e.g. a buffer from
+   * {@link #getSampleBufferPool()}.
+   *
+   * @param channel
+   * @param dst
+   * @param n
+   * @return the number of samples read, at most n
+   */
+  public int readChannel(int channel, double[] dst, int n) {
+
+    return readChannel(channel, dst, 0, n);
+  }
+
+  /**
+   * Reads the samples [from, to) of the last capture on a scope channel into the start of dst.
+   * Nothing past sample to is transferred from the device.
+   *
+   * @param channel
+   * @param dst
+   * @param from
+   * @param to
+   * @return the number of samples read, at most to - from
+   */
+  public int readChannel(int channel, double[] dst, int from, int to) {
+
+    if (from < 0 || to < from) {
+      throw new IllegalArgumentException("Invalid sample range [" + from + ", " + to + ")!");
+    }
+    if (to - from > dst.length) {
+      throw new IllegalArgumentException(
+          "Can't read " + (to - from) + " samples into a buffer of " + dst.length + "!");
+    }
+
+    // waveforms4j only hands out the first n samples in a new array, this is the one place to
+    // change once it can read an offset range into a caller's buffer
+    double[] data = dwf.FDwfAnalogInStatusData(channel, to);
+    if (data == null || data.length <= from) {
+      return 0;
+    }
+    int count = Math.min(to, data.length) - from;
+    System.arraycopy(data, from, dst, 0, count);
+    return count;
+  }
+
   /** This is called when the main board on/off toggle switch is switched to the off position. */
   public void shutdownAD2() {
 
@@ -161,7 +640,6 @@ public class DWFProxy {
   }
 
   public void turnOffAllSwitches(int boardVersion) {
-    int oldValDigitalIO = digitalIOStates;
     Integer mask;
     if (boardVersion == 2) {
       mask = Integer.valueOf("0000000000000000", 2);
@@ -169,35 +647,16 @@ public class DWFProxy {
       mask = Integer.valueOf("1111111100000000", 2);
     }
 
-    digitalIOStates = digitalIOStates & mask;
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    dwf.FDwfDigitalIOConfigure();
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    writeDigitalIOStates(~mask, 0, isVerifyDue());
   }
 
   public void update2DigitalIOStatesAtOnce(List<Integer> mask, int offset, boolean isOn) {
 
-    // logger.debug("toggleClickedID: " + toggleClickedID);
-    int oldValDigitalIO = digitalIOStates;
-
-    // Update model
+    int bits = 0;
     for (int i = 0; i < mask.size(); i++) {
-      if (isOn) {
-        digitalIOStates = digitalIOStates | (1 << (mask.get(i) + offset));
-      } else {
-        digitalIOStates = digitalIOStates & ~(1 << (mask.get(i) + offset));
-      }
+      bits = bits | (1 << (mask.get(i) + offset));
     }
-
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    writeDigitalIOStates(isOn ? 0 : bits, isOn ? bits : 0, isVerifyDue());
 
     // System.out.println("digitalIO states= " + Integer.toBinaryString(digitalIOStates));
 
@@ -205,28 +664,7 @@ public class DWFProxy {
 
   public void update2DigitalIOStatesAtOnce(List<Integer> mask, boolean isOn) {
 
-    // logger.debug("toggleClickedID: " + toggleClickedID);
-    int oldValDigitalIO = digitalIOStates;
-
-    // Update model
-    for (int i = 0; i < mask.size(); i++) {
-      if (isOn) {
-        digitalIOStates = digitalIOStates | (1 << mask.get(i));
-      } else {
-        digitalIOStates = digitalIOStates & ~(1 << mask.get(i));
-      }
-    }
-
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
-
-    // System.out.println("digitalIO states= " + Integer.toBinaryString(digitalIOStates));
-
+    update2DigitalIOStatesAtOnce(mask, 0, isOn);
   }
 
   /**
@@ -239,100 +677,149 @@ public class DWFProxy {
   public void update2DigitalIOStatesAtOnce(int toggleClickedID, boolean isOn) {
 
     // logger.debug("toggleClickedID: " + toggleClickedID);
-    int oldValDigitalIO = digitalIOStates;
-
-    // Update model
-    if (isOn) {
-      digitalIOStates = digitalIOStates | (1 << toggleClickedID);
-    } else {
-      digitalIOStates = digitalIOStates & ~(1 << toggleClickedID);
-    }
 
-    // logger.debug("new state: " + digitalIOStates);
-
-    // System.out.println("toggleClickedID: " + toggleClickedID);
-    // System.out.println("isOn: " + isOn);
-    // System.out.println("digitalIOStates: " + Integer.toBinaryString(digitalIOStates));
-
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    int bit = 1 << toggleClickedID;
+    writeDigitalIOStates(isOn ? 0 : bit, isOn ? bit : 0, isVerifyDue());
   }
 
   public void update2DigitalIOStatesAtOnce(int io1, int io2, boolean value1, boolean value2) {
 
-    // logger.debug("toggleClickedID: " + toggleClickedID);
-    int oldValDigitalIO = digitalIOStates;
-
-    // Update model
-    if (value1) {
-      digitalIOStates = digitalIOStates | (1 << io1);
-    } else {
-      digitalIOStates = digitalIOStates & ~(1 << io1);
-    }
-    if (value2) {
-      digitalIOStates = digitalIOStates | (1 << io2);
-    } else {
-      digitalIOStates = digitalIOStates & ~(1 << io2);
-    }
-
-    logger.debug("new state: " + Integer.toBinaryString(digitalIOStates));
-
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
-
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    int states = beginDioTransaction().set(io1, value1).set(io2, value2).commit(isVerifyDue());
+    logger.debug("new state: " + Integer.toBinaryString(states));
   }
 
   public void setUpper8IOStates(int upper8SetMask) {
 
     logger.debug("upper8SetMask: " + Integer.toBinaryString(upper8SetMask));
-    int oldValDigitalIO = digitalIOStates;
 
     int preserveLower8 = 0b0000_0000_1111_1111;
+    writeDigitalIOStates(~preserveLower8, upper8SetMask, isVerifyDue());
+  }
 
-    int zeroUpper8 = digitalIOStates & preserveLower8;
+  public void setAllIOStates(int outputSetMask) {
 
-    int setUpper8 = zeroUpper8 | upper8SetMask;
+    // logger.debug("outputSetMask: " + outputSetMask);
+    writeDigitalIOStates(~0, outputSetMask, isVerifyDue());
+  }
 
-    // Update model
-    digitalIOStates = setUpper8;
+  /**
+   * Starts collecting digital I/O changes that are written to the AD2 together by {@link
+   * DioTransaction#commit()}.
+   *
+   * @return a new, empty transaction
+   */
+  public DioTransaction beginDioTransaction() {
 
-    // logger.debug("new state: " + digitalIOStates);
+    return new DioTransaction();
+  }
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
+  /**
+   * Reads the digital I/O back from the AD2 and compares it with the shadow register, i.e. what was
+   * last written. Use after a run of unverified {@link DioTransaction#commit()} calls.
+   *
+   * @return true if the switch outputs read back as written
+   */
+  public boolean verifyDigitalIOStates() {
 
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            int oldValDigitalIO = digitalIOStates;
+            boolean isMatch = readBackDigitalIOStates();
+            swingPropertyChangeSupport.firePropertyChange(
+                DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+            return isMatch;
+          }
+        });
   }
 
-  public void setAllIOStates(int outputSetMask) {
+  /**
+   * Clears then sets the given bits of the shadow register and writes it to the AD2 with one output
+   * set and configure. Listeners get a single DIGITAL_IO_READ event for the whole change.
+   *
+   * @param clearMask
+   * @param setMask
+   * @param isReadBack read the states back from the AD2 after writing. Without read back an
+   *     unchanged state is not written at all.
+   * @return the new states
+   */
+  private int writeDigitalIOStates(
+      final int clearMask, final int setMask, final boolean isReadBack) {
+
+    return deviceExecutor.call(
+        new Callable<Integer>() {
+
+          @Override
+          public Integer call() {
+
+            int oldValDigitalIO = digitalIOStates;
+            int newValDigitalIO = (digitalIOStates & ~clearMask) | setMask;
+            if (newValDigitalIO == oldValDigitalIO && !isReadBack) {
+              return digitalIOStates;
+            }
+
+            // Update model
+            digitalIOStates = newValDigitalIO;
+
+            boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
+            // logger.debug("AD2 Device Digital I/O Written: " + successful);
+            dwf.FDwfDigitalIOConfigure();
+            dioWriteCount++;
+            dioWritesSinceVerify++;
+
+            if (isReadBack) {
+              readBackDigitalIOStates();
+            }
+            swingPropertyChangeSupport.firePropertyChange(
+                DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+            return digitalIOStates;
+          }
+        });
+  }
 
-    // logger.debug("outputSetMask: " + outputSetMask);
-    int oldValDigitalIO = digitalIOStates;
+  /**
+   * Reads the states from the AD2 into the shadow register. On a mismatch the hardware wins, so the
+   * shadow register is resynced either way.
+   *
+   * @return true if the switch outputs matched the shadow register
+   */
+  private boolean readBackDigitalIOStates() {
 
-    // Update model
-    digitalIOStates = outputSetMask;
+    int expected = digitalIOStates;
+    digitalIOStates = dwf.getDigitalIOStatus();
+    dioVerifyCount++;
+    dioWritesSinceVerify = 0;
+
+    boolean isMatch = (expected & SWITCHES_MASK) == (digitalIOStates & SWITCHES_MASK);
+    if (!isMatch) {
+      dioMismatchCount++;
+      logger.warn(
+          "Digital I/O read back as "
+              + Integer.toBinaryString(digitalIOStates)
+              + ", expected "
+              + Integer.toBinaryString(expected)
+              + ", resynced.");
+    }
+    return isMatch;
+  }
 
-    // logger.debug("new state: " + digitalIOStates);
+  /** @return the DIO states the board starts up with */
+  private int getDefaultDigitalIOStates() {
 
-    boolean successful = dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-    // logger.debug("AD2 Device Digital I/O Written: " + successful);
-    dwf.FDwfDigitalIOConfigure();
+    if (boardVersion == 1) {
+      return DEFAULT_SELECTOR_DIO;
+    } else {
+      return ALL_DIO_OFF;
+    }
+  }
 
-    digitalIOStates = dwf.getDigitalIOStatus();
-    swingPropertyChangeSupport.firePropertyChange(
-        DWFProxy.DIGITAL_IO_READ, oldValDigitalIO, digitalIOStates);
+  /** @return true if the next write should be read back, according to the verify interval */
+  private boolean isVerifyDue() {
+
+    return dioVerifyInterval > 0 && dioWritesSinceVerify + 1 >= dioVerifyInterval;
   }
 
   public int getDigitalIOStates() {
@@ -349,81 +836,340 @@ public class DWFProxy {
     return isAD2Running;
   }
 
-  public DWF getDwf() {
+  /**
+   * All calls on the returned DWF run on the device thread, one at a time, and block the caller
+   * until done. Use {@link #submit(Callable)} to queue work without waiting for it.
+   *
+   * @return the AD2
+   */
+  public DeviceBackend getDwf() {
 
     return dwf;
   }
 
+  /**
+   * Queues a command for the device thread, e.g. to configure the next capture while the current
+   * one is still being read out. Calls on {@link #getDwf()} from within the command run directly.
+   *
+   * @param command
+   * @return completes with the command's result
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> command) {
+
+    return deviceExecutor.submit(command);
+  }
+
+  /** @return the pool of readout buffers, its allocation count shows if a capture loop allocates */
+  public SampleBufferPool getSampleBufferPool() {
+
+    return sampleBufferPool;
+  }
+
+  /** @return the device thread's queue depth and service time statistics */
+  public DeviceExecutor getDeviceExecutor() {
+
+    return deviceExecutor;
+  }
+
+  /** Stops the device thread once the queued commands are done. The proxy can't be used after. */
+  public void shutdownDeviceExecutor() {
+
+    deviceExecutor.shutdown();
+  }
+
   public int getBoardVersion() {
 
     return boardVersion;
   }
 
+  /**
+   * How often the digital I/O setters read the states back from the AD2. With 1 (the default) every
+   * write is read back. With N only every Nth write is, in between the shadow register is trusted.
+   * With 0 the states are only read back by {@link #verifyDigitalIOStates()}.
+   *
+   * @param dioVerifyInterval
+   */
+  public void setDioVerifyInterval(int dioVerifyInterval) {
+
+    if (dioVerifyInterval < 0) {
+      throw new IllegalArgumentException("dioVerifyInterval must not be negative!");
+    }
+    this.dioVerifyInterval = dioVerifyInterval;
+  }
+
+  public int getDioVerifyInterval() {
+
+    return dioVerifyInterval;
+  }
+
+  public long getDioWriteCount() {
+
+    return dioWriteCount;
+  }
+
+  public long getDioVerifyCount() {
+
+    return dioVerifyCount;
+  }
+
+  public long getDioMismatchCount() {
+
+    return dioMismatchCount;
+  }
+
+  public void resetDioStatistics() {
+
+    dioWriteCount = 0;
+    dioVerifyCount = 0;
+    dioMismatchCount = 0;
+  }
+
+  /** @return how many capture and pulse train configurations were sent to the AD2 */
+  public long getAnalogConfigCallCount() {
+
+    return analogConfigCache.getConfigCallCount();
+  }
+
+  /**
+   * @return how many capture and pulse train configurations matched the last applied one and were
+   *     replaced by a re-arm or restart
+   */
+  public long getElidedAnalogConfigCallCount() {
+
+    return analogConfigCache.getElidedConfigCallCount();
+  }
+
+  public void resetAnalogConfigStatistics() {
+
+    analogConfigCache.resetStatistics();
+  }
+
+  /**
+   * Forgets the last applied capture and pulse train configurations, so the next ones are sent in
+   * full. Only needed if the AD2 was reconfigured other than through {@link #getDwf()}.
+   */
+  public void invalidateAnalogConfigCache() {
+
+    deviceExecutor.call(
+        new Callable<Void>() {
+
+          @Override
+          public Void call() {
+
+            analogConfigCache.invalidate();
+            return null;
+          }
+        });
+  }
+
+  public long getArmWaitCount() {
+
+    synchronized (armStatisticsLock) {
+      return armWaitCount;
+    }
+  }
+
+  public long getArmTimeoutCount() {
+
+    synchronized (armStatisticsLock) {
+      return armTimeoutCount;
+    }
+  }
+
+  public long getArmErrorCount() {
+
+    synchronized (armStatisticsLock) {
+      return armErrorCount;
+    }
+  }
+
+  public long getLastArmLatencyNanos() {
+
+    synchronized (armStatisticsLock) {
+      return lastArmLatencyNanos;
+    }
+  }
+
+  public long getMaxArmLatencyNanos() {
+
+    synchronized (armStatisticsLock) {
+      return maxArmLatencyNanos;
+    }
+  }
+
+  public long getMeanArmLatencyNanos() {
+
+    synchronized (armStatisticsLock) {
+      return armWaitCount == 0 ? 0 : totalArmLatencyNanos / armWaitCount;
+    }
+  }
+
+  public void resetArmStatistics() {
+
+    synchronized (armStatisticsLock) {
+      armWaitCount = 0;
+      armTimeoutCount = 0;
+      armErrorCount = 0;
+      lastArmLatencyNanos = 0;
+      maxArmLatencyNanos = 0;
+      totalArmLatencyNanos = 0;
+    }
+  }
+
+  /**
+   * @param maxCaptureAttempts how often {@link #captureAsync(CaptureSpec)} tries a capture before
+   *     it reports it failed, 1 for no retries
+   */
+  public void setMaxCaptureAttempts(int maxCaptureAttempts) {
+
+    deviceWatchdog.setMaxCaptureAttempts(maxCaptureAttempts);
+  }
+
+  public int getMaxCaptureAttempts() {
+
+    return deviceWatchdog.getMaxCaptureAttempts();
+  }
+
+  /**
+   * The wait before a capture retry doubles from the initial to the max backoff.
+   *
+   * @param initialBackoffMs
+   * @param maxBackoffMs
+   */
+  public void setCaptureBackoff(long initialBackoffMs, long maxBackoffMs) {
+
+    deviceWatchdog.setBackoff(
+        TimeUnit.MILLISECONDS.toNanos(initialBackoffMs),
+        TimeUnit.MILLISECONDS.toNanos(maxBackoffMs));
+  }
+
+  /** @return how many capture retries were made */
+  public long getRetriedCaptureCount() {
+
+    return deviceWatchdog.getRetriedCaptureCount();
+  }
+
+  /** @return how many captures failed at first but succeeded on a retry */
+  public long getRecoveredCaptureCount() {
+
+    return deviceWatchdog.getRecoveredCaptureCount();
+  }
+
+  /** @return how many captures still failed after the last attempt */
+  public long getFailedCaptureCount() {
+
+    return deviceWatchdog.getFailedCaptureCount();
+  }
+
+  /** @return how often the AD2 reported an error or stopped answering */
+  public long getDeviceErrorCount() {
+
+    return deviceWatchdog.getDeviceErrorCount();
+  }
+
+  /** @return how often the AD2 was re-opened after an error */
+  public long getReconnectCount() {
+
+    return deviceWatchdog.getReconnectCount();
+  }
+
+  /** @return how often the AD2 couldn't be re-opened */
+  public long getFailedReconnectCount() {
+
+    return deviceWatchdog.getFailedReconnectCount();
+  }
+
+  /** @return the last error message of the AD2, or null if there was none */
+  public String getLastDeviceError() {
+
+    return deviceWatchdog.getLastDeviceError();
+  }
+
+  public void resetWatchdogStatistics() {
+
+    deviceWatchdog.resetStatistics();
+  }
+
+  /**
+   * A batch of digital I/O bit changes. Nothing is sent to the AD2 until {@link #commit()}, which
+   * applies all of them in one write. A later change to the same bit wins.
+   */
+  public class DioTransaction {
+
+    private int setMask = 0;
+    private int clearMask = 0;
+    private boolean isCommitted = false;
+
+    private DioTransaction() {}
+
+    public DioTransaction set(int io) {
+
+      setMask = setMask | (1 << io);
+      clearMask = clearMask & ~(1 << io);
+      return this;
+    }
+
+    public DioTransaction clear(int io) {
+
+      clearMask = clearMask | (1 << io);
+      setMask = setMask & ~(1 << io);
+      return this;
+    }
+
+    public DioTransaction set(int io, boolean isOn) {
+
+      return isOn ? set(io) : clear(io);
+    }
+
+    /**
+     * Writes the commit without reading the states back, see {@link
+     * DWFProxy#verifyDigitalIOStates()}.
+     *
+     * @return the new states
+     */
+    public int commit() {
+
+      return commit(false);
+    }
+
+    /**
+     * @param isVerify read the states back from the AD2 right after writing
+     * @return the new states
+     */
+    public int commit(boolean isVerify) {
+
+      if (isCommitted) {
+        throw new IllegalStateException("DioTransaction already committed!");
+      }
+      isCommitted = true;
+      return writeDigitalIOStates(clearMask, setMask, isVerify);
+    }
+  }
+
+  /** The outcome of {@link #waitUntilArmed(long)}. */
+  public enum ArmResult {
+    Armed,
+    Timeout,
+    DeviceError
+  }
+
   private class AD2StartupWorker extends SwingWorker<Boolean, Void> {
 
     @Override
     protected Boolean doInBackground() {
 
-      // ///////////////////////////////////////////////////////////
-      // Device ///////////////////////////////////////////////////
-      // ///////////////////////////////////////////////////////////
-      isAD2Running = dwf.FDwfDeviceOpen();
-
-      if (isAD2Running) {
-
-        // Some device read out stuff
-        // System.out.println("Analog Out Custom Waveform Buffer Size Channel 1:
-        // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_1)));
-        // System.out.println("Analog Out Custom Waveform Buffer Size Channel 2:
-        // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_2)));
-        // System.out.println("Analog In Trigger Position Info: "+
-        // Arrays.toString(dwf.FDwfAnalogInTriggerPositionInfo()));
-
-        // ///////////////////////////////////////////////////////////
-        // Digital I/O //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        dwf.FDwfDigitalIOOutputEnableSet(SWITCHES_MASK);
-        if (boardVersion == 1) {
-          digitalIOStates = DEFAULT_SELECTOR_DIO;
-        } else {
-          digitalIOStates = ALL_DIO_OFF;
-        }
-        dwf.FDwfDigitalIOOutputSet(digitalIOStates);
-        dwf.FDwfDigitalIOConfigure();
-        digitalIOStates = dwf.getDigitalIOStatus();
-        swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, true, false);
-
-        // ///////////////////////////////////////////////////////////
-        // Analog I/O //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        dwf.setPowerSupply(0, 5.0);
-        dwf.setPowerSupply(1, -5.0);
-
-        // ///////////////////////////////////////////////////////////
-        // Analog Out //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        // set analog out offset to zero, as it seems like it's not quite there by default
-        dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_1, 0);
-        dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_2, 0);
-        // dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
-
-        // ///////////////////////////////////////////////////////////
-        // Analog In //////////////////////////////////////////////
-        // ///////////////////////////////////////////////////////////
-        dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_1, true);
-        dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_1, 2.5);
-        dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_2, true);
-        dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_2, 2.5);
-
-        // Set this to false (default=true). Need to call FDwfAnalogOutConfigure(true),
-        // FDwfAnalogInConfigure(true) in order for *Set* methods to take effect.
-        dwf.FDwfDeviceAutoConfigureSet(false);
-      } else {
-
-        System.out.println(dwf.FDwfGetLastErrorMsg());
-      }
-      // swingPropertyChangeSupport.firePropertyChange(DWFProxy.AD2_STARTUP_CHANGE, !isAD2Running,
-      // isAD2Running);
+      // like every other device access, opening the AD2 and writing the DIO states runs on the
+      // device thread
+      isAD2Running =
+          deviceExecutor.call(
+              new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() {
+
+                  return openAD2(getDefaultDigitalIOStates());
+                }
+              });
       return isAD2Running;
     }
 
@@ -434,4 +1180,70 @@ public class DWFProxy {
           DWFProxy.AD2_STARTUP_CHANGE, !isAD2Running, isAD2Running);
     }
   }
+
+  /**
+   * Opens the AD2 and sets up the DIO, supplies, waveform generators and scope for the board. Runs
+   * on the device thread.
+   *
+   * @param dioStates
+   * @return true if the AD2 is open
+   */
+  private boolean openAD2(int dioStates) {
+
+    // ///////////////////////////////////////////////////////////
+    // Device ///////////////////////////////////////////////////
+    // ///////////////////////////////////////////////////////////
+    boolean isOpen = dwf.FDwfDeviceOpen();
+
+    if (isOpen) {
+
+      // Some device read out stuff
+      // System.out.println("Analog Out Custom Waveform Buffer Size Channel 1:
+      // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_1)));
+      // System.out.println("Analog Out Custom Waveform Buffer Size Channel 2:
+      // "+Arrays.toString(dwf.FDwfAnalogOutNodeDataInfo(DWF.WAVEFORM_CHANNEL_2)));
+      // System.out.println("Analog In Trigger Position Info: "+
+      // Arrays.toString(dwf.FDwfAnalogInTriggerPositionInfo()));
+
+      // ///////////////////////////////////////////////////////////
+      // Digital I/O //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      dwf.FDwfDigitalIOOutputEnableSet(SWITCHES_MASK);
+      digitalIOStates = dioStates;
+      dwf.FDwfDigitalIOOutputSet(digitalIOStates);
+      dwf.FDwfDigitalIOConfigure();
+      digitalIOStates = dwf.getDigitalIOStatus();
+      swingPropertyChangeSupport.firePropertyChange(DWFProxy.DIGITAL_IO_READ, true, false);
+
+      // ///////////////////////////////////////////////////////////
+      // Analog I/O //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      dwf.setPowerSupply(0, 5.0);
+      dwf.setPowerSupply(1, -5.0);
+
+      // ///////////////////////////////////////////////////////////
+      // Analog Out //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      // set analog out offset to zero, as it seems like it's not quite there by default
+      dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_1, 0);
+      dwf.FDwfAnalogOutNodeOffsetSet(DWF.WAVEFORM_CHANNEL_2, 0);
+      // dwf.FDwfAnalogOutConfigure(DWF.WAVEFORM_CHANNEL_1, true);
+
+      // ///////////////////////////////////////////////////////////
+      // Analog In //////////////////////////////////////////////
+      // ///////////////////////////////////////////////////////////
+      dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_1, true);
+      dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_1, 2.5);
+      dwf.FDwfAnalogInChannelEnableSet(DWF.OSCILLOSCOPE_CHANNEL_2, true);
+      dwf.FDwfAnalogInChannelRangeSet(DWF.OSCILLOSCOPE_CHANNEL_2, 2.5);
+
+      // Set this to false (default=true). Need to call FDwfAnalogOutConfigure(true),
+      // FDwfAnalogInConfigure(true) in order for *Set* methods to take effect.
+      dwf.FDwfDeviceAutoConfigureSet(false);
+    } else {
+
+      System.out.println(dwf.FDwfGetLastErrorMsg());
+    }
+    return isOpen;
+  }
 }
@@ -0,0 +1,142 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.knowm.waveforms4j.DWF.Waveform;
+
+/**
+ * The AD2 operations this application uses, so {@link DWFProxy} can drive either the real device
+ * through waveforms4j ({@link DWFBackend}) or a simulated board. The methods mirror their {@link
+ * DWF} namesakes, channel and state constants are the ones defined there.
+ */
+public interface DeviceBackend {
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfDeviceOpen();
+
+  boolean FDwfDeviceCloseAll();
+
+  String FDwfGetLastErrorMsg();
+
+  boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure);
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask);
+
+  boolean FDwfDigitalIOOutputSet(int outputSetMask);
+
+  boolean FDwfDigitalIOConfigure();
+
+  int getDigitalIOStatus();
+
+  boolean FDwfDigitalIOReset();
+
+  boolean FDwfDigitalOutReset();
+
+  // ///////////////////////////////////////////////////////////
+  // Analog I/O ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean setPowerSupply(int idxChannel, double value);
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset);
+
+  boolean FDwfAnalogOutConfigure(int idxChannel, boolean start);
+
+  boolean startWave(
+      int idxChannel,
+      Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle);
+
+  boolean stopWave(int idxChannel);
+
+  boolean startPulseTrain(int idxChannel);
+
+  /**
+   * Sets up, but doesn't start, a train of custom pulses.
+   *
+   * @param idxChannel
+   * @param frequency pulses per second
+   * @param offset
+   * @param numPulses
+   * @param rgdData one period of the pulse in volts, as from WaveformUtils
+   * @return
+   */
+  boolean setCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData);
+
+  boolean startCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData);
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable);
+
+  boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange);
+
+  boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start);
+
+  /**
+   * @param readData
+   * @return the DwfState of the acquisition, e.g. 1 for armed and 2 for done
+   */
+  byte FDwfAnalogInStatus(boolean readData);
+
+  int FDwfAnalogInStatusSamplesValid();
+
+  double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize);
+
+  /**
+   * Arms a capture on both scope channels that starts when the given waveform generator channel
+   * starts.
+   */
+  boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int idxChannel, double sampleFrequency, int bufferSize, boolean isScale2Volts);
+
+  /** Arms a capture on both scope channels that starts when scope channel 1 crosses the level. */
+  boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize);
+
+  boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode);
+
+  boolean stopAnalogCaptureBothChannels();
+}
@@ -0,0 +1,266 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs device commands one at a time on a single thread that owns the AD2. Commands are queued in a
+ * bounded queue, a caller submitting into a full queue blocks until there is room. Commands
+ * submitted from the device thread itself run immediately, so a command may call other device
+ * methods without deadlocking.
+ */
+public class DeviceExecutor {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+  private static final Logger logger = LoggerFactory.getLogger(DeviceExecutor.class);
+
+  private final BlockingQueue<Runnable> queue;
+  private final Thread thread;
+
+  private volatile boolean isShutdown = false;
+
+  // statistics, guarded by this
+  private long submittedCount = 0;
+  private long completedCount = 0;
+  private long failedCount = 0;
+  private int maxQueueDepth = 0;
+  private long totalServiceNanos = 0;
+  private long maxServiceNanos = 0;
+
+  /**
+   * Constructor
+   *
+   * @param name
+   * @param queueCapacity
+   */
+  public DeviceExecutor(String name, int queueCapacity) {
+
+    this.queue = new ArrayBlockingQueue<Runnable>(queueCapacity);
+    this.thread =
+        new Thread(
+            new Runnable() {
+
+              @Override
+              public void run() {
+
+                serviceQueue();
+              }
+            },
+            name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queues a command for the device thread.
+   *
+   * @param command
+   * @return completes with the command's result, or exceptionally with what it threw
+   */
+  public <T> CompletableFuture<T> submit(final Callable<T> command) {
+
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+
+    if (isDeviceThread()) {
+      // nested in a running command, which is already being timed
+      try {
+        future.complete(command.call());
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+      return future;
+    }
+    if (isShutdown) {
+      future.completeExceptionally(
+          new RejectedExecutionException("Device executor " + thread.getName() + " is shut down!"));
+      return future;
+    }
+
+    try {
+      queue.put(
+          new Runnable() {
+
+            @Override
+            public void run() {
+
+              runCommand(command, future);
+            }
+          });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    synchronized (this) {
+      submittedCount++;
+      maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+    }
+    return future;
+  }
+
+  /**
+   * Runs a command on the device thread and waits for it. Unchecked exceptions thrown by the
+   * command are rethrown here.
+   *
+   * @param command
+   * @return the command's result
+   */
+  public <T> T call(Callable<T> command) {
+
+    try {
+      return submit(command).get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the device!", e);
+    }
+  }
+
+  public boolean isDeviceThread() {
+
+    return Thread.currentThread() == thread;
+  }
+
+  /** Lets the already queued commands finish, then stops the device thread. */
+  public void shutdown() {
+
+    if (isShutdown) {
+      return;
+    }
+    isShutdown = true;
+    try {
+      queue.put(
+          new Runnable() {
+
+            @Override
+            public void run() {
+
+              Thread.currentThread().interrupt();
+            }
+          });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void serviceQueue() {
+
+    while (!Thread.currentThread().isInterrupted()) {
+      Runnable runnable;
+      try {
+        runnable = queue.take();
+      } catch (InterruptedException e) {
+        break;
+      }
+      runnable.run();
+    }
+    logger.debug("Device executor " + thread.getName() + " stopped.");
+  }
+
+  private <T> void runCommand(Callable<T> command, CompletableFuture<T> future) {
+
+    long startTime = System.nanoTime();
+    boolean isFailed = false;
+    try {
+      future.complete(command.call());
+    } catch (Throwable t) {
+      isFailed = true;
+      future.completeExceptionally(t);
+    }
+    long serviceNanos = System.nanoTime() - startTime;
+
+    synchronized (this) {
+      completedCount++;
+      if (isFailed) {
+        failedCount++;
+      }
+      totalServiceNanos += serviceNanos;
+      maxServiceNanos = Math.max(maxServiceNanos, serviceNanos);
+    }
+  }
+
+  /** @return the number of commands waiting to run */
+  public int getQueueDepth() {
+
+    return queue.size();
+  }
+
+  public synchronized int getMaxQueueDepth() {
+
+    return maxQueueDepth;
+  }
+
+  public synchronized long getSubmittedCount() {
+
+    return submittedCount;
+  }
+
+  /** @return the number of queued commands run, including the ones that threw */
+  public synchronized long getCompletedCount() {
+
+    return completedCount;
+  }
+
+  public synchronized long getFailedCount() {
+
+    return failedCount;
+  }
+
+  public synchronized long getMeanServiceNanos() {
+
+    return completedCount == 0 ? 0 : totalServiceNanos / completedCount;
+  }
+
+  public synchronized long getMaxServiceNanos() {
+
+    return maxServiceNanos;
+  }
+
+  public synchronized void resetStatistics() {
+
+    submittedCount = 0;
+    completedCount = 0;
+    failedCount = 0;
+    maxQueueDepth = 0;
+    totalServiceNanos = 0;
+    maxServiceNanos = 0;
+  }
+}
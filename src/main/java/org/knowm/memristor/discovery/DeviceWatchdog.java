@@ -0,0 +1,187 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The capture retry and reconnect policy of {@link DWFProxy}, and the counts of what it did. A
+ * failed capture is retried after a bounded exponential backoff. If the failure came with a device
+ * error, e.g. after a USB drop, the AD2 is re-opened and reconfigured before the retry. The policy
+ * is applied on the device thread, the counts may be read from anywhere.
+ */
+class DeviceWatchdog {
+
+  static final int DEFAULT_MAX_CAPTURE_ATTEMPTS = 4;
+  static final long DEFAULT_INITIAL_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  static final long DEFAULT_MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+  /** how often re-opening the AD2 is tried before it is given up as gone */
+  static final int MAX_RECONNECT_ATTEMPTS = 5;
+
+  private volatile int maxCaptureAttempts = DEFAULT_MAX_CAPTURE_ATTEMPTS;
+  private volatile long initialBackoffNanos = DEFAULT_INITIAL_BACKOFF_NANOS;
+  private volatile long maxBackoffNanos = DEFAULT_MAX_BACKOFF_NANOS;
+
+  private volatile long retriedCaptureCount = 0;
+  private volatile long recoveredCaptureCount = 0;
+  private volatile long failedCaptureCount = 0;
+  private volatile long deviceErrorCount = 0;
+  private volatile long reconnectCount = 0;
+  private volatile long failedReconnectCount = 0;
+  private volatile String lastDeviceError = null;
+
+  /**
+   * @param lastErrorMsg as from FDwfGetLastErrorMsg
+   * @return true if the AD2 reported an error
+   */
+  static boolean isDeviceError(String lastErrorMsg) {
+
+    return lastErrorMsg != null && !lastErrorMsg.trim().isEmpty();
+  }
+
+  /**
+   * Parks the device thread before the given retry.
+   *
+   * @param retry 0 for the first retry
+   * @return false if the thread was interrupted, nothing should be retried then
+   */
+  boolean backoff(int retry) {
+
+    LockSupport.parkNanos(getBackoffNanos(retry));
+    if (Thread.interrupted()) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return true;
+  }
+
+  long getBackoffNanos(int retry) {
+
+    return Math.min(initialBackoffNanos << Math.min(retry, 30), maxBackoffNanos);
+  }
+
+  void captureRetried() {
+
+    retriedCaptureCount++;
+  }
+
+  /** A capture succeeded after being retried. */
+  void captureRecovered() {
+
+    recoveredCaptureCount++;
+  }
+
+  /** A capture still failed after the last attempt. */
+  void captureFailed() {
+
+    failedCaptureCount++;
+  }
+
+  void deviceError(String lastErrorMsg) {
+
+    deviceErrorCount++;
+    lastDeviceError = lastErrorMsg;
+  }
+
+  void reconnected() {
+
+    reconnectCount++;
+  }
+
+  void reconnectFailed() {
+
+    failedReconnectCount++;
+  }
+
+  int getMaxCaptureAttempts() {
+
+    return maxCaptureAttempts;
+  }
+
+  void setMaxCaptureAttempts(int maxCaptureAttempts) {
+
+    if (maxCaptureAttempts < 1) {
+      throw new IllegalArgumentException("A capture needs at least one attempt!");
+    }
+    this.maxCaptureAttempts = maxCaptureAttempts;
+  }
+
+  void setBackoff(long initialBackoffNanos, long maxBackoffNanos) {
+
+    if (initialBackoffNanos < 0 || maxBackoffNanos < initialBackoffNanos) {
+      throw new IllegalArgumentException(
+          "Invalid backoff " + initialBackoffNanos + " to " + maxBackoffNanos + " ns!");
+    }
+    this.initialBackoffNanos = initialBackoffNanos;
+    this.maxBackoffNanos = maxBackoffNanos;
+  }
+
+  long getRetriedCaptureCount() {
+
+    return retriedCaptureCount;
+  }
+
+  long getRecoveredCaptureCount() {
+
+    return recoveredCaptureCount;
+  }
+
+  long getFailedCaptureCount() {
+
+    return failedCaptureCount;
+  }
+
+  long getDeviceErrorCount() {
+
+    return deviceErrorCount;
+  }
+
+  long getReconnectCount() {
+
+    return reconnectCount;
+  }
+
+  long getFailedReconnectCount() {
+
+    return failedReconnectCount;
+  }
+
+  String getLastDeviceError() {
+
+    return lastDeviceError;
+  }
+
+  void resetStatistics() {
+
+    retriedCaptureCount = 0;
+    recoveredCaptureCount = 0;
+    failedCaptureCount = 0;
+    deviceErrorCount = 0;
+    reconnectCount = 0;
+    failedReconnectCount = 0;
+    lastDeviceError = null;
+  }
+}
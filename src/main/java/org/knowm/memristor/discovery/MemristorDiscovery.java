@@ -32,6 +32,9 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 
 import javax.swing.AbstractAction;
@@ -41,9 +44,13 @@ import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.UIManager;
 
+import org.knowm.memristor.discovery.core.session.RecordingBackend;
+import org.knowm.memristor.discovery.core.session.ReplayBackend;
+import org.knowm.memristor.discovery.core.simulator.SimulatedBackend;
 import org.knowm.memristor.discovery.gui.AboutDialog;
 import org.knowm.memristor.discovery.gui.ConsoleDialog;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
@@ -94,6 +101,18 @@ public class MemristorDiscovery
     implements GenericQuitEventListener, GenericPreferencesEventListener, GenericAboutEventListener, PropertyChangeListener {
 
   private static final String FRAME_TITLE_BASE = "Knowm Memristor Discovery - ";
+
+  /** Set this system property to true to run against a simulated board instead of an AD2. */
+  public static final String SIMULATOR_PROPERTY = "memristor.discovery.simulator";
+
+  /** Set this system property to a file to record every device call of the session to it. */
+  public static final String RECORD_PROPERTY = "memristor.discovery.record";
+
+  /** Set this system property to a recorded file to replay it instead of using a device. */
+  public static final String REPLAY_PROPERTY = "memristor.discovery.replay";
+
+  /** Set this system property to true to replay at the recorded pace. */
+  public static final String REPLAY_PACED_PROPERTY = "memristor.discovery.replay.paced";
   private final String[] appsV0;
   private final String[] appsV1;
   private final String[] appsV2;
@@ -102,6 +121,11 @@ public class MemristorDiscovery
   private int boardVersion;
 
   private DWFProxy dwf;
+
+  /** a recording or replay, it spans board switches so it is only created once */
+  private DeviceBackend sessionBackend;
+  /** the board version the session backend currently records or replays */
+  private int sessionBoardVersion;
   private Experiment experiment;
   private String experimentName;
 
@@ -161,7 +185,8 @@ public class MemristorDiscovery
       mainFrame.dispose(); // Destroy the JFrame object
       shutdownDWF();
     }
-    this.dwf = new DWFProxy(boardVersion);
+    this.dwf = new DWFProxy(boardVersion, getDeviceBackend());
+    this.dwf.setDioVerifyInterval(memristorDiscoveryPreferences.getDioVerifyInterval());
 
     GenericApplicationSpecification specification = new GenericApplicationSpecification();
     specification.getQuitEventListeners().add(this);
@@ -273,11 +298,7 @@ public class MemristorDiscovery
         @Override
         public void actionPerformed(ActionEvent e) {
 
-          try {
-            dwf.shutdownAD2();
-          } catch (DWFException e1) {
-            e1.printStackTrace();
-          }
+          stopExperiment();
           Container mainFrameContainer = mainFrame.getContentPane();
           mainFrameContainer.removeAll();
           mainFrameContainer.revalidate();
@@ -318,7 +339,7 @@ public class MemristorDiscovery
           // for result message from experiments
           experiment.getControlModel().addListener(MemristorDiscovery.this);
 
-          dwf.startupAD2();
+          dwf.switchExperiment();
 
           mainFrame.setTitle(FRAME_TITLE_BASE + e.getActionCommand());
         }
@@ -340,11 +361,7 @@ public class MemristorDiscovery
           @Override
           public void actionPerformed(ActionEvent e) {
 
-            try {
-              dwf.shutdownAD2();
-            } catch (DWFException e1) {
-              e1.printStackTrace();
-            }
+            stopExperiment();
             Container mainFrameContainer = mainFrame.getContentPane();
             mainFrameContainer.removeAll();
             mainFrameContainer.revalidate();
@@ -371,7 +388,7 @@ public class MemristorDiscovery
             // for result message from experiments
             experiment.getControlModel().addListener(MemristorDiscovery.this);
 
-            dwf.startupAD2();
+            dwf.switchExperiment();
 
             mainFrame.setTitle(FRAME_TITLE_BASE + e.getActionCommand());
           }
@@ -396,11 +413,7 @@ public class MemristorDiscovery
           @Override
           public void actionPerformed(ActionEvent e) {
 
-            try {
-              dwf.shutdownAD2();
-            } catch (DWFException e1) {
-              e1.printStackTrace();
-            }
+            stopExperiment();
             Container mainFrameContainer = mainFrame.getContentPane();
             mainFrameContainer.removeAll();
             mainFrameContainer.revalidate();
@@ -431,7 +444,7 @@ public class MemristorDiscovery
             // for result message from experiments
             experiment.getControlModel().addListener(MemristorDiscovery.this);
 
-            dwf.startupAD2();
+            dwf.switchExperiment();
 
             mainFrame.setTitle(FRAME_TITLE_BASE + e.getActionCommand());
           }
@@ -590,10 +603,34 @@ public class MemristorDiscovery
     quit();
   }
 
+  /**
+   * Stops the present experiment before another one takes over the AD2. If one of its workers is
+   * still running after {@link Experiment#stop()} has waited for it, the AD2 is closed too, so the
+   * worker's calls fail instead of driving the board, and the following switchExperiment() does a
+   * cold start up instead of keeping it open.
+   */
+  private void stopExperiment() {
+
+    if (experiment != null && experiment.stop()) {
+      try {
+        dwf.shutdownAD2();
+      } catch (DWFException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
   private void quit() {
 
     // System.out.println("here0");
     shutdownDWF();
+    if (sessionBackend instanceof Closeable) {
+      try {
+        ((Closeable) sessionBackend).close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
     // dwf.FDwfDeviceCloseAll();
     //
     try {
@@ -606,12 +643,61 @@ public class MemristorDiscovery
     System.exit(0);
   }
 
+  private DeviceBackend getDeviceBackend() {
+
+    String recordFile = System.getProperty(RECORD_PROPERTY);
+    String replayFile = System.getProperty(REPLAY_PROPERTY);
+    if (recordFile == null && replayFile == null) {
+      return createDeviceBackend();
+    }
+
+    if (sessionBackend == null) {
+      String sessionFile = replayFile != null ? replayFile : recordFile;
+      try {
+        if (replayFile != null) {
+          ReplayBackend replayBackend = new ReplayBackend(new File(replayFile));
+          replayBackend.setPaced(Boolean.getBoolean(REPLAY_PACED_PROPERTY));
+          sessionBackend = replayBackend;
+        } else {
+          sessionBackend = new RecordingBackend(createDeviceBackend(), new File(recordFile));
+        }
+      } catch (IOException e) {
+        // never fall back to the AD2 or an unrecorded session the user didn't ask for
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(
+            null,
+            "Could not open the device session file " + sessionFile + ": " + e.getMessage(),
+            "Memristor Discovery",
+            JOptionPane.ERROR_MESSAGE);
+        System.exit(1);
+      }
+      sessionBoardVersion = boardVersion;
+    } else if (boardVersion != sessionBoardVersion
+        && sessionBackend instanceof RecordingBackend
+        && Boolean.getBoolean(SIMULATOR_PROPERTY)) {
+      // the simulated board has the topology of its version, the AD2 is the same for all versions
+      ((RecordingBackend) sessionBackend).setDeviceBackend(createDeviceBackend());
+      sessionBoardVersion = boardVersion;
+    }
+    return sessionBackend;
+  }
+
+  private DeviceBackend createDeviceBackend() {
+
+    if (Boolean.getBoolean(SIMULATOR_PROPERTY)) {
+      return new SimulatedBackend(boardVersion);
+    } else {
+      return new DWFBackend();
+    }
+  }
+
   private void shutdownDWF() {
     try {
       dwf.shutdownAD2();
     } catch (DWFException e) {
       e.printStackTrace();
     }
+    dwf.shutdownDeviceExecutor();
   }
 
   @Override
@@ -32,10 +32,17 @@ public class MemristorDiscoveryPreferences {
 
   public static final String EXPERIMENT_INIT_STRING_KEY = "EXPERIMENT_INIT_STRING_KEY";
   public static final String EXPERIMENT_INIT_STRING_DEFAULT_VALUE = "HYSTERESIS";
+
+  /*
+   * digital I/O writes between read backs of the switch states, see DWFProxy.setDioVerifyInterval
+   */
+  public static final String DIO_VERIFY_INTERVAL_INIT_KEY = "DIO_VERIFY_INTERVAL_INIT_KEY";
+  public static final int DIO_VERIFY_INTERVAL_INIT_DEFAULT_VALUE = 16;
   protected Preferences preferences;
 
   private String boardVersion;
   private String experiment;
+  private int dioVerifyInterval;
 
   /*
    * will not compute measured values like conductance if source voltage is less than this.
@@ -49,6 +56,9 @@ public class MemristorDiscoveryPreferences {
     boardVersion = this.preferences.get(BOARD_INIT_STRING_KEY, BOARD_INIT_STRING_DEFAULT_VALUE);
     experiment =
         this.preferences.get(EXPERIMENT_INIT_STRING_KEY, EXPERIMENT_INIT_STRING_DEFAULT_VALUE);
+    dioVerifyInterval =
+        this.preferences.getInt(
+            DIO_VERIFY_INTERVAL_INIT_KEY, DIO_VERIFY_INTERVAL_INIT_DEFAULT_VALUE);
   }
 
   public void updateBoardVersion(String boardVersion) {
@@ -83,4 +93,8 @@ public class MemristorDiscoveryPreferences {
   public String getExperiment() {
     return experiment;
   }
+
+  public int getDioVerifyInterval() {
+    return dioVerifyInterval;
+  }
 }
@@ -0,0 +1,107 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Recycles the sample arrays of analog in readouts. Buffers are pooled by exact length, which is
+ * what capture loops need as they read the same number of samples over and over, and so a pooled
+ * buffer can be handed to code that relies on its length. In steady state the allocation count
+ * stops growing.
+ */
+public class SampleBufferPool {
+
+  public static final int DEFAULT_BUFFERS_PER_LENGTH = 8;
+
+  private final int buffersPerLength;
+  private final Map<Integer, ArrayDeque<double[]>> pool =
+      new HashMap<Integer, ArrayDeque<double[]>>();
+
+  private long acquireCount = 0;
+  private long allocationCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param buffersPerLength how many released buffers of each length are kept
+   */
+  public SampleBufferPool(int buffersPerLength) {
+
+    this.buffersPerLength = buffersPerLength;
+  }
+
+  /**
+   * @param length
+   * @return a buffer of exactly the given length, with undefined content
+   */
+  public synchronized double[] acquire(int length) {
+
+    acquireCount++;
+    ArrayDeque<double[]> buffers = pool.get(length);
+    if (buffers != null && !buffers.isEmpty()) {
+      return buffers.pop();
+    }
+    allocationCount++;
+    return new double[length];
+  }
+
+  /**
+   * Returns a buffer to the pool. The caller must not use it afterwards.
+   *
+   * @param buffer may be null
+   */
+  public synchronized void release(double[] buffer) {
+
+    if (buffer == null) {
+      return;
+    }
+    ArrayDeque<double[]> buffers = pool.get(buffer.length);
+    if (buffers == null) {
+      buffers = new ArrayDeque<double[]>();
+      pool.put(buffer.length, buffers);
+    }
+    if (buffers.size() < buffersPerLength) {
+      buffers.push(buffer);
+    }
+  }
+
+  public synchronized long getAcquireCount() {
+
+    return acquireCount;
+  }
+
+  /** @return how many acquires had to allocate a new buffer */
+  public synchronized long getAllocationCount() {
+
+    return allocationCount;
+  }
+
+  public synchronized void clear() {
+
+    pool.clear();
+  }
+}
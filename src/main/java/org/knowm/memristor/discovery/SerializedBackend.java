@@ -0,0 +1,526 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery;
+
+import java.util.concurrent.Callable;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.knowm.waveforms4j.DWF.Waveform;
+
+/**
+ * A {@link DeviceBackend} whose methods run on the {@link DeviceExecutor} thread, so every caller
+ * of {@link DWFProxy#getDwf()} shares one serialized path to the device no matter which thread it
+ * is on.
+ *
+ * <p>Triggered captures and custom pulse trains go through an {@link AnalogConfigCache}: when one
+ * is set up exactly like the previous one, the scope is only re-armed or the waveform generator
+ * only restarted.
+ */
+class SerializedBackend implements DeviceBackend {
+
+  private final DeviceBackend deviceBackend;
+  private final DeviceExecutor deviceExecutor;
+  private final AnalogConfigCache analogConfigCache;
+
+  /**
+   * Constructor
+   *
+   * @param deviceBackend the device, only called on the device thread
+   * @param deviceExecutor
+   * @param analogConfigCache
+   */
+  SerializedBackend(
+      DeviceBackend deviceBackend,
+      DeviceExecutor deviceExecutor,
+      AnalogConfigCache analogConfigCache) {
+
+    this.deviceBackend = deviceBackend;
+    this.deviceExecutor = deviceExecutor;
+    this.analogConfigCache = analogConfigCache;
+  }
+
+  @Override
+  public boolean FDwfDeviceOpen() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidate();
+            return deviceBackend.FDwfDeviceOpen();
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDeviceCloseAll() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidate();
+            return deviceBackend.FDwfDeviceCloseAll();
+          }
+        });
+  }
+
+  @Override
+  public String FDwfGetLastErrorMsg() {
+
+    return deviceExecutor.call(
+        new Callable<String>() {
+
+          @Override
+          public String call() {
+
+            return deviceBackend.FDwfGetLastErrorMsg();
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDeviceAutoConfigureSet(final boolean autoConfigure) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfDeviceAutoConfigureSet(autoConfigure);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputEnableSet(final int outputEnableMask) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfDigitalIOOutputEnableSet(outputEnableMask);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDigitalIOOutputSet(final int outputSetMask) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfDigitalIOOutputSet(outputSetMask);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDigitalIOConfigure() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfDigitalIOConfigure();
+          }
+        });
+  }
+
+  @Override
+  public int getDigitalIOStatus() {
+
+    return deviceExecutor.call(
+        new Callable<Integer>() {
+
+          @Override
+          public Integer call() {
+
+            return deviceBackend.getDigitalIOStatus();
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDigitalIOReset() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfDigitalIOReset();
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfDigitalOutReset() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfDigitalOutReset();
+          }
+        });
+  }
+
+  @Override
+  public boolean setPowerSupply(final int idxChannel, final double value) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.setPowerSupply(idxChannel, value);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfAnalogOutNodeOffsetSet(final int idxChannel, final double offset) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidatePulseTrain(idxChannel);
+            return deviceBackend.FDwfAnalogOutNodeOffsetSet(idxChannel, offset);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfAnalogOutConfigure(final int idxChannel, final boolean start) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfAnalogOutConfigure(idxChannel, start);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelEnableSet(final int idxChannel, final boolean enable) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidateAcquisition();
+            return deviceBackend.FDwfAnalogInChannelEnableSet(idxChannel, enable);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfAnalogInChannelRangeSet(final int idxChannel, final double voltsRange) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidateAcquisition();
+            return deviceBackend.FDwfAnalogInChannelRangeSet(idxChannel, voltsRange);
+          }
+        });
+  }
+
+  @Override
+  public boolean FDwfAnalogInConfigure(final boolean reconfigure, final boolean start) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.FDwfAnalogInConfigure(reconfigure, start);
+          }
+        });
+  }
+
+  @Override
+  public byte FDwfAnalogInStatus(final boolean readData) {
+
+    return deviceExecutor.call(
+        new Callable<Byte>() {
+
+          @Override
+          public Byte call() {
+
+            return deviceBackend.FDwfAnalogInStatus(readData);
+          }
+        });
+  }
+
+  @Override
+  public int FDwfAnalogInStatusSamplesValid() {
+
+    return deviceExecutor.call(
+        new Callable<Integer>() {
+
+          @Override
+          public Integer call() {
+
+            return deviceBackend.FDwfAnalogInStatusSamplesValid();
+          }
+        });
+  }
+
+  @Override
+  public double[] FDwfAnalogInStatusData(final int idxChannel, final int bufferSize) {
+
+    return deviceExecutor.call(
+        new Callable<double[]>() {
+
+          @Override
+          public double[] call() {
+
+            return deviceBackend.FDwfAnalogInStatusData(idxChannel, bufferSize);
+          }
+        });
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      final int idxChannel,
+      final double sampleFrequency,
+      final int bufferSize,
+      final boolean isScale2Volts) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            AnalogConfigCache.AcquisitionConfig config =
+                new AnalogConfigCache.AcquisitionConfig(
+                    false, idxChannel, sampleFrequency, bufferSize, isScale2Volts, 0);
+            if (analogConfigCache.isAcquisitionApplied(config)) {
+              return deviceBackend.FDwfAnalogInConfigure(false, true);
+            }
+            boolean successful =
+                deviceBackend.startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+                    idxChannel, sampleFrequency, bufferSize, isScale2Volts);
+            analogConfigCache.acquisitionApplied(config, successful);
+            return successful;
+          }
+        });
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsLevelTrigger(
+      final double sampleFrequency, final double triggerLevel, final int bufferSize) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            AnalogConfigCache.AcquisitionConfig config =
+                new AnalogConfigCache.AcquisitionConfig(
+                    true, 0, sampleFrequency, bufferSize, false, triggerLevel);
+            if (analogConfigCache.isAcquisitionApplied(config)) {
+              return deviceBackend.FDwfAnalogInConfigure(false, true);
+            }
+            boolean successful =
+                deviceBackend.startAnalogCaptureBothChannelsLevelTrigger(
+                    sampleFrequency, triggerLevel, bufferSize);
+            analogConfigCache.acquisitionApplied(config, successful);
+            return successful;
+          }
+        });
+  }
+
+  @Override
+  public boolean startAnalogCaptureBothChannelsImmediately(
+      final double sampleFrequency, final int bufferSize, final AcquisitionMode acquisitionMode) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidateAcquisition();
+            return deviceBackend.startAnalogCaptureBothChannelsImmediately(
+                sampleFrequency, bufferSize, acquisitionMode);
+          }
+        });
+  }
+
+  @Override
+  public boolean stopAnalogCaptureBothChannels() {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            // a waveforms4j helper, it may reset more than it says
+            analogConfigCache.invalidateAcquisition();
+            return deviceBackend.stopAnalogCaptureBothChannels();
+          }
+        });
+  }
+
+  @Override
+  public boolean startWave(
+      final int idxChannel,
+      final Waveform waveform,
+      final double frequency,
+      final double amplitude,
+      final double offset,
+      final double dutyCycle) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            analogConfigCache.invalidatePulseTrain(idxChannel);
+            return deviceBackend.startWave(
+                idxChannel, waveform, frequency, amplitude, offset, dutyCycle);
+          }
+        });
+  }
+
+  @Override
+  public boolean stopWave(final int idxChannel) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            // a waveforms4j helper, it may reset more than it says
+            analogConfigCache.invalidatePulseTrain(idxChannel);
+            return deviceBackend.stopWave(idxChannel);
+          }
+        });
+  }
+
+  @Override
+  public boolean startPulseTrain(final int idxChannel) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            return deviceBackend.startPulseTrain(idxChannel);
+          }
+        });
+  }
+
+  @Override
+  public boolean setCustomPulseTrain(
+      final int idxChannel,
+      final double frequency,
+      final double offset,
+      final int numPulses,
+      final double[] rgdData) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            AnalogConfigCache.PulseTrainConfig config =
+                new AnalogConfigCache.PulseTrainConfig(frequency, offset, numPulses, rgdData);
+            if (analogConfigCache.isPulseTrainApplied(idxChannel, config)) {
+              return true;
+            }
+            boolean successful =
+                deviceBackend.setCustomPulseTrain(
+                    idxChannel, frequency, offset, numPulses, rgdData);
+            analogConfigCache.pulseTrainApplied(idxChannel, config, successful);
+            return successful;
+          }
+        });
+  }
+
+  @Override
+  public boolean startCustomPulseTrain(
+      final int idxChannel,
+      final double frequency,
+      final double offset,
+      final int numPulses,
+      final double[] rgdData) {
+
+    return deviceExecutor.call(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            AnalogConfigCache.PulseTrainConfig config =
+                new AnalogConfigCache.PulseTrainConfig(frequency, offset, numPulses, rgdData);
+            if (analogConfigCache.isPulseTrainApplied(idxChannel, config)) {
+              return deviceBackend.startPulseTrain(idxChannel);
+            }
+            boolean successful =
+                deviceBackend.startCustomPulseTrain(
+                    idxChannel, frequency, offset, numPulses, rgdData);
+            analogConfigCache.pulseTrainApplied(idxChannel, config, successful);
+            return successful;
+          }
+        });
+  }
+}
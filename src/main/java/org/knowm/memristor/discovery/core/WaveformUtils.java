@@ -23,6 +23,8 @@
  */
 package org.knowm.memristor.discovery.core;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.knowm.memristor.discovery.core.driver.Driver;
 import org.knowm.memristor.discovery.core.driver.pulse.HalfSinePulse;
 import org.knowm.memristor.discovery.core.driver.pulse.QuarterSinePulse;
@@ -45,26 +47,97 @@ import org.knowm.waveforms4j.DWF;
 /** Created by timmolter on 2/15/17. */
 public class WaveformUtils {
 
-  public static double[] generateSquarePulseWithReadPulses(double amplitude) {
+  /** number of generated buffers kept, each one is 4096 doubles */
+  public static final int CACHE_CAPACITY = 64;
 
-    // read pulses
-    double readPulseMagnitude = .1 / 5.0;
-    int size = 1024; // could go up to 4096
-    double[] rgdData = new double[size];
-    for (int i = size / 4; i < size * 3 / 4; i++) {
-      rgdData[i] = amplitude / 5.0;
+  private static final Map<Key, double[]> cache =
+      new LinkedHashMap<Key, double[]>(CACHE_CAPACITY, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+
+          return size() > CACHE_CAPACITY;
+        }
+      };
+
+  private static int cacheHits = 0;
+  private static int cacheMisses = 0;
+
+  /**
+   * Returns the AWG buffer for one period of the given pulse. Buffers are cached, so identical
+   * pulses share the same array. It must not be modified.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param pulseWidthInNS
+   * @param dutyCycle
+   * @return
+   */
+  public static double[] generateCustomPulse(
+      Waveform waveform, double amplitude, double pulseWidthInNS, double dutyCycle) {
+
+    Key key = new Key(true, waveform, amplitude, pulseWidthInNS, dutyCycle);
+    double[] customWaveform = getCached(key);
+    if (customWaveform == null) {
+      customWaveform = computeCustomPulse(waveform, amplitude, pulseWidthInNS, dutyCycle);
+      putCached(key, customWaveform);
     }
-    for (int i = 0; i < size / 8; i++) {
-      rgdData[i] = readPulseMagnitude;
+    return customWaveform;
+  }
+
+  /**
+   * Returns the AWG buffer for one period of the given waveform. Buffers are cached, so identical
+   * waveforms share the same array. It must not be modified.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param frequency
+   * @return
+   */
+  public static double[] generateCustomWaveform(
+      Waveform waveform, double amplitude, double frequency) {
+
+    Key key = new Key(false, waveform, amplitude, frequency, 0);
+    double[] customWaveform = getCached(key);
+    if (customWaveform == null) {
+      customWaveform = computeCustomWaveform(waveform, amplitude, frequency);
+      putCached(key, customWaveform);
     }
-    for (int i = size * 7 / 8; i < size; i++) {
-      rgdData[i] = readPulseMagnitude;
+    return customWaveform;
+  }
+
+  public static synchronized int getCacheHits() {
+
+    return cacheHits;
+  }
+
+  public static synchronized int getCacheMisses() {
+
+    return cacheMisses;
+  }
+
+  public static synchronized void clearCache() {
+
+    cache.clear();
+  }
+
+  private static synchronized double[] getCached(Key key) {
+
+    double[] customWaveform = cache.get(key);
+    if (customWaveform != null) {
+      cacheHits++;
+    } else {
+      cacheMisses++;
     }
+    return customWaveform;
+  }
+
+  private static synchronized void putCached(Key key, double[] customWaveform) {
 
-    return rgdData; // weird name, but that's what Waveforms SDK calls it.
+    cache.put(key, customWaveform);
   }
 
-  public static double[] generateCustomPulse(
+  private static double[] computeCustomPulse(
       Waveform waveform, double amplitude, double pulseWidthInNS, double dutyCycle) {
 
     //    System.out.println("generateCustomPulse");
@@ -111,65 +184,65 @@ public class WaveformUtils {
         break;
     }
 
-    int counter = 0;
     double[] customWaveform = new double[4096];
     double timeInc = driver.getPeriod() / 4096;
 
-    do {
-      double time = counter * timeInc;
-      customWaveform[counter] =
-          driver.getSignal(time) / 5.0; // / 5.0 to scale between 1 and -1  HUH???
-
-    } while (++counter < 4096);
+    driver.fill(customWaveform, 0, customWaveform.length, 0, timeInc);
+    for (int i = 0; i < customWaveform.length; i++) {
+      customWaveform[i] = customWaveform[i] / 5.0; // / 5.0 to scale between 1 and -1  HUH???
+    }
     return customWaveform;
   }
 
-  public static double[] generateCustomWaveform(
+  private static double[] computeCustomWaveform(
       Waveform waveform, double amplitude, double frequency) {
 
-    Driver driver;
+    Driver driver = getWaveformDriver(waveform, amplitude, frequency);
+
+    double[] customWaveform = new double[4096];
+    double timeInc = 1.0 / frequency / 4096;
+
+    driver.fill(customWaveform, 0, customWaveform.length, 0, timeInc);
+    for (int i = 0; i < customWaveform.length; i++) {
+      customWaveform[i] = customWaveform[i] / 5.0; // / 5.0 to scale between 1 and -1
+    }
+    return customWaveform;
+  }
+
+  /**
+   * Returns the driver of the given periodic waveform, as played by {@link
+   * #generateCustomWaveform(Waveform, double, double)}. Its signal is in Volts, not yet scaled for
+   * the AWG.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param frequency
+   * @return
+   */
+  public static Driver getWaveformDriver(Waveform waveform, double amplitude, double frequency) {
+
     switch (waveform) {
       case Sawtooth:
-        driver = new Sawtooth("Sawtooth", 0, 0, amplitude, frequency);
-        break;
+        return new Sawtooth("Sawtooth", 0, 0, amplitude, frequency);
       case SawtoothUpDown:
-        driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
-        break;
+        return new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
       case Triangle:
-        driver = new Triangle("Triangle", 0, 0, amplitude, frequency);
-        break;
+        return new Triangle("Triangle", 0, 0, amplitude, frequency);
       case TriangleUpDown:
-        driver = new TriangleUpDown("TriangleUpDown", 0, 0, amplitude, frequency);
-        break;
+        return new TriangleUpDown("TriangleUpDown", 0, 0, amplitude, frequency);
       case Square:
-        driver = new Square("Square", amplitude / 2, 0, amplitude / 2, frequency);
-        break;
+        return new Square("Square", amplitude / 2, 0, amplitude / 2, frequency);
       case SquareUpDown:
-        driver = new Square("SquareUpDown", 0, 0, amplitude, frequency);
-        break;
+        return new Square("SquareUpDown", 0, 0, amplitude, frequency);
       case QuarterSine:
-        driver = new QuarterSine("QuarterSine", 0, 0, amplitude, frequency);
-        break;
+        return new QuarterSine("QuarterSine", 0, 0, amplitude, frequency);
       case HalfSine:
-        driver = new HalfSine("HalfSine", 0, 0, amplitude, frequency);
-        break;
+        return new HalfSine("HalfSine", 0, 0, amplitude, frequency);
       case SquareSmooth:
-        driver = new SquareSmooth("SquareSmooth", 0, 0, amplitude, frequency);
-        break;
+        return new SquareSmooth("SquareSmooth", 0, 0, amplitude, frequency);
       default:
-        driver = new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
-        break;
+        return new SawtoothUpDown("SawtoothUpDown", 0, 0, amplitude, frequency);
     }
-
-    int counter = 0;
-    double[] customWaveform = new double[4096];
-    double timeInc = 1.0 / frequency / 4096;
-
-    do {
-      double time = counter * timeInc;
-      customWaveform[counter] = driver.getSignal(time) / 5.0; // / 5.0 to scale between 1 and -1
-    } while (++counter < 4096);
-    return customWaveform;
   }
 
   public static DWF.Waveform getDWFWaveform(Waveform waveform) {
@@ -201,4 +274,51 @@ public class WaveformUtils {
     System.arraycopy(b, 0, c, aLen, bLen);
     return c;
   }
+
+  /** cache key, doubles are compared by their exact bit pattern */
+  private static final class Key {
+
+    private final boolean isPulse;
+    private final Waveform waveform;
+    private final long amplitude;
+    private final long timing; // frequency of waveforms, pulse width of pulses
+    private final long dutyCycle;
+
+    Key(boolean isPulse, Waveform waveform, double amplitude, double timing, double dutyCycle) {
+
+      this.isPulse = isPulse;
+      this.waveform = waveform;
+      this.amplitude = Double.doubleToLongBits(amplitude);
+      this.timing = Double.doubleToLongBits(timing);
+      this.dutyCycle = Double.doubleToLongBits(dutyCycle);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return isPulse == key.isPulse
+          && waveform == key.waveform
+          && amplitude == key.amplitude
+          && timing == key.timing
+          && dutyCycle == key.dutyCycle;
+    }
+
+    @Override
+    public int hashCode() {
+
+      int result = Boolean.hashCode(isPulse);
+      result = 31 * result + waveform.hashCode();
+      result = 31 * result + Long.hashCode(amplitude);
+      result = 31 * result + Long.hashCode(timing);
+      result = 31 * result + Long.hashCode(dutyCycle);
+      return result;
+    }
+  }
 }
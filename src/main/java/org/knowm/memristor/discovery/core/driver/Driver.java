@@ -65,6 +65,37 @@ public abstract class Driver {
 
   public abstract double getSignal(double time);
 
+  /**
+   * Writes the signal at t0, t0 + dt, ..., t0 + (n - 1) * dt into out[off..off + n). The subclasses
+   * override this with loops that keep the per-call constants and the period bookkeeping out of the
+   * per-sample work, this default simply calls {@link #getSignal(double)} for every sample.
+   *
+   * @param out
+   * @param off
+   * @param n
+   * @param t0
+   * @param dt
+   */
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    for (int i = 0; i < n; i++) {
+      out[off + i] = getSignal(t0 + i * dt);
+    }
+  }
+
+  /**
+   * The largest whole multiple of the period that is not after the given time. Used by the fill
+   * loops to track the start of the current period instead of taking a modulo for every sample.
+   *
+   * @param time
+   * @param period
+   * @return
+   */
+  protected static double getPeriodStart(double time, double period) {
+
+    return Math.floor(time / period) * period;
+  }
+
   public double getFrequency() {
     return frequency;
   }
@@ -47,4 +47,24 @@ public class QuarterSinePulse extends PulseDriver {
       return dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double period = getPeriod();
+    double w = 2 * Math.PI * freq;
+    double periodStart = getPeriodStart(t0, period);
+    for (int i = 0; i < n; i++) {
+      double t = t0 + i * dt - periodStart;
+      if (t >= period) {
+        periodStart = getPeriodStart(t0 + i * dt, period);
+        t = t0 + i * dt - periodStart;
+      }
+      if (t < pulseWidth) {
+        out[off + i] = amplitude * Math.sin(w * t) + dcOffset;
+      } else {
+        out[off + i] = dcOffset;
+      }
+    }
+  }
 }
@@ -50,4 +50,26 @@ public class SquareDecayPulse extends PulseDriver {
       return dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double period = getPeriod();
+    double high = dcOffset + amplitude;
+    double periodStart = getPeriodStart(t0, period);
+    for (int i = 0; i < n; i++) {
+      double t = t0 + i * dt - periodStart;
+      if (t >= period) {
+        periodStart = getPeriodStart(t0 + i * dt, period);
+        t = t0 + i * dt - periodStart;
+      }
+      if (t < halfPulseWidth) {
+        out[off + i] = high;
+      } else if (t > halfPulseWidth) {
+        out[off + i] = amplitude * Math.exp(-d * (t - halfPulseWidth));
+      } else {
+        out[off + i] = dcOffset;
+      }
+    }
+  }
 }
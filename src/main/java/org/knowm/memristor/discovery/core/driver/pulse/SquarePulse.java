@@ -41,4 +41,20 @@ public class SquarePulse extends PulseDriver {
       return dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double period = getPeriod();
+    double high = dcOffset + amplitude;
+    double periodStart = getPeriodStart(t0, period);
+    for (int i = 0; i < n; i++) {
+      double t = t0 + i * dt - periodStart;
+      if (t >= period) {
+        periodStart = getPeriodStart(t0 + i * dt, period);
+        t = t0 + i * dt - periodStart;
+      }
+      out[off + i] = t < pulseWidth ? high : dcOffset;
+    }
+  }
 }
@@ -58,4 +58,28 @@ public class SquareSmoothPulse extends PulseDriver {
       return dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double period = getPeriod();
+    double high = amplitude + dcOffset;
+    double periodStart = getPeriodStart(t0, period);
+    for (int i = 0; i < n; i++) {
+      double t = t0 + i * dt - periodStart;
+      if (t >= period) {
+        periodStart = getPeriodStart(t0 + i * dt, period);
+        t = t0 + i * dt - periodStart;
+      }
+      if (t < riseTime) {
+        out[off + i] = dcOffset + t * dYdt;
+      } else if (t > riseTime && t < fallTime) {
+        out[off + i] = high;
+      } else if (t > fallTime && t < pulseWidth) {
+        out[off + i] = dcOffset + amplitude - (t - fallTime) * dYdt;
+      } else {
+        out[off + i] = dcOffset;
+      }
+    }
+  }
 }
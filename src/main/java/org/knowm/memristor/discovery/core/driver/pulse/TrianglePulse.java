@@ -53,4 +53,25 @@ public class TrianglePulse extends PulseDriver {
       return dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double period = getPeriod();
+    double periodStart = getPeriodStart(t0, period);
+    for (int i = 0; i < n; i++) {
+      double t = t0 + i * dt - periodStart;
+      if (t >= period) {
+        periodStart = getPeriodStart(t0 + i * dt, period);
+        t = t0 + i * dt - periodStart;
+      }
+      if (t < halfPulseWidth) {
+        out[off + i] = dYdt * t + dcOffset;
+      } else if (t > halfPulseWidth && t < pulseWidth) {
+        out[off + i] = amplitude - (dYdt * (t - halfPulseWidth)) + dcOffset;
+      } else {
+        out[off + i] = dcOffset;
+      }
+    }
+  }
 }
@@ -23,10 +23,19 @@
  */
 package org.knowm.memristor.discovery.core.driver.waveform;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /** @author timmolter */
 public class Arbitrary extends WaveformDriver {
 
-  private final double[] activePhases;
+  /**
+   * The active phases compiled into disjoint intervals, sorted by start and given in seconds from
+   * the start of the period. The intervals are half open: [intervalStart[i], intervalEnd[i]).
+   */
+  private final double[] intervalStart;
+
+  private final double[] intervalEnd;
 
   /**
    * Constructor
@@ -47,7 +56,51 @@ public class Arbitrary extends WaveformDriver {
       double[] activePhases) {
 
     super(matchingSourceId, dcOffset, phase, amplitude, frequency);
-    this.activePhases = activePhases;
+
+    if (activePhases.length % 2 != 0) {
+      throw new IllegalArgumentException(
+          "activePhases must hold start/end pairs, got " + activePhases.length + " values!");
+    }
+
+    // sort the non-empty [start, end) pairs by start
+    double[][] pairs = new double[activePhases.length / 2][];
+    int pairCount = 0;
+    for (int i = 0; i < activePhases.length; i = i + 2) {
+      if (activePhases[i + 1] > activePhases[i]) {
+        pairs[pairCount++] = new double[] {activePhases[i], activePhases[i + 1]};
+      }
+    }
+    Arrays.sort(
+        pairs,
+        0,
+        pairCount,
+        new Comparator<double[]>() {
+
+          @Override
+          public int compare(double[] a, double[] b) {
+
+            return Double.compare(a[0], b[0]);
+          }
+        });
+
+    // merge overlapping and touching pairs, the union of half open intervals is unchanged by this
+    double T = 1 / frequency;
+    double[] starts = new double[pairCount];
+    double[] ends = new double[pairCount];
+    int intervalCount = 0;
+    for (int i = 0; i < pairCount; i++) {
+      double start = pairs[i][0];
+      double end = pairs[i][1];
+      if (intervalCount > 0 && T * start <= ends[intervalCount - 1]) {
+        ends[intervalCount - 1] = Math.max(ends[intervalCount - 1], T * end);
+      } else {
+        starts[intervalCount] = T * start;
+        ends[intervalCount] = T * end;
+        intervalCount++;
+      }
+    }
+    this.intervalStart = Arrays.copyOf(starts, intervalCount);
+    this.intervalEnd = Arrays.copyOf(ends, intervalCount);
   }
 
   @Override
@@ -55,19 +108,53 @@ public class Arbitrary extends WaveformDriver {
 
     double T = 1 / frequency;
     double remainderTime = (time + phase) % T;
-    boolean isActive = false;
-    for (int i = 0; i < activePhases.length; i = i + 2) {
-      double start = activePhases[i];
-      double end = activePhases[i + 1];
-      if (remainderTime >= T * start && remainderTime < T * end) {
-        isActive = true;
-      }
+
+    // last interval starting at or before remainderTime
+    int index = Arrays.binarySearch(intervalStart, remainderTime);
+    if (index < 0) {
+      index = -index - 2;
     }
-    if (isActive) {
+
+    if (index >= 0 && remainderTime < intervalEnd[index]) {
 
       return dcOffset + amplitude;
     } else {
       return 0.0;
     }
   }
+
+  /**
+   * The samples arrive in time order, so instead of a search per sample the current interval is
+   * carried along and only moves forward, wrapping back to the first interval with each period.
+   */
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double high = dcOffset + amplitude;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    int index = 0;
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+        index = 0;
+      }
+      while (index < intervalEnd.length && remainderTime >= intervalEnd[index]) {
+        index++;
+      }
+      if (index < intervalEnd.length && remainderTime >= intervalStart[index]) {
+        out[off + i] = high;
+      } else {
+        out[off + i] = 0.0;
+      }
+    }
+  }
+
+  /** @return the number of disjoint active intervals per period after merging */
+  public int getIntervalCount() {
+
+    return intervalStart.length;
+  }
 }
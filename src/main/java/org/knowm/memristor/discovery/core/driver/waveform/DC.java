@@ -42,4 +42,12 @@ public class DC extends WaveformDriver {
 
     return dcOffset;
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    for (int i = 0; i < n; i++) {
+      out[off + i] = dcOffset;
+    }
+  }
 }
@@ -56,4 +56,25 @@ public class HalfSine extends WaveformDriver {
       return 0.0;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double upLimit = .50 / frequency * T;
+    double w = 2 * Math.PI * frequency;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+      }
+      if (0 <= remainderTime && remainderTime * T < upLimit) {
+        out[off + i] = amplitude * Math.abs(Math.sin(w * (t0 + i * dt) - phase) + dcOffset);
+      } else {
+        out[off + i] = 0.0;
+      }
+    }
+  }
 }
@@ -48,4 +48,20 @@ public class Sawtooth extends WaveformDriver {
 
     return frequency * amplitude * (remainderTime) + dcOffset;
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double slope = frequency * amplitude;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+      }
+      out[off + i] = slope * (remainderTime) + dcOffset;
+    }
+  }
 }
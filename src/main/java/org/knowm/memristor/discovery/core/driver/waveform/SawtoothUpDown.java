@@ -57,4 +57,25 @@ public class SawtoothUpDown extends WaveformDriver {
       return -2 * frequency * amplitude * (remainderTime) + amplitude + dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double upLimit = .5 / frequency * T;
+    double slope = 2 * frequency * amplitude;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+      }
+      if (0 <= (remainderTime) && (remainderTime) * T < upLimit) {
+        out[off + i] = slope * (remainderTime) + dcOffset;
+      } else {
+        out[off + i] = -slope * (remainderTime) + amplitude + dcOffset;
+      }
+    }
+  }
 }
@@ -45,4 +45,13 @@ public class Sine extends WaveformDriver {
 
     return amplitude * Math.sin(2 * Math.PI * frequency * time - phase) + dcOffset;
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double w = 2 * Math.PI * frequency;
+    for (int i = 0; i < n; i++) {
+      out[off + i] = amplitude * Math.sin(w * (t0 + i * dt) - phase) + dcOffset;
+    }
+  }
 }
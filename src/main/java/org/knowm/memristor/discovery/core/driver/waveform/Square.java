@@ -56,4 +56,22 @@ public class Square extends WaveformDriver {
       return -1.0 * amplitude + dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double upLimit = .50 / frequency * T;
+    double high = amplitude + dcOffset;
+    double low = -1.0 * amplitude + dcOffset;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+      }
+      out[off + i] = 0 <= remainderTime && remainderTime * T < upLimit ? high : low;
+    }
+  }
 }
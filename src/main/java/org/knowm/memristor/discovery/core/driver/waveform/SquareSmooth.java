@@ -65,4 +65,31 @@ public class SquareSmooth extends WaveformDriver {
       return 0.0;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double riseLimit = .10 / frequency * T;
+    double highLimit = .40 / frequency * T;
+    double fallLimit = .50 / frequency * T;
+    double slope = 10 * frequency * amplitude;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+      }
+      if (0 <= remainderTime && remainderTime * T < riseLimit) {
+        out[off + i] = slope * (remainderTime) + dcOffset;
+      } else if (0 <= remainderTime && remainderTime * T < highLimit) {
+        out[off + i] = amplitude + dcOffset;
+      } else if (0 <= remainderTime && remainderTime * T < fallLimit) {
+        out[off + i] = -slope * (remainderTime) + dcOffset + amplitude * 5;
+      } else {
+        out[off + i] = 0.0;
+      }
+    }
+  }
 }
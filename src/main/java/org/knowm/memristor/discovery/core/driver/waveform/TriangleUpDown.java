@@ -63,4 +63,29 @@ public class TriangleUpDown extends WaveformDriver {
       return -4 * frequency * amplitude * (remainderTime) + 2 * amplitude + dcOffset;
     }
   }
+
+  @Override
+  public void fill(double[] out, int off, int n, double t0, double dt) {
+
+    double T = 1 / frequency;
+    double upLimit = .25 / frequency * T;
+    double downLimit = .75 / frequency * T;
+    double endLimit = 1.0 / frequency * T;
+    double slope = 4 * frequency * amplitude;
+    double periodStart = getPeriodStart(t0 + phase, T);
+    for (int i = 0; i < n; i++) {
+      double remainderTime = t0 + i * dt + phase - periodStart;
+      if (remainderTime >= T) {
+        periodStart = getPeriodStart(t0 + i * dt + phase, T);
+        remainderTime = t0 + i * dt + phase - periodStart;
+      }
+      if (0 <= (remainderTime) && (remainderTime) * T < upLimit) {
+        out[off + i] = slope * (remainderTime) + dcOffset;
+      } else if (downLimit <= (remainderTime) * T && (remainderTime) * T < endLimit) {
+        out[off + i] = slope * (remainderTime) - 4 * amplitude + dcOffset;
+      } else {
+        out[off + i] = -slope * (remainderTime) + 2 * amplitude + dcOffset;
+      }
+    }
+  }
 }
@@ -0,0 +1,368 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.experiment_common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.knowm.memristor.discovery.CaptureResult;
+import org.knowm.memristor.discovery.CaptureSpec;
+import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+
+/**
+ * A sequence of read and write pulses, e.g. read-write-read, that is compiled into one custom AWG
+ * buffer and played and captured as a single transaction. The capture is split back into its
+ * segments afterwards, so a write/verify cycle costs one arm-generate-capture round trip instead of
+ * one per pulse.
+ *
+ * <p>Each segment lasts two pulse widths: the pulse, then the same time at 0V, like one period of
+ * the single pulses of {@link PulseUtility}. All segments share the 4096 samples of the AWG buffer
+ * in proportion to their duration, so pulse widths that are too far apart can't be combined.
+ */
+public class PulseSequence {
+
+  /** samples in one period of a custom AWG waveform, as from WaveformUtils */
+  public static final int AWG_BUFFER_SIZE = 4096;
+
+  /** samples the AD2 scope holds per channel */
+  public static final int MAX_CAPTURE_SAMPLES = 8192;
+
+  /** capture samples per read segment, as for a single read pulse */
+  public static final int SAMPLES_PER_READ = 300;
+
+  /** a segment with fewer AWG samples no longer has the shape of its pulse */
+  public static final int MIN_AWG_SAMPLES_PER_SEGMENT = 16;
+
+  /** a read pulse with fewer capture samples can't be averaged reliably */
+  public static final int MIN_CAPTURE_SAMPLES_PER_READ = 16;
+
+  /** samples of the previous segment's rest kept before a segment, so its rising edge is seen */
+  private static final int LEAD_IN_SAMPLES = 2;
+
+  /** the AWG data is scaled by this, see WaveformUtils */
+  private static final double MAX_AMPLITUDE = 5.0;
+
+  private final List<Segment> segments = new ArrayList<Segment>();
+
+  /**
+   * Appends a square read pulse.
+   *
+   * @param amplitude
+   * @param pulseWidthInMicroSeconds
+   * @return this sequence
+   */
+  public PulseSequence read(float amplitude, int pulseWidthInMicroSeconds) {
+
+    return add(new Segment(Kind.Read, Waveform.Square, amplitude, pulseWidthInMicroSeconds));
+  }
+
+  /**
+   * Appends a write (or erase) pulse. Its response is captured as well, but it isn't a read.
+   *
+   * @param waveform
+   * @param amplitude
+   * @param pulseWidthInMicroSeconds
+   * @return this sequence
+   */
+  public PulseSequence write(Waveform waveform, float amplitude, int pulseWidthInMicroSeconds) {
+
+    return add(new Segment(Kind.Write, waveform, amplitude, pulseWidthInMicroSeconds));
+  }
+
+  private PulseSequence add(Segment segment) {
+
+    if (Math.abs(segment.amplitude) > MAX_AMPLITUDE) {
+      throw new IllegalArgumentException(
+          "Pulse amplitude " + segment.amplitude + "V is out of the AWG range!");
+    }
+    if (segment.pulseWidthInMicroSeconds <= 0) {
+      throw new IllegalArgumentException(
+          "Invalid pulse width " + segment.pulseWidthInMicroSeconds + "us!");
+    }
+    segments.add(segment);
+    return this;
+  }
+
+  public List<Segment> getSegments() {
+
+    return Collections.unmodifiableList(segments);
+  }
+
+  /**
+   * Lays the segments out in one AWG buffer and works out a capture that covers all of them with
+   * about {@link #SAMPLES_PER_READ} samples per read. The scope range is chosen for the reads, so
+   * the captured samples of a write above 2.5V may be clipped.
+   *
+   * @param waveformChannel
+   * @return
+   * @throws IllegalArgumentException if the pulse widths are too far apart for one buffer
+   */
+  public Compiled compile(int waveformChannel) {
+
+    if (segments.isEmpty()) {
+      throw new IllegalStateException("Empty pulse sequence!");
+    }
+    int n = segments.size();
+
+    double period = 0;
+    double shortestRead = Double.MAX_VALUE;
+    double shortestSegment = Double.MAX_VALUE;
+    double maxReadAmplitude = 0;
+    double maxAmplitude = 0;
+    boolean hasWrite = false;
+    for (Segment segment : segments) {
+      period += segment.getDuration();
+      shortestSegment = Math.min(shortestSegment, segment.getDuration());
+      if (segment.kind == Kind.Read) {
+        shortestRead = Math.min(shortestRead, segment.getDuration());
+        maxReadAmplitude = Math.max(maxReadAmplitude, Math.abs(segment.amplitude));
+      } else {
+        hasWrite = true;
+      }
+      maxAmplitude = Math.max(maxAmplitude, Math.abs(segment.amplitude));
+    }
+    if (shortestRead == Double.MAX_VALUE) {
+      shortestRead = shortestSegment;
+      maxReadAmplitude = maxAmplitude;
+    }
+
+    // AWG: segment boundaries are rounded from the cumulative time, so the samples add up exactly
+    int[] awgBoundaries = new int[n + 1];
+    double elapsed = 0;
+    for (int i = 0; i < n; i++) {
+      elapsed += segments.get(i).getDuration();
+      awgBoundaries[i + 1] = (int) Math.round(elapsed / period * AWG_BUFFER_SIZE);
+      if (awgBoundaries[i + 1] - awgBoundaries[i] < MIN_AWG_SAMPLES_PER_SEGMENT) {
+        throw new IllegalArgumentException(
+            "Segment "
+                + i
+                + " is too short to share an AWG buffer with the rest of the sequence!");
+      }
+    }
+
+    double[] pulseData = new double[AWG_BUFFER_SIZE];
+    for (int i = 0; i < n; i++) {
+      Segment segment = segments.get(i);
+      int samples = awgBoundaries[i + 1] - awgBoundaries[i];
+      WaveformUtils.getWaveformDriver(
+              segment.waveform, segment.amplitude, 1.0 / segment.getDuration())
+          .fill(pulseData, awgBoundaries[i], samples, 0, segment.getDuration() / samples);
+    }
+    for (int i = 0; i < pulseData.length; i++) {
+      pulseData[i] = pulseData[i] / MAX_AMPLITUDE;
+    }
+
+    // scope: the sample rate of a single read pulse, unless the whole sequence doesn't fit then
+    int bufferSize =
+        (int) Math.min(MAX_CAPTURE_SAMPLES, Math.floor(SAMPLES_PER_READ * period / shortestRead));
+    double sampleFrequency = bufferSize / period;
+
+    int[] captureBoundaries = new int[n + 1];
+    for (int i = 0; i <= n; i++) {
+      captureBoundaries[i] =
+          (int) Math.round((double) awgBoundaries[i] / AWG_BUFFER_SIZE * bufferSize);
+    }
+    for (int i = 0; i < n; i++) {
+      if (segments.get(i).kind == Kind.Read
+          && (captureBoundaries[i + 1] - captureBoundaries[i]) / 2
+              < MIN_CAPTURE_SAMPLES_PER_READ) {
+        throw new IllegalArgumentException(
+            "Read segment " + i + " is too short to be captured with the rest of the sequence!");
+      }
+    }
+
+    // the scope range suits the reads, which are what the sequence measures. A larger write clips
+    // on the scope, which doesn't affect what the write does to the memristor.
+    // a write must not be played twice, so the capture is only retried if the scope failed to arm
+    CaptureSpec captureSpec =
+        CaptureSpec.triggerOnWaveformGenerator(
+                waveformChannel,
+                sampleFrequency,
+                bufferSize,
+                maxReadAmplitude <= 2.5,
+                1.0 / period,
+                1,
+                pulseData)
+            .withRepeatable(!hasWrite);
+
+    return new Compiled(new ArrayList<Segment>(segments), captureSpec, captureBoundaries);
+  }
+
+  public enum Kind {
+    Read,
+    Write
+  }
+
+  /** One pulse of a sequence. */
+  public static class Segment {
+
+    private final Kind kind;
+    private final Waveform waveform;
+    private final float amplitude;
+    private final int pulseWidthInMicroSeconds;
+
+    private Segment(Kind kind, Waveform waveform, float amplitude, int pulseWidthInMicroSeconds) {
+
+      this.kind = kind;
+      this.waveform = waveform;
+      this.amplitude = amplitude;
+      this.pulseWidthInMicroSeconds = pulseWidthInMicroSeconds;
+    }
+
+    public Kind getKind() {
+
+      return kind;
+    }
+
+    public Waveform getWaveform() {
+
+      return waveform;
+    }
+
+    public float getAmplitude() {
+
+      return amplitude;
+    }
+
+    public int getPulseWidthInMicroSeconds() {
+
+      return pulseWidthInMicroSeconds;
+    }
+
+    /** @return the pulse and the rest after it, in seconds */
+    public double getDuration() {
+
+      return pulseWidthInMicroSeconds * 2 * 1E-6;
+    }
+  }
+
+  /**
+   * A compiled sequence: the capture to run and where each segment ends up in its samples. It can
+   * be captured any number of times, e.g. once per switch.
+   */
+  public static class Compiled {
+
+    private final List<Segment> segments;
+    private final CaptureSpec captureSpec;
+    private final int[] captureBoundaries;
+
+    private Compiled(List<Segment> segments, CaptureSpec captureSpec, int[] captureBoundaries) {
+
+      this.segments = Collections.unmodifiableList(segments);
+      this.captureSpec = captureSpec;
+      this.captureBoundaries = captureBoundaries;
+    }
+
+    public List<Segment> getSegments() {
+
+      return segments;
+    }
+
+    public CaptureSpec getCaptureSpec() {
+
+      return captureSpec;
+    }
+
+    /** @return seconds between two capture samples */
+    public double getSamplePeriod() {
+
+      return 1.0 / captureSpec.getSampleFrequency();
+    }
+
+    /** @return the index of the first capture sample of the segment */
+    public int getCaptureStart(int segment) {
+
+      return captureBoundaries[segment];
+    }
+
+    /** @return one past the index of the last capture sample of the segment's pulse */
+    public int getPulseEnd(int segment) {
+
+      return captureBoundaries[segment]
+          + (captureBoundaries[segment + 1] - captureBoundaries[segment]) / 2;
+    }
+
+    /** @return one past the index of the last capture sample of the segment */
+    public int getCaptureEnd(int segment) {
+
+      return captureBoundaries[segment + 1];
+    }
+
+    /**
+     * Averages both channels over the pulse of one segment, like a single read pulse whose rest at
+     * ground isn't averaged. Writes above the scope range average their clipped samples.
+     *
+     * @param captureResult a successful capture of this sequence
+     * @param segment
+     * @return {v1, v2} or null if the capture ended before the pulse
+     */
+    public float[] getAverageVoltage(CaptureResult captureResult, int segment) {
+
+      int offset = captureResult.getWindowStart();
+      double[] v1 = captureResult.getV1();
+      double[] v2 = captureResult.getV2();
+      int start = getCaptureStart(segment) - offset;
+      int end = Math.min(getPulseEnd(segment) - offset, v1.length);
+      if (start < 0 || end <= start) {
+        return null;
+      }
+
+      float aveScope1 = 0;
+      float aveScope2 = 0;
+      for (int i = start; i < end; i++) {
+        aveScope1 += v1[i];
+        aveScope2 += v2[i];
+      }
+      aveScope1 /= end - start;
+      aveScope2 /= end - start;
+      return new float[] {aveScope1, aveScope2};
+    }
+
+    /**
+     * Copies both channels over one whole segment, e.g. to fit a read pulse. A few samples of the
+     * previous segment's rest at ground are kept in front, where the capture has them, so the
+     * rising edge of the pulse can be located.
+     *
+     * @param captureResult a successful capture of this sequence
+     * @param segment
+     * @return {v1, v2} or null if the capture ended before the segment
+     */
+    public double[][] getSegmentSamples(CaptureResult captureResult, int segment) {
+
+      int offset = captureResult.getWindowStart();
+      int start = getCaptureStart(segment) - offset;
+      int end = Math.min(getCaptureEnd(segment) - offset, captureResult.getV1().length);
+      if (start < 0 || end <= start) {
+        return null;
+      }
+      start = Math.max(0, start - LEAD_IN_SAMPLES);
+      return new double[][] {
+        Arrays.copyOfRange(captureResult.getV1(), start, end),
+        Arrays.copyOfRange(captureResult.getV2(), start, end)
+      };
+    }
+  }
+}
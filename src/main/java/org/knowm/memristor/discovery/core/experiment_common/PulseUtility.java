@@ -24,10 +24,17 @@
 package org.knowm.memristor.discovery.core.experiment_common;
 
 import java.util.Arrays;
+import java.util.List;
+import org.knowm.memristor.discovery.CaptureResult;
+import org.knowm.memristor.discovery.CaptureSpec;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
 import org.knowm.memristor.discovery.core.gpio.MuxController.Destination;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibration;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibrator;
+import org.knowm.memristor.discovery.core.rc_engine.RC_ResistanceComputer;
+import org.knowm.memristor.discovery.core.rc_engine.RC_WaveformFitter;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
@@ -35,12 +42,15 @@ import org.knowm.waveforms4j.DWF;
 
 public class PulseUtility {
 
+  private static final int SAMPLES_PER_PULSE = 300;
+
   private Model model;
   private DWFProxy dwfProxy;
   private MuxController muxController;
   private float voltageReadNoiseFloor;
   private static int sleep = 5;
   private int boardVersion = 2;
+  private RC_WaveformFitter readWaveformFitter;
 
   public PulseUtility(
       int boardVersion,
@@ -55,6 +65,17 @@ public class PulseUtility {
     this.boardVersion = boardVersion;
   }
 
+  /**
+   * With a fitter set, square read pulses are converted to resistance by fitting the whole captured
+   * charge curve instead of averaging the first half of the capture, so the read pulse no longer
+   * has to be long enough for the RC transient to settle. Null (the default) keeps the averaging.
+   *
+   * @param readWaveformFitter
+   */
+  public void setReadWaveformFitter(RC_WaveformFitter readWaveformFitter) {
+    this.readWaveformFitter = readWaveformFitter;
+  }
+
   /*
    * measures starting resistance values writes devices, measure resistance values erase, measure resistance values returns array of resistance values
    * for each device (in kOhms): start, write, erase
@@ -69,6 +90,48 @@ public class PulseUtility {
       int WRITE_PULSE_WIDTH_IN_MICRO_SECONDS,
       int ERASE_PULSE_WIDTH_IN_MICRO_SECONDS) {
 
+    // one erase-read-write-read-erase-read transaction per switch
+    PulseSequence.Compiled sequence;
+    try {
+      sequence =
+          new PulseSequence()
+              .write(writeEraseWaveform, V_ERASE, ERASE_PULSE_WIDTH_IN_MICRO_SECONDS)
+              .read(V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS)
+              .write(writeEraseWaveform, V_WRITE, WRITE_PULSE_WIDTH_IN_MICRO_SECONDS)
+              .read(V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS)
+              .write(writeEraseWaveform, V_ERASE, ERASE_PULSE_WIDTH_IN_MICRO_SECONDS)
+              .read(V_READ, READ_PULSE_WIDTH_IN_MICRO_SECONDS)
+              .compile(DWF.WAVEFORM_CHANNEL_1);
+    } catch (IllegalArgumentException e) {
+
+      // e.g. pulse widths too far apart to share one AWG buffer
+      model.swingPropertyChangeSupport.firePropertyChange(
+          Model.EVENT_NEW_CONSOLE_LOG,
+          null,
+          e.getMessage() + " Measuring pass by pass instead.");
+      return testMeminlinePassByPass(
+          writeEraseWaveform,
+          V_WRITE,
+          V_ERASE,
+          V_READ,
+          READ_PULSE_WIDTH_IN_MICRO_SECONDS,
+          WRITE_PULSE_WIDTH_IN_MICRO_SECONDS,
+          ERASE_PULSE_WIDTH_IN_MICRO_SECONDS);
+    }
+
+    return measureAllSwitchSequences(sequence);
+  }
+
+  /** testMeminline as one pass over all switches per pulse, for any combination of pulses */
+  private float[][] testMeminlinePassByPass(
+      Waveform writeEraseWaveform,
+      float V_WRITE,
+      float V_ERASE,
+      float V_READ,
+      int READ_PULSE_WIDTH_IN_MICRO_SECONDS,
+      int WRITE_PULSE_WIDTH_IN_MICRO_SECONDS,
+      int ERASE_PULSE_WIDTH_IN_MICRO_SECONDS) {
+
     try {
 
       //  initialize in erased state
@@ -103,6 +166,100 @@ public class PulseUtility {
     }
   }
 
+  /**
+   * Plays a compiled pulse sequence through every switch in turn, as measureAllSwitchResistances
+   * does with a single read pulse.
+   *
+   * @param sequence
+   * @return the resistances in kOhm, one row per read segment of the sequence and one column per
+   *     switch, the first column with all switches off
+   */
+  public float[][] measureAllSwitchSequences(PulseSequence.Compiled sequence) {
+
+    if (boardVersion == 1) {
+      muxController.setW1(Destination.A);
+      muxController.setW2(Destination.OUT);
+      muxController.setScope1(Destination.A);
+      muxController.setScope2(Destination.B);
+      dwfProxy.setUpper8IOStates(muxController.getGPIOConfig());
+    }
+
+    int switchCount = boardVersion == 2 ? 16 : 8;
+    float[][] reads = null;
+
+    for (int i = 0; i <= switchCount; i++) {
+
+      if (i > 0) {
+        DWFProxy.DioTransaction transaction = dwfProxy.beginDioTransaction();
+        if (i > 1) {
+          transaction.clear(i - 2);
+        }
+        transaction.set(i - 1).commit();
+
+        try {
+          Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+
+        }
+      }
+
+      float[] r = measureSequence(sequence);
+      if (reads == null) {
+        reads = new float[r.length][switchCount + 1];
+      }
+      for (int j = 0; j < r.length; j++) {
+        reads[j][i] = r[j];
+      }
+    }
+    dwfProxy.beginDioTransaction().clear(switchCount - 1).commit();
+    dwfProxy.verifyDigitalIOStates();
+
+    return reads;
+  }
+
+  /**
+   * Plays a compiled pulse sequence once through the current switch and splits the capture into
+   * its read segments.
+   *
+   * @param sequence
+   * @return the resistance in kOhm of each read segment, NaN if the capture failed
+   */
+  public float[] measureSequence(PulseSequence.Compiled sequence) {
+
+    List<PulseSequence.Segment> segments = sequence.getSegments();
+    int readCount = 0;
+    for (PulseSequence.Segment segment : segments) {
+      if (segment.getKind() == PulseSequence.Kind.Read) {
+        readCount++;
+      }
+    }
+    float[] r = new float[readCount];
+
+    CaptureResult captureResult = dwfProxy.captureAsync(sequence.getCaptureSpec()).join();
+    if (!captureResult.isSuccess()) {
+      Arrays.fill(r, getSwitchResistancekOhm((float[]) null));
+      return r;
+    }
+
+    int read = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      if (segments.get(i).getKind() != PulseSequence.Kind.Read) {
+        continue;
+      }
+      if (readWaveformFitter == null) {
+        r[read++] = getSwitchResistancekOhm(sequence.getAverageVoltage(captureResult, i));
+      } else {
+        double[][] capture = sequence.getSegmentSamples(captureResult, i);
+        r[read++] =
+            capture == null
+                ? getSwitchResistancekOhm((float[]) null)
+                : getSwitchResistancekOhm(capture, sequence.getSamplePeriod());
+      }
+    }
+    captureResult.release();
+    return r;
+  }
+
   public float[] measureAllSwitchResistances(
       Waveform waveform, float readVoltage, int pulseWidthInMicroSeconds) {
 
@@ -127,9 +284,15 @@ public class PulseUtility {
             pulseWidthInMicroSeconds,
             DWF.WAVEFORM_CHANNEL_1); // all switches off
 
-    for (int i = 0; i < (boardVersion == 2 ? 16 : 8); i++) {
+    // turning the previous switch off and the next one on is a single digital I/O write
+    int switchCount = boardVersion == 2 ? 16 : 8;
+    for (int i = 0; i < switchCount; i++) {
 
-      dwfProxy.update2DigitalIOStatesAtOnce(i, true);
+      DWFProxy.DioTransaction transaction = dwfProxy.beginDioTransaction();
+      if (i > 0) {
+        transaction.clear(i - 1);
+      }
+      transaction.set(i).commit();
 
       try {
         Thread.sleep(sleep);
@@ -140,21 +303,150 @@ public class PulseUtility {
       r_array[i + 1] =
           getSwitchResistancekOhm(
               waveform, readVoltage, pulseWidthInMicroSeconds, DWF.WAVEFORM_CHANNEL_1);
-
-      dwfProxy.update2DigitalIOStatesAtOnce(i, false);
     }
+    dwfProxy.beginDioTransaction().clear(switchCount - 1).commit();
+    dwfProxy.verifyDigitalIOStates();
 
     // System.out.println("resistance array: " + Arrays.toString(r_array));
 
     return r_array;
   }
 
+  /**
+   * Fits the effective parasitic capacitance and series resistance of the board from square read
+   * pulses through switches that have a known resistor in place of a memristor. The result is not
+   * stored, see {@link RC_Calibration#save()}.
+   *
+   * @param readVoltage
+   * @param pulseWidthInMicroSeconds long enough for the RC transient to settle
+   * @param switches switch number (1-based, as in measureAllSwitchResistances) of each resistor
+   * @param knownResistances in Ohms
+   * @return the calibration, or null if none of the captures succeeded
+   */
+  public RC_Calibration calibrateReadCircuit(
+      float readVoltage, int pulseWidthInMicroSeconds, int[] switches, double[] knownResistances) {
+
+    if (boardVersion == 1) {
+      muxController.setW1(Destination.A);
+      muxController.setW2(Destination.OUT);
+      muxController.setScope1(Destination.A);
+      muxController.setScope2(Destination.B);
+      dwfProxy.setUpper8IOStates(muxController.getGPIOConfig());
+    }
+
+    RC_Calibrator calibrator = new RC_Calibrator(boardVersion, model.seriesResistance);
+    double samplePeriod = 1.0 / getSampleRate(pulseWidthInMicroSeconds);
+
+    for (int i = 0; i < switches.length; i++) {
+
+      DWFProxy.DioTransaction transaction = dwfProxy.beginDioTransaction();
+      if (i > 0) {
+        transaction.clear(switches[i - 1] - 1);
+      }
+      transaction.set(switches[i] - 1).commit();
+
+      try {
+        Thread.sleep(sleep);
+      } catch (InterruptedException e) {
+
+      }
+
+      double[][] capture =
+          captureReadPulse(
+              Waveform.Square, readVoltage, pulseWidthInMicroSeconds, DWF.WAVEFORM_CHANNEL_1);
+
+      if (capture == null) {
+        model.swingPropertyChangeSupport.firePropertyChange(
+            Model.EVENT_NEW_CONSOLE_LOG,
+            null,
+            "WARNING: calibration capture failed on switch " + switches[i] + ".");
+        continue;
+      }
+
+      // the V0/V1 switch and trace resistance is in series with the resistor, as in the reads
+      double knownResistance = knownResistances[i];
+      if (boardVersion < 2) {
+        knownResistance += ExperimentPreferences.TOTAL_PARASITIC_RESISTANCE;
+      }
+
+      // V2 drives the V2 board and V1 the older ones, the other channel is the sense node
+      boolean added;
+      if (boardVersion == 2) {
+        added = calibrator.addCapture(capture[1], capture[0], samplePeriod, knownResistance);
+      } else {
+        added = calibrator.addCapture(capture[0], capture[1], samplePeriod, knownResistance);
+      }
+      releaseCapture(capture);
+      if (!added) {
+        model.swingPropertyChangeSupport.firePropertyChange(
+            Model.EVENT_NEW_CONSOLE_LOG,
+            null,
+            "WARNING: no complete read pulse in the calibration capture on switch "
+                + switches[i]
+                + ".");
+      }
+    }
+    if (switches.length > 0) {
+      dwfProxy.beginDioTransaction().clear(switches[switches.length - 1] - 1).commit();
+      dwfProxy.verifyDigitalIOStates();
+    }
+
+    return calibrator.calibrate();
+  }
+
   public float getSwitchResistancekOhm(
       Waveform waveform, float readVoltage, int pulseWidthInMicroSeconds, int dWFWaveformChannel) {
 
-    float[] vMeasure =
-        getScopesAverageVoltage(
-            waveform, readVoltage, pulseWidthInMicroSeconds, dWFWaveformChannel);
+    if (readWaveformFitter == null || waveform != Waveform.Square) {
+      return getSwitchResistancekOhm(
+          getScopesAverageVoltage(
+              waveform, readVoltage, pulseWidthInMicroSeconds, dWFWaveformChannel));
+    }
+
+    double[][] capture =
+        captureReadPulse(waveform, readVoltage, pulseWidthInMicroSeconds, dWFWaveformChannel);
+    if (capture == null) {
+      return getSwitchResistancekOhm((float[]) null);
+    }
+    float rSwitch =
+        getSwitchResistancekOhm(capture, 1.0 / getSampleRate(pulseWidthInMicroSeconds));
+    releaseCapture(capture);
+    return rSwitch;
+  }
+
+  /** Fits the switch resistance to one captured square read pulse period. */
+  private float getSwitchResistancekOhm(double[][] capture, double samplePeriod) {
+
+    // V2 drives the V2 board and V1 the older ones, the other channel is the sense node
+    RC_WaveformFitter.Fit fit;
+    if (boardVersion == 2) {
+      fit = readWaveformFitter.fit(capture[1], capture[0], samplePeriod);
+    } else {
+      fit = readWaveformFitter.fit(capture[0], capture[1], samplePeriod);
+    }
+
+    if (fit == null) {
+      // no complete pulse in the capture, use its average instead of reading again
+      return getSwitchResistancekOhm(getAverageVoltage(capture, capture[0].length / 2));
+    }
+
+    model.swingPropertyChangeSupport.firePropertyChange(
+        Model.EVENT_NEW_CONSOLE_LOG,
+        null,
+        "Fitting switch resistance. R=" + fit.getResistance() + ", rms=" + fit.getRmsError());
+
+    if (fit.getResistance() >= RC_ResistanceComputer.R_FINAL) {
+      return Float.POSITIVE_INFINITY;
+    }
+
+    double rSwitch = fit.getResistance();
+    if (boardVersion < 2) {
+      rSwitch -= ExperimentPreferences.TOTAL_PARASITIC_RESISTANCE;
+    }
+    return (float) rSwitch / 1000; // to kilohms
+  }
+
+  private float getSwitchResistancekOhm(float[] vMeasure) {
 
     //    System.out.println("readVoltage=" + readVoltage);
     //    System.out.println("vMeasure=" + Arrays.toString(vMeasure));
@@ -222,47 +514,108 @@ public class PulseUtility {
   public float[] getScopesAverageVoltage(
       Waveform waveform, float readVoltage, int pulseWidthInMicroSeconds, int dWFWaveformChannel) {
 
-    int samplesPerPulse = 300;
+    // only the pulse in the first half of the period is averaged, so the rest isn't read out
+    double[][] capture =
+        captureReadPulse(
+            waveform,
+            readVoltage,
+            pulseWidthInMicroSeconds,
+            dWFWaveformChannel,
+            SAMPLES_PER_PULSE / 2);
+    if (capture == null) {
+      return null;
+    }
+    float[] averageVoltage = getAverageVoltage(capture, capture[0].length);
+    releaseCapture(capture);
+    return averageVoltage;
+  }
+
+  /**
+   * Sends one pulse and captures one pulse period on both scope channels.
+   *
+   * @return {v1, v2} or null if the capture failed. Hand the buffers back with {@link
+   *     #releaseCapture(double[][])}.
+   */
+  private double[][] captureReadPulse(
+      Waveform waveform, float readVoltage, int pulseWidthInMicroSeconds, int dWFWaveformChannel) {
+
+    return captureReadPulse(
+        waveform, readVoltage, pulseWidthInMicroSeconds, dWFWaveformChannel, SAMPLES_PER_PULSE);
+  }
+
+  /**
+   * Sends one pulse and captures the first windowEnd samples of the pulse period on both scope
+   * channels.
+   *
+   * @return {v1, v2} or null if the capture failed. Hand the buffers back with {@link
+   *     #releaseCapture(double[][])}.
+   */
+  private double[][] captureReadPulse(
+      Waveform waveform,
+      float readVoltage,
+      int pulseWidthInMicroSeconds,
+      int dWFWaveformChannel,
+      int windowEnd) {
 
     int sampleFrequency = (int) (1.0 / (pulseWidthInMicroSeconds * 2 * 1E-6));
 
-    int samples = sampleFrequency * samplesPerPulse;
+    int samples = getSampleRate(pulseWidthInMicroSeconds);
 
-    dwfProxy
-        .getDwf()
-        .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
-            dWFWaveformChannel, samples, samplesPerPulse, true);
-    dwfProxy.waitUntilArmed();
     double[] pulse = WaveformUtils.generateCustomWaveform(waveform, readVoltage, sampleFrequency);
-    dwfProxy.getDwf().startCustomPulseTrain(dWFWaveformChannel, sampleFrequency, 0, 1, pulse);
-    boolean success = dwfProxy.capturePulseData(samples, 1);
-    if (success) {
-      int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-      double[] v1 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-      double[] v2 =
-          dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+    CaptureResult captureResult =
+        dwfProxy
+            .captureAsync(
+                CaptureSpec.triggerOnWaveformGenerator(
+                        dWFWaveformChannel,
+                        samples,
+                        SAMPLES_PER_PULSE,
+                        true,
+                        sampleFrequency,
+                        1,
+                        pulse)
+                    .withWindow(0, windowEnd))
+            .join();
+    if (captureResult.isSuccess()) {
+      return new double[][] {captureResult.getV1(), captureResult.getV2()};
+    } else {
+      return null;
+    }
+  }
 
-      /*
-       * Note from Alex: The output is a pulse with the last half of the measurement data at ground. Taking the first 50% insures we get the pulse
-       * amplitude.
-       */
+  private void releaseCapture(double[][] capture) {
 
-      float aveScope1 = 0;
-      float aveScope2 = 0;
+    dwfProxy.getSampleBufferPool().release(capture[0]);
+    dwfProxy.getSampleBufferPool().release(capture[1]);
+  }
 
-      for (int i = 0; i < v1.length / 2; i++) {
-        aveScope1 += v1[i];
-        aveScope2 += v2[i];
-      }
+  private static int getSampleRate(int pulseWidthInMicroSeconds) {
 
-      aveScope1 /= v1.length / 2;
-      aveScope2 /= v2.length / 2;
+    int sampleFrequency = (int) (1.0 / (pulseWidthInMicroSeconds * 2 * 1E-6));
+    return sampleFrequency * SAMPLES_PER_PULSE;
+  }
 
-      return new float[] {(float) aveScope1, (float) aveScope2};
+  /** Averages the first n samples of both channels of a capture. */
+  private static float[] getAverageVoltage(double[][] capture, int n) {
 
-    } else {
-      return null;
+    double[] v1 = capture[0];
+    double[] v2 = capture[1];
+
+    /*
+     * Note from Alex: The output is a pulse with the last half of the measurement data at ground. Taking the first 50% insures we get the pulse
+     * amplitude.
+     */
+
+    float aveScope1 = 0;
+    float aveScope2 = 0;
+
+    for (int i = 0; i < n; i++) {
+      aveScope1 += v1[i];
+      aveScope2 += v2[i];
     }
+
+    aveScope1 /= n;
+    aveScope2 /= n;
+
+    return new float[] {(float) aveScope1, (float) aveScope2};
   }
 }
@@ -0,0 +1,220 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.farm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.DeviceBackend;
+import org.knowm.memristor.discovery.core.simulator.SimulatedBackend;
+
+/**
+ * Drives several AD2s at once, each with a Memristor Discovery board of the same version, for
+ * screening many boards with e.g. the mem-inline test. Every {@link FarmDevice} has its own device
+ * and job thread, so jobs on different devices share nothing and throughput scales with the
+ * number of devices.
+ *
+ * <p>waveforms4j only opens the first AD2 of a process, so the backends are handed in: one
+ * {@link DeviceBackend} per device, e.g. simulated boards, session replays or one real AD2.
+ */
+public class DeviceFarm {
+
+  private final int boardVersion;
+  private final List<FarmDevice> farmDevices;
+
+  private volatile long startTime = 0;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param deviceBackends one per device, in device index order
+   */
+  public DeviceFarm(int boardVersion, List<? extends DeviceBackend> deviceBackends) {
+
+    this.boardVersion = boardVersion;
+    List<FarmDevice> farmDevices = new ArrayList<FarmDevice>();
+    for (int i = 0; i < deviceBackends.size(); i++) {
+      farmDevices.add(
+          new FarmDevice(i, "AD2 " + i, new DWFProxy(boardVersion, deviceBackends.get(i))));
+    }
+    this.farmDevices = Collections.unmodifiableList(farmDevices);
+  }
+
+  /**
+   * @param boardVersion
+   * @param deviceCount
+   * @return a farm of simulated boards
+   */
+  public static DeviceFarm simulated(int boardVersion, int deviceCount) {
+
+    List<SimulatedBackend> simulatedBackends = new ArrayList<SimulatedBackend>();
+    for (int i = 0; i < deviceCount; i++) {
+      simulatedBackends.add(new SimulatedBackend(boardVersion));
+    }
+    return new DeviceFarm(boardVersion, simulatedBackends);
+  }
+
+  /**
+   * Starts all AD2s up in parallel. A device that doesn't start stays unhealthy and gets no jobs.
+   *
+   * @return the number of devices running
+   */
+  public int startup() {
+
+    startTime = System.nanoTime();
+    List<CompletableFuture<Boolean>> startups = new ArrayList<CompletableFuture<Boolean>>();
+    for (FarmDevice farmDevice : farmDevices) {
+      startups.add(farmDevice.startup());
+    }
+    int runningCount = 0;
+    for (CompletableFuture<Boolean> startup : startups) {
+      if (startup.join()) {
+        runningCount++;
+      }
+    }
+    return runningCount;
+  }
+
+  /** Lets the pending jobs finish, then shuts all AD2s down. */
+  public void shutdown() {
+
+    for (FarmDevice farmDevice : farmDevices) {
+      farmDevice.shutdown();
+    }
+  }
+
+  /**
+   * Runs the job on the healthy device with the fewest pending jobs.
+   *
+   * @param deviceJob
+   * @return completes with the job's result, or exceptionally if it failed or no device is healthy
+   */
+  public <T> CompletableFuture<T> submit(DeviceJob<T> deviceJob) {
+
+    FarmDevice leastBusy = null;
+    for (FarmDevice farmDevice : farmDevices) {
+      if (farmDevice.isHealthy()
+          && (leastBusy == null
+              || farmDevice.getPendingJobCount() < leastBusy.getPendingJobCount())) {
+        leastBusy = farmDevice;
+      }
+    }
+    if (leastBusy == null) {
+      CompletableFuture<T> future = new CompletableFuture<T>();
+      future.completeExceptionally(new IllegalStateException("No healthy device in the farm!"));
+      return future;
+    }
+    return leastBusy.submit(deviceJob);
+  }
+
+  /**
+   * Runs an instance of the job on every healthy device, e.g. one mem-inline test per board.
+   *
+   * @param deviceJob
+   * @return one result per healthy device, in device index order
+   */
+  public <T> List<CompletableFuture<T>> submitToEach(DeviceJob<T> deviceJob) {
+
+    List<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>();
+    for (FarmDevice farmDevice : farmDevices) {
+      if (farmDevice.isHealthy()) {
+        futures.add(farmDevice.submit(deviceJob));
+      }
+    }
+    return futures;
+  }
+
+  /**
+   * @param index
+   * @param deviceJob
+   * @return completes with the job's result, or exceptionally if it failed
+   */
+  public <T> CompletableFuture<T> submitTo(int index, DeviceJob<T> deviceJob) {
+
+    return farmDevices.get(index).submit(deviceJob);
+  }
+
+  public int getBoardVersion() {
+
+    return boardVersion;
+  }
+
+  public List<FarmDevice> getDevices() {
+
+    return farmDevices;
+  }
+
+  public int getHealthyDeviceCount() {
+
+    int healthyCount = 0;
+    for (FarmDevice farmDevice : farmDevices) {
+      if (farmDevice.isHealthy()) {
+        healthyCount++;
+      }
+    }
+    return healthyCount;
+  }
+
+  /** @return jobs that ran without throwing, on all devices */
+  public long getCompletedJobCount() {
+
+    long completedCount = 0;
+    for (FarmDevice farmDevice : farmDevices) {
+      completedCount += farmDevice.getCompletedJobCount();
+    }
+    return completedCount;
+  }
+
+  public long getFailedJobCount() {
+
+    long failedCount = 0;
+    for (FarmDevice farmDevice : farmDevices) {
+      failedCount += farmDevice.getFailedJobCount();
+    }
+    return failedCount;
+  }
+
+  /** @return jobs completed per second on all devices together, since start up */
+  public double getJobsPerSecond() {
+
+    long elapsedNanos = System.nanoTime() - startTime;
+    if (startTime == 0 || elapsedNanos <= 0) {
+      return 0;
+    }
+    return getCompletedJobCount() * 1E9 / elapsedNanos;
+  }
+
+  /** @return one line per device with its health */
+  public String getHealthReport() {
+
+    StringBuilder sb = new StringBuilder();
+    for (FarmDevice farmDevice : farmDevices) {
+      sb.append(farmDevice).append(System.lineSeparator());
+    }
+    return sb.toString();
+  }
+}
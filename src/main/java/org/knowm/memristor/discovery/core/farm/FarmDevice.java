@@ -0,0 +1,227 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.farm;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.DeviceExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One AD2 of a {@link DeviceFarm} with its own {@link DWFProxy}, and with that its own device
+ * thread, plus a job thread that runs the farm's jobs for it one at a time. It also keeps the
+ * device's health.
+ */
+public class FarmDevice {
+
+  /** a device is taken out of rotation after this many failed jobs in a row */
+  public static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+  private static final Logger logger = LoggerFactory.getLogger(FarmDevice.class);
+
+  private final int index;
+  private final String name;
+  private final DWFProxy dwfProxy;
+  private final DeviceExecutor jobExecutor;
+  private final AtomicInteger pendingJobCount = new AtomicInteger();
+
+  // health, guarded by this
+  private boolean isRunning = false;
+  private int consecutiveFailureCount = 0;
+  private Throwable lastFailure;
+  private long completedJobCount = 0;
+  private long failedJobCount = 0;
+  private long totalJobNanos = 0;
+
+  /**
+   * Constructor
+   *
+   * @param index
+   * @param name
+   * @param dwfProxy
+   */
+  FarmDevice(int index, String name, DWFProxy dwfProxy) {
+
+    this.index = index;
+    this.name = name;
+    this.dwfProxy = dwfProxy;
+    this.jobExecutor = new DeviceExecutor(name + " Jobs", DeviceExecutor.DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /** Queues the AD2 start up behind any pending jobs. */
+  CompletableFuture<Boolean> startup() {
+
+    return jobExecutor.submit(
+        new Callable<Boolean>() {
+
+          @Override
+          public Boolean call() {
+
+            boolean isStarted = dwfProxy.startupAD2AndWait();
+            synchronized (FarmDevice.this) {
+              isRunning = isStarted;
+              consecutiveFailureCount = 0;
+            }
+            if (!isStarted) {
+              logger.warn(name + " did not start up!");
+            }
+            return isStarted;
+          }
+        });
+  }
+
+  /** Lets the pending jobs finish, then shuts the AD2 and both threads down. */
+  void shutdown() {
+
+    jobExecutor.submit(
+        new Callable<Void>() {
+
+          @Override
+          public Void call() {
+
+            synchronized (FarmDevice.this) {
+              isRunning = false;
+            }
+            dwfProxy.shutdownAD2();
+            dwfProxy.shutdownDeviceExecutor();
+            return null;
+          }
+        });
+    jobExecutor.shutdown();
+  }
+
+  <T> CompletableFuture<T> submit(final DeviceJob<T> deviceJob) {
+
+    pendingJobCount.incrementAndGet();
+    return jobExecutor.submit(
+        new Callable<T>() {
+
+          @Override
+          public T call() throws Exception {
+
+            long startTime = System.nanoTime();
+            try {
+              T result = deviceJob.run(FarmDevice.this);
+              synchronized (FarmDevice.this) {
+                completedJobCount++;
+                totalJobNanos += System.nanoTime() - startTime;
+                consecutiveFailureCount = 0;
+              }
+              return result;
+            } catch (Exception e) {
+              synchronized (FarmDevice.this) {
+                failedJobCount++;
+                totalJobNanos += System.nanoTime() - startTime;
+                consecutiveFailureCount++;
+                lastFailure = e;
+              }
+              logger.warn("Job failed on " + name + "!", e);
+              throw e;
+            } finally {
+              pendingJobCount.decrementAndGet();
+            }
+          }
+        });
+  }
+
+  public int getIndex() {
+
+    return index;
+  }
+
+  public String getName() {
+
+    return name;
+  }
+
+  public DWFProxy getDwfProxy() {
+
+    return dwfProxy;
+  }
+
+  /** @return true if the AD2 is running and jobs have not kept failing on it */
+  public synchronized boolean isHealthy() {
+
+    return isRunning && consecutiveFailureCount < MAX_CONSECUTIVE_FAILURES;
+  }
+
+  public synchronized boolean isRunning() {
+
+    return isRunning;
+  }
+
+  public synchronized int getConsecutiveFailureCount() {
+
+    return consecutiveFailureCount;
+  }
+
+  /** @return what the last failed job threw, or null */
+  public synchronized Throwable getLastFailure() {
+
+    return lastFailure;
+  }
+
+  /** @return jobs queued or running */
+  public int getPendingJobCount() {
+
+    return pendingJobCount.get();
+  }
+
+  /** @return jobs that ran without throwing */
+  public synchronized long getCompletedJobCount() {
+
+    return completedJobCount;
+  }
+
+  public synchronized long getFailedJobCount() {
+
+    return failedJobCount;
+  }
+
+  public synchronized long getMeanJobNanos() {
+
+    long jobCount = completedJobCount + failedJobCount;
+    return jobCount == 0 ? 0 : totalJobNanos / jobCount;
+  }
+
+  @Override
+  public String toString() {
+
+    return name
+        + (isHealthy() ? " healthy" : " unhealthy")
+        + ", jobs completed: "
+        + getCompletedJobCount()
+        + ", failed: "
+        + getFailedJobCount()
+        + ", pending: "
+        + getPendingJobCount()
+        + ", arm timeouts: "
+        + dwfProxy.getArmTimeoutCount()
+        + ", DIO mismatches: "
+        + dwfProxy.getDioMismatchCount();
+  }
+}
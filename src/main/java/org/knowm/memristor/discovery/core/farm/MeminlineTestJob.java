@@ -0,0 +1,131 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.farm;
+
+import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
+import org.knowm.memristor.discovery.core.experiment_common.PulseUtility;
+import org.knowm.memristor.discovery.core.gpio.MuxController;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
+import org.knowm.memristor.discovery.gui.mvc.experiments.boardcheck.BoardCheckExperiment;
+
+/**
+ * The mem-inline chip test of the board check and shelf life experiments as a farm job: erase,
+ * read, write, read, erase, read every memristor. The result is the reads in kOhm, one row per
+ * read and one column per switch, as from {@link PulseUtility#testMeminline}. They can be
+ * categorized with {@link
+ * org.knowm.memristor.discovery.core.PostProcessDataUtils#categorizeMemristorTestReads}.
+ *
+ * <p>The voltages are given for V0/V1 boards, they are inverted on a V2 board as the experiments
+ * do.
+ */
+public class MeminlineTestJob implements DeviceJob<float[][]> {
+
+  private final float vWrite;
+  private final float vErase;
+  private final float vRead;
+  private final int readPulseWidth;
+  private final int writePulseWidth;
+  private final int erasePulseWidth;
+  private final int seriesResistance;
+
+  /**
+   * Constructor
+   *
+   * @param vWrite
+   * @param vErase
+   * @param vRead
+   * @param readPulseWidth in microseconds
+   * @param writePulseWidth in microseconds
+   * @param erasePulseWidth in microseconds
+   * @param seriesResistance in Ohm
+   */
+  public MeminlineTestJob(
+      float vWrite,
+      float vErase,
+      float vRead,
+      int readPulseWidth,
+      int writePulseWidth,
+      int erasePulseWidth,
+      int seriesResistance) {
+
+    this.vWrite = vWrite;
+    this.vErase = vErase;
+    this.vRead = vRead;
+    this.readPulseWidth = readPulseWidth;
+    this.writePulseWidth = writePulseWidth;
+    this.erasePulseWidth = erasePulseWidth;
+    this.seriesResistance = seriesResistance;
+  }
+
+  /**
+   * @param seriesResistance in Ohm
+   * @return the test with the board check's pulses
+   */
+  public static MeminlineTestJob forBoardCheck(int seriesResistance) {
+
+    return new MeminlineTestJob(
+        BoardCheckExperiment.V_WRITE,
+        BoardCheckExperiment.V_RESET,
+        BoardCheckExperiment.V_READ,
+        BoardCheckExperiment.PULSE_WIDTH_IN_MICRO_SECONDS,
+        BoardCheckExperiment.PULSE_WIDTH_IN_MICRO_SECONDS,
+        BoardCheckExperiment.PULSE_WIDTH_IN_MICRO_SECONDS,
+        seriesResistance);
+  }
+
+  @Override
+  public float[][] run(FarmDevice farmDevice) {
+
+    int boardVersion = farmDevice.getDwfProxy().getBoardVersion();
+
+    // PulseUtility only takes the series resistance from the model
+    Model model =
+        new Model() {
+
+          @Override
+          public void doLoadModelFromPrefs(ExperimentPreferences experimentPreferences) {}
+        };
+    model.setSeriesResistance(seriesResistance);
+
+    PulseUtility pulseUtility =
+        new PulseUtility(
+            boardVersion,
+            model,
+            farmDevice.getDwfProxy(),
+            new MuxController(),
+            MemristorDiscoveryPreferences.MIN_VOLTAGE_MEASURE_AMPLITUDE);
+
+    float polarity = boardVersion == 2 ? -1 : 1;
+    return pulseUtility.testMeminline(
+        Waveform.HalfSine,
+        polarity * vWrite,
+        polarity * vErase,
+        polarity * vRead,
+        readPulseWidth,
+        writePulseWidth,
+        erasePulseWidth);
+  }
+}
@@ -0,0 +1,185 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds a voltage--&gt;resistance table whose resolution follows the curve. Starting from a coarse
+ * geometric grid, every interval is bisected (at its geometric midpoint) until linearly
+ * interpolating between the table points misses the solver voltage by less than the tolerance.
+ * Flat regions end up with few points and steep regions with many.
+ */
+public class RC_AdaptiveGrid {
+
+  /** ratio between neighboring points of the starting grid */
+  public static final double COARSE_STEP = 2.0;
+
+  /** intervals narrower than this ratio are never split */
+  public static final double MIN_STEP = 1.001;
+
+  private final RC_Solver solver;
+  private final double tolerance;
+
+  /**
+   * Constructor
+   *
+   * @param solver
+   * @param tolerance maximum interpolation error in volts
+   */
+  public RC_AdaptiveGrid(RC_Solver solver, double tolerance) {
+
+    this.solver = solver;
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * @param rInit first table resistance
+   * @param rFinal last table resistance
+   * @param parallel evaluate and refine the coarse intervals on the common ForkJoinPool
+   * @return
+   */
+  public RC_TableCache.Table build(double rInit, double rFinal, boolean parallel) {
+
+    int coarseLength = (int) Math.ceil(Math.log(rFinal / rInit) / Math.log(COARSE_STEP)) + 1;
+    double ratio = Math.pow(rFinal / rInit, 1.0 / (coarseLength - 1));
+    double[] coarseR = new double[coarseLength];
+    double[] coarseV = new double[coarseLength];
+    for (int i = 0; i < coarseLength; i++) {
+      coarseR[i] = rInit * Math.pow(ratio, i);
+    }
+    coarseR[coarseLength - 1] = rFinal;
+
+    List<List<double[]>> refinements = new ArrayList<>();
+    for (int i = 0; i < coarseLength - 1; i++) {
+      refinements.add(new ArrayList<>());
+    }
+
+    if (parallel) {
+      ForkJoinPool.commonPool()
+          .invoke(new GridTask(coarseR, coarseV, refinements, 0, coarseLength, false));
+      ForkJoinPool.commonPool()
+          .invoke(new GridTask(coarseR, coarseV, refinements, 0, coarseLength - 1, true));
+    } else {
+      for (int i = 0; i < coarseLength; i++) {
+        coarseV[i] = solver.getEndOfPulseVoltage(coarseR[i]);
+      }
+      for (int i = 0; i < coarseLength - 1; i++) {
+        refine(coarseR[i], coarseV[i], coarseR[i + 1], coarseV[i + 1], refinements.get(i));
+      }
+    }
+
+    // ordered merge of the coarse points and the points inserted into each interval
+    int length = coarseLength;
+    for (List<double[]> refinement : refinements) {
+      length += refinement.size();
+    }
+    double[] voltage = new double[length];
+    double[] resistance = new double[length];
+    int index = 0;
+    for (int i = 0; i < coarseLength; i++) {
+      resistance[index] = coarseR[i];
+      voltage[index++] = coarseV[i];
+      if (i < coarseLength - 1) {
+        for (double[] point : refinements.get(i)) {
+          resistance[index] = point[0];
+          voltage[index++] = point[1];
+        }
+      }
+    }
+
+    return new RC_TableCache.Table(voltage, resistance);
+  }
+
+  /** recursive bisection of [ra, rb], adding the accepted midpoints to out in resistance order */
+  private void refine(double ra, double va, double rb, double vb, List<double[]> out) {
+
+    if (rb / ra < MIN_STEP) {
+      return;
+    }
+
+    double rm = Math.sqrt(ra * rb);
+    double vm = solver.getEndOfPulseVoltage(rm);
+    double vInterpolated = va + (rm - ra) / (rb - ra) * (vb - va);
+    if (Math.abs(vm - vInterpolated) <= tolerance) {
+      return;
+    }
+
+    refine(ra, va, rm, vm, out);
+    out.add(new double[] {rm, vm});
+    refine(rm, vm, rb, vb, out);
+  }
+
+  /** evaluates coarse points (refine == false) or refines coarse intervals over [from, to) */
+  private class GridTask extends RecursiveAction {
+
+    private final double[] coarseR;
+    private final double[] coarseV;
+    private final List<List<double[]>> refinements;
+    private final int from;
+    private final int to;
+    private final boolean refine;
+
+    GridTask(
+        double[] coarseR,
+        double[] coarseV,
+        List<List<double[]>> refinements,
+        int from,
+        int to,
+        boolean refine) {
+
+      this.coarseR = coarseR;
+      this.coarseV = coarseV;
+      this.refinements = refinements;
+      this.from = from;
+      this.to = to;
+      this.refine = refine;
+    }
+
+    @Override
+    protected void compute() {
+
+      if (to - from == 1) {
+        if (refine) {
+          refine(
+              coarseR[from],
+              coarseV[from],
+              coarseR[from + 1],
+              coarseV[from + 1],
+              refinements.get(from));
+        } else {
+          coarseV[from] = solver.getEndOfPulseVoltage(coarseR[from]);
+        }
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll(
+            new GridTask(coarseR, coarseV, refinements, from, mid, refine),
+            new GridTask(coarseR, coarseV, refinements, mid, to, refine));
+      }
+    }
+  }
+}
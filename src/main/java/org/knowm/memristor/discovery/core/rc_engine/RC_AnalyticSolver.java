@@ -0,0 +1,106 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+/**
+ * Closed-form step response of the {@link MD_V0_V1_Board} and {@link MD_V2_Board} read circuits.
+ * Both are single-capacitor RC networks, so node 2 sees a Thevenin source (Vth, Rth) charging
+ * C_B2Gnd from zero and
+ *
+ * <p>V(2)(t) = Vth * (1 - exp(-t / (Rth * C)))
+ *
+ * <p>This is exact for those two netlists. Use {@link RC_SpiceSolver} for anything else.
+ */
+public class RC_AnalyticSolver extends RC_Solver {
+
+  /** input resistance of the AD2 scope channels, as modeled in the board netlists */
+  public static final double SCOPE_INPUT_RESISTANCE = 1_000_000;
+
+  public RC_AnalyticSolver(
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance) {
+
+    super(
+        boardVersion, readPulseAmplitude, readPulseWidth, seriesResistance, parasiticCapacitance);
+  }
+
+  @Override
+  public double getEndOfPulseVoltage(double memristorResistance) {
+
+    return getStepResponse(
+        boardVersion,
+        readPulseAmplitude,
+        seriesResistance,
+        memristorResistance,
+        parasiticCapacitance,
+        readPulseWidth);
+  }
+
+  /**
+   * V(2) at time t after the rising edge of a step of the given amplitude.
+   *
+   * @param boardVersion
+   * @param amplitude
+   * @param seriesResistance
+   * @param memristorResistance
+   * @param capacitance
+   * @param t
+   * @return
+   */
+  public static double getStepResponse(
+      int boardVersion,
+      double amplitude,
+      double seriesResistance,
+      double memristorResistance,
+      double capacitance,
+      double t) {
+
+    double rTop;
+    double rBottom;
+    if (boardVersion == 2) {
+      // source --Rs-- node 2 --(Rm || scope || C)-- ground
+      rTop = seriesResistance;
+      rBottom = parallel(memristorResistance, SCOPE_INPUT_RESISTANCE);
+    } else {
+      // source --Rm-- node 2 --(Rs || scope || C)-- ground
+      rTop = memristorResistance;
+      rBottom = parallel(seriesResistance, SCOPE_INPUT_RESISTANCE);
+    }
+
+    double vThevenin = amplitude * rBottom / (rTop + rBottom);
+    double tau = parallel(rTop, rBottom) * capacitance;
+    if (tau <= 0) {
+      return vThevenin;
+    }
+    return vThevenin * -Math.expm1(-t / tau);
+  }
+
+  private static double parallel(double r1, double r2) {
+
+    return r1 * r2 / (r1 + r2);
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+import java.util.prefs.Preferences;
+
+/**
+ * Effective read circuit parameters of a board, as fitted by {@link RC_Calibrator}. The fitted
+ * series resistance includes the switch and trace resistance, so it is kept as an offset to the
+ * nominal series resistor and still applies after the series resistor setting is changed.
+ *
+ * <p>One calibration is stored per board version in the user preferences, not per physical board:
+ * waveforms4j doesn't report the serial number of the AD2, so boards can't be told apart. All
+ * boards of a version used on this computer share the last calibration, so recalibrate after
+ * swapping boards.
+ */
+public class RC_Calibration {
+
+  private static final String PREFIX = "RC_CALIBRATION_V";
+  private static final String NOMINAL_SERIES_R_KEY = "_NOMINAL_SERIES_R";
+  private static final String SERIES_R_KEY = "_SERIES_R";
+  private static final String CAPACITANCE_KEY = "_CAPACITANCE";
+  private static final String RMS_ERROR_KEY = "_RMS_ERROR";
+
+  private final int boardVersion;
+  private final int nominalSeriesResistance;
+  private final double seriesResistance;
+  private final double capacitance;
+  private final double rmsError;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param nominalSeriesResistance the series resistor setting during calibration
+   * @param seriesResistance the fitted effective series resistance
+   * @param capacitance the fitted parasitic capacitance
+   * @param rmsError root mean square of the fit residuals in volts
+   */
+  public RC_Calibration(
+      int boardVersion,
+      int nominalSeriesResistance,
+      double seriesResistance,
+      double capacitance,
+      double rmsError) {
+
+    this.boardVersion = boardVersion;
+    this.nominalSeriesResistance = nominalSeriesResistance;
+    this.seriesResistance = seriesResistance;
+    this.capacitance = capacitance;
+    this.rmsError = rmsError;
+  }
+
+  /**
+   * @param boardVersion
+   * @return the stored calibration, or null if the board was never calibrated
+   */
+  public static RC_Calibration load(int boardVersion) {
+
+    Preferences preferences = getPreferences();
+    String prefix = PREFIX + boardVersion;
+    double capacitance = preferences.getDouble(prefix + CAPACITANCE_KEY, Double.NaN);
+    if (Double.isNaN(capacitance)) {
+      return null;
+    }
+    return new RC_Calibration(
+        boardVersion,
+        preferences.getInt(prefix + NOMINAL_SERIES_R_KEY, 0),
+        preferences.getDouble(prefix + SERIES_R_KEY, 0),
+        capacitance,
+        preferences.getDouble(prefix + RMS_ERROR_KEY, 0));
+  }
+
+  /** Stores this calibration, replacing the previous one of the same board version. */
+  public void save() {
+
+    Preferences preferences = getPreferences();
+    String prefix = PREFIX + boardVersion;
+    preferences.putInt(prefix + NOMINAL_SERIES_R_KEY, nominalSeriesResistance);
+    preferences.putDouble(prefix + SERIES_R_KEY, seriesResistance);
+    preferences.putDouble(prefix + CAPACITANCE_KEY, capacitance);
+    preferences.putDouble(prefix + RMS_ERROR_KEY, rmsError);
+  }
+
+  public static void clear(int boardVersion) {
+
+    Preferences preferences = getPreferences();
+    String prefix = PREFIX + boardVersion;
+    preferences.remove(prefix + NOMINAL_SERIES_R_KEY);
+    preferences.remove(prefix + SERIES_R_KEY);
+    preferences.remove(prefix + CAPACITANCE_KEY);
+    preferences.remove(prefix + RMS_ERROR_KEY);
+  }
+
+  /**
+   * The parasitic capacitance to use for the given board: the calibrated one if there is one,
+   * otherwise the given default.
+   *
+   * @param boardVersion
+   * @param defaultCapacitance
+   * @return
+   */
+  public static double getEffectiveCapacitance(int boardVersion, double defaultCapacitance) {
+
+    RC_Calibration calibration = load(boardVersion);
+    return calibration == null ? defaultCapacitance : calibration.getCapacitance();
+  }
+
+  /**
+   * The effective series resistance to use for the given board and series resistor setting: the
+   * setting plus the calibrated offset if there is a calibration, otherwise the setting itself.
+   *
+   * @param boardVersion
+   * @param nominalSeriesResistance
+   * @return
+   */
+  public static double getEffectiveSeriesResistance(int boardVersion, int nominalSeriesResistance) {
+
+    RC_Calibration calibration = load(boardVersion);
+    return calibration == null
+        ? nominalSeriesResistance
+        : calibration.getEffectiveSeriesResistance(nominalSeriesResistance);
+  }
+
+  /**
+   * @param nominalSeriesResistance the current series resistor setting
+   * @return the effective series resistance for that setting
+   */
+  public double getEffectiveSeriesResistance(int nominalSeriesResistance) {
+
+    return nominalSeriesResistance + (seriesResistance - this.nominalSeriesResistance);
+  }
+
+  public int getBoardVersion() {
+
+    return boardVersion;
+  }
+
+  public int getNominalSeriesResistance() {
+
+    return nominalSeriesResistance;
+  }
+
+  public double getSeriesResistance() {
+
+    return seriesResistance;
+  }
+
+  public double getCapacitance() {
+
+    return capacitance;
+  }
+
+  public double getRmsError() {
+
+    return rmsError;
+  }
+
+  private static Preferences getPreferences() {
+
+    return Preferences.userNodeForPackage(RC_Calibration.class);
+  }
+}
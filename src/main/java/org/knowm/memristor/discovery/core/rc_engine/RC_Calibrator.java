@@ -0,0 +1,167 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fits the effective parasitic capacitance and series resistance of a board from read pulse
+ * captures taken with known resistors in place of the memristor. All captures are fitted together
+ * to the closed-form step response of {@link RC_AnalyticSolver}: the settled level pins down the
+ * series resistance, the rise time the capacitance.
+ */
+public class RC_Calibrator {
+
+  /** range of the starting capacitance scan */
+  private static final double C_SCAN_MIN = 1E-12;
+
+  private static final double C_SCAN_MAX = 1E-7;
+  private static final int SCAN_POINTS = 41;
+
+  private final int boardVersion;
+  private final int nominalSeriesResistance;
+
+  private final List<Double> times = new ArrayList<Double>();
+  private final List<Double> voltages = new ArrayList<Double>();
+  private final List<Double> amplitudes = new ArrayList<Double>();
+  private final List<Double> knownResistances = new ArrayList<Double>();
+  private int captureCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param nominalSeriesResistance the series resistor setting, used as the starting point
+   */
+  public RC_Calibrator(int boardVersion, int nominalSeriesResistance) {
+
+    this.boardVersion = boardVersion;
+    this.nominalSeriesResistance = nominalSeriesResistance;
+  }
+
+  /**
+   * Adds one read pulse capture.
+   *
+   * @param drive the scope channel on the pulse source side
+   * @param response the scope channel on the sense node
+   * @param samplePeriod in seconds
+   * @param knownResistance the resistance in the memristor position, in Ohms
+   * @return false if no complete pulse was found in the capture
+   */
+  public boolean addCapture(
+      double[] drive, double[] response, double samplePeriod, double knownResistance) {
+
+    RC_WaveformFitter.Pulse pulse = RC_WaveformFitter.Pulse.locate(drive, samplePeriod);
+    if (pulse == null || pulse.end - pulse.start < RC_WaveformFitter.MIN_SAMPLES) {
+      return false;
+    }
+    for (int i = pulse.start; i < pulse.end; i++) {
+      times.add(i * samplePeriod - pulse.t0);
+      voltages.add(response[i]);
+      amplitudes.add(pulse.amplitude);
+      knownResistances.add(knownResistance);
+    }
+    captureCount++;
+    return true;
+  }
+
+  public int getCaptureCount() {
+
+    return captureCount;
+  }
+
+  /**
+   * Fits all added captures.
+   *
+   * @return the calibration, or null if no capture has been added
+   */
+  public RC_Calibration calibrate() {
+
+    if (captureCount == 0) {
+      return null;
+    }
+
+    int n = voltages.size();
+    final double[] t = new double[n];
+    final double[] amplitude = new double[n];
+    final double[] knownResistance = new double[n];
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      t[i] = times.get(i);
+      amplitude[i] = amplitudes.get(i);
+      knownResistance[i] = knownResistances.get(i);
+      y[i] = voltages.get(i);
+    }
+
+    // p = {ln(Rs), ln(C)}
+    RC_LeastSquares leastSquares =
+        new RC_LeastSquares(y) {
+
+          @Override
+          double getModel(int i, double[] p) {
+
+            if (t[i] <= 0) {
+              return 0;
+            }
+            return RC_AnalyticSolver.getStepResponse(
+                boardVersion,
+                amplitude[i],
+                Math.exp(p[0]),
+                knownResistance[i],
+                Math.exp(p[1]),
+                t[i]);
+          }
+        };
+
+    // coarse capacitance scan at the nominal series resistance for a starting point
+    double lnCMin = Math.log(C_SCAN_MIN);
+    double lnCMax = Math.log(C_SCAN_MAX);
+    double[] p = new double[] {Math.log(nominalSeriesResistance), lnCMin};
+    double lnC = lnCMin;
+    double bestError = Double.MAX_VALUE;
+    for (int i = 0; i < SCAN_POINTS; i++) {
+      p[1] = lnCMin + (lnCMax - lnCMin) * i / (SCAN_POINTS - 1);
+      double error = leastSquares.getSquaredError(p);
+      if (error < bestError) {
+        bestError = error;
+        lnC = p[1];
+      }
+    }
+    p[1] = lnC;
+
+    p =
+        leastSquares.minimize(
+            p,
+            new double[] {Math.log(RC_ResistanceComputer.R_INIT), lnCMin},
+            new double[] {Math.log(RC_ResistanceComputer.R_FINAL), lnCMax});
+
+    return new RC_Calibration(
+        boardVersion,
+        nominalSeriesResistance,
+        Math.exp(p[0]),
+        Math.exp(p[1]),
+        Math.sqrt(leastSquares.getSquaredError() / n));
+  }
+}
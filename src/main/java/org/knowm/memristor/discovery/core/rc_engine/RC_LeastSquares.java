@@ -0,0 +1,220 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+/**
+ * Small Levenberg-Marquardt least-squares solver shared by {@link RC_WaveformFitter} and {@link
+ * RC_Calibrator}. The model is given per sample by {@link #getModel(int, double[])}, the Jacobian
+ * is taken by forward differences and every parameter is clamped to its bounds after each step.
+ */
+abstract class RC_LeastSquares {
+
+  static final int MAX_ITERATIONS = 50;
+
+  private static final double DERIVATIVE_STEP = 1E-6;
+  private static final double CONVERGENCE_TOLERANCE = 1E-10;
+  private static final double MAX_DAMPING = 1E10;
+
+  private final double[] y;
+
+  private double squaredError;
+  private int iterations;
+  private boolean converged;
+
+  /**
+   * Constructor
+   *
+   * @param y the measured samples
+   */
+  RC_LeastSquares(double[] y) {
+
+    this.y = y;
+  }
+
+  /** model value at sample i for the parameters p */
+  abstract double getModel(int i, double[] p);
+
+  double getSquaredError(double[] p) {
+
+    double sum = 0;
+    for (int i = 0; i < y.length; i++) {
+      double r = y[i] - getModel(i, p);
+      sum += r * r;
+    }
+    return sum;
+  }
+
+  /**
+   * Minimizes the squared error starting from p0.
+   *
+   * @param p0 starting point, inside the bounds
+   * @param min lower bound of each parameter
+   * @param max upper bound of each parameter
+   * @return the parameters at the minimum
+   */
+  double[] minimize(double[] p0, double[] min, double[] max) {
+
+    int m = p0.length;
+    int n = y.length;
+    double[] p = p0.clone();
+    double[] residual = new double[n];
+    double[][] jacobian = new double[m][n];
+    double[] shifted = new double[m];
+
+    squaredError = getSquaredError(p);
+    double damping = 1E-3;
+    iterations = 0;
+    converged = false;
+
+    while (iterations < MAX_ITERATIONS && !converged) {
+
+      iterations++;
+      for (int i = 0; i < n; i++) {
+        double model = getModel(i, p);
+        residual[i] = y[i] - model;
+        for (int a = 0; a < m; a++) {
+          System.arraycopy(p, 0, shifted, 0, m);
+          shifted[a] += DERIVATIVE_STEP;
+          jacobian[a][i] = (getModel(i, shifted) - model) / DERIVATIVE_STEP;
+        }
+      }
+
+      double[][] jtj = new double[m][m];
+      double[] jtr = new double[m];
+      for (int a = 0; a < m; a++) {
+        for (int i = 0; i < n; i++) {
+          jtr[a] += jacobian[a][i] * residual[i];
+        }
+        for (int b = 0; b < m; b++) {
+          for (int i = 0; i < n; i++) {
+            jtj[a][b] += jacobian[a][i] * jacobian[b][i];
+          }
+        }
+      }
+
+      boolean improved = false;
+      while (!improved && damping < MAX_DAMPING) {
+
+        double[] step = solve(jtj, jtr, damping);
+        double[] next = new double[m];
+        double maxChange = 0;
+        for (int a = 0; a < m; a++) {
+          next[a] = Math.max(min[a], Math.min(max[a], p[a] + step[a]));
+          maxChange = Math.max(maxChange, Math.abs(next[a] - p[a]));
+        }
+        double error = getSquaredError(next);
+
+        if (error < squaredError) {
+          converged =
+              squaredError - error <= CONVERGENCE_TOLERANCE * squaredError
+                  || maxChange < CONVERGENCE_TOLERANCE;
+          p = next;
+          squaredError = error;
+          damping /= 10;
+          improved = true;
+        } else {
+          damping *= 10;
+        }
+      }
+      if (!improved) {
+        converged = true; // no downhill step left, we are at the minimum
+      }
+    }
+    return p;
+  }
+
+  /** squared error at the result of the last {@link #minimize} */
+  double getSquaredError() {
+
+    return squaredError;
+  }
+
+  int getIterations() {
+
+    return iterations;
+  }
+
+  boolean isConverged() {
+
+    return converged;
+  }
+
+  int getSampleCount() {
+
+    return y.length;
+  }
+
+  /**
+   * Solves (JtJ + damping * diag(JtJ)) step = Jtr by Gaussian elimination with partial pivoting.
+   * The systems here have one or two unknowns.
+   */
+  private static double[] solve(double[][] jtj, double[] jtr, double damping) {
+
+    int m = jtr.length;
+
+    // keep the system regular when a parameter has no influence on the curve
+    double trace = 0;
+    for (int a = 0; a < m; a++) {
+      trace += jtj[a][a];
+    }
+    double floor = 1E-12 * trace + Double.MIN_NORMAL;
+
+    double[][] a = new double[m][m + 1];
+    for (int i = 0; i < m; i++) {
+      for (int j = 0; j < m; j++) {
+        a[i][j] = jtj[i][j];
+      }
+      a[i][i] = jtj[i][i] * (1 + damping) + floor;
+      a[i][m] = jtr[i];
+    }
+
+    for (int col = 0; col < m; col++) {
+      int pivot = col;
+      for (int row = col + 1; row < m; row++) {
+        if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+          pivot = row;
+        }
+      }
+      double[] tmp = a[col];
+      a[col] = a[pivot];
+      a[pivot] = tmp;
+      for (int row = col + 1; row < m; row++) {
+        double factor = a[row][col] / a[col][col];
+        for (int k = col; k <= m; k++) {
+          a[row][k] -= factor * a[col][k];
+        }
+      }
+    }
+
+    double[] x = new double[m];
+    for (int row = m - 1; row >= 0; row--) {
+      double sum = a[row][m];
+      for (int k = row + 1; k < m; k++) {
+        sum -= a[row][k] * x[k];
+      }
+      x[row] = sum / a[row][row];
+    }
+    return x;
+  }
+}
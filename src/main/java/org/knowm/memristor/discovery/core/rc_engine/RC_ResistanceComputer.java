@@ -1,13 +1,9 @@
 package org.knowm.memristor.discovery.core.rc_engine;
 
-import java.util.ArrayList;
-import java.util.List;
-import org.knowm.jspice.JSpice;
-import org.knowm.jspice.netlist.Netlist;
-import org.knowm.jspice.simulate.SimulationPlotData;
-import org.knowm.jspice.simulate.SimulationResult;
-import org.knowm.jspice.simulate.transientanalysis.TransientConfig;
-import org.knowm.jspice.simulate.transientanalysis.driver.DC;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * used to measure memristor resistance at low currents, when pulse capture results in capacitive
@@ -18,6 +14,24 @@ import org.knowm.jspice.simulate.transientanalysis.driver.DC;
  */
 public class RC_ResistanceComputer {
 
+  public static final double R_INIT = 1E2;
+  public static final double R_FINAL = 1E8;
+  public static final double R_STEP = 1.025;
+
+  /** default adaptive grid tolerance, as a fraction of the read pulse amplitude */
+  public static final double DEFAULT_RELATIVE_TOLERANCE = 1E-4;
+
+  /** number of table points each fork-join leaf simulates */
+  private static final int SWEEP_CHUNK_SIZE = 8;
+
+  /** table points re-simulated with JSpice when an analytic table is built with debug logging */
+  private static final int SPOT_CHECK_POINTS = 3;
+
+  /** allowed spot check error as a fraction of the read amplitude, as in RC_AnalyticSolverCheck */
+  private static final double SPOT_CHECK_TOLERANCE = 0.02;
+
+  private static final Logger logger = LoggerFactory.getLogger(RC_ResistanceComputer.class);
+
   private double parasiticCapacitance;
   private double seriesResistor;
   private double readPulseAmplitude;
@@ -26,6 +40,13 @@ public class RC_ResistanceComputer {
   private double[] voltage;
   private double[] resistance;
   int boardVersion;
+  private final Engine engine;
+  private final double adaptiveTolerance;
+
+  private boolean isRising;
+  private boolean isMonotone;
+  private Interpolation interpolation = Interpolation.Linear;
+  private double[] pchipSlopes;
 
   //  public static void main(String[] args) {
   //
@@ -46,90 +67,419 @@ public class RC_ResistanceComputer {
       double seriesResistance,
       double parasiticCapacitance) {
 
+    this(
+        boardVersion,
+        readPulseAmplitude,
+        readPulseWidth,
+        seriesResistance,
+        parasiticCapacitance,
+        Engine.Analytic);
+  }
+
+  public RC_ResistanceComputer(
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance,
+      Engine engine) {
+
+    this(
+        boardVersion,
+        readPulseAmplitude,
+        readPulseWidth,
+        seriesResistance,
+        parasiticCapacitance,
+        engine,
+        Math.abs(readPulseAmplitude) * DEFAULT_RELATIVE_TOLERANCE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param readPulseAmplitude
+   * @param readPulseWidth
+   * @param seriesResistance
+   * @param parasiticCapacitance
+   * @param engine
+   * @param adaptiveTolerance max voltage error of the interpolated table in volts. Zero or less
+   *     builds the fixed R_STEP grid instead of an adaptive one.
+   */
+  public RC_ResistanceComputer(
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance,
+      Engine engine,
+      double adaptiveTolerance) {
+
+    this.engine = engine;
+    this.adaptiveTolerance = adaptiveTolerance;
     this.parasiticCapacitance = parasiticCapacitance;
     this.seriesResistor = seriesResistance;
     this.readPulseAmplitude = readPulseAmplitude;
     this.readPulseWidth = readPulseWidth;
     this.boardVersion = boardVersion;
 
-    loadTrace();
+    RC_TableCache.Table table =
+        RC_TableCache.get(
+            getGeneratorId(),
+            boardVersion,
+            readPulseAmplitude,
+            readPulseWidth,
+            seriesResistance,
+            parasiticCapacitance);
+    if (table != null) {
+      this.voltage = table.getVoltage();
+      this.resistance = table.getResistance();
+    } else {
+      loadTrace();
+      if (engine == Engine.Analytic && logger.isDebugEnabled()) {
+        spotCheck();
+      }
+      RC_TableCache.put(
+          getGeneratorId(),
+          boardVersion,
+          readPulseAmplitude,
+          readPulseWidth,
+          seriesResistance,
+          parasiticCapacitance,
+          voltage,
+          resistance);
+    }
+    isRising = voltage[0] < voltage[voltage.length - 1];
+    isMonotone = isMonotone(voltage, isRising);
   }
 
+  /**
+   * Returns the memristor resistance for the given end-of-pulse voltage. The table voltage is
+   * monotone in resistance, falling or rising depending on the board version and the sign of the
+   * read pulse, so the enclosing interval is found by binary search. Voltages before the first
+   * table point return the lowest resistance, voltages past the last table point return the
+   * highest.
+   *
+   * @param v
+   * @return
+   */
   public double getRFromV(double v) {
 
-    if (boardVersion == 2) {
-      for (int i = 0; i < voltage.length; i++) {
-
-        //        System.out.println(
-        //            "voltage[i]=" + voltage[i] + ", resistance[i]=" + resistance[i] + ", v=" + v);
-
-        if (voltage[i] <= v) {
-          if (i == 0) { // edge case
-            return resistance[0];
-          }
-          // linear interpolation between i and i-1.
-          double dv = voltage[i - 1] - voltage[i];
-          double r = (voltage[i - 1] - v) / dv;
-          double dR = (resistance[i] - resistance[i - 1]) * r;
-          double interpolation = resistance[i - 1] + dR;
-          return interpolation;
-        }
-      }
+    return lookup(v);
+  }
+
+  /**
+   * Batch version of {@link #getRFromV(double)} for converting whole captures.
+   *
+   * @param v voltages
+   * @param out resistances, must be at least as long as v
+   */
+  public void getRFromV(double[] v, double[] out) {
+
+    for (int i = 0; i < v.length; i++) {
+      out[i] = lookup(v[i]);
+    }
+  }
+
+  public Interpolation getInterpolation() {
+
+    return interpolation;
+  }
+
+  public void setInterpolation(Interpolation interpolation) {
+
+    if (interpolation == Interpolation.Pchip && pchipSlopes == null) {
+      pchipSlopes = computePchipSlopes(voltage, resistance);
+    }
+    this.interpolation = interpolation;
+  }
 
+  private double lookup(double v) {
+
+    // index of the first table voltage at or past v
+    int i = isMonotone ? search(v) : scan(v);
+
+    if (i == 0) { // edge case
+      return resistance[0];
+    }
+    if (i == voltage.length) {
       return resistance[resistance.length - 1];
-    } else {
-      for (int i = 0; i < voltage.length; i++) {
-        if (voltage[i] <= v) {
-          if (i == 0) { // edge case
-            return resistance[0];
-          }
-          // linear interpolation between i and i-1.
-          double dv = voltage[i - 1] - voltage[i];
-          double r = (voltage[i - 1] - v) / dv;
-          double dR = (resistance[i] - resistance[i - 1]) * r;
-          double interpolation = resistance[i - 1] + dR;
-          return interpolation;
-        }
+    }
+
+    if (interpolation == Interpolation.Pchip) {
+      return hermite(i - 1, v);
+    }
+
+    // linear interpolation between i and i-1.
+    double dv = voltage[i - 1] - voltage[i];
+    double r = (voltage[i - 1] - v) / dv;
+    double dR = (resistance[i] - resistance[i - 1]) * r;
+    return resistance[i - 1] + dR;
+  }
+
+  private int search(double v) {
+
+    int low = 0;
+    int high = voltage.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (isRising ? voltage[mid] >= v : voltage[mid] <= v) {
+        high = mid;
+      } else {
+        low = mid + 1;
       }
+    }
+    return low;
+  }
 
-      return resistance[resistance.length - 1];
+  /** fallback for tables that are not monotone, e.g. from JSpice noise where the curve is flat */
+  private int scan(double v) {
+
+    for (int i = 0; i < voltage.length; i++) {
+      if (isRising ? voltage[i] >= v : voltage[i] <= v) {
+        return i;
+      }
+    }
+    return voltage.length;
+  }
+
+  /** cubic Hermite evaluation on interval [k, k+1] using the PCHIP slopes */
+  private double hermite(int k, double v) {
+
+    double h = voltage[k + 1] - voltage[k];
+    if (h == 0) {
+      return resistance[k];
     }
+    double t = (v - voltage[k]) / h;
+    double t2 = t * t;
+    double t3 = t2 * t;
+    return (2 * t3 - 3 * t2 + 1) * resistance[k]
+        + (t3 - 2 * t2 + t) * h * pchipSlopes[k]
+        + (-2 * t3 + 3 * t2) * resistance[k + 1]
+        + (t3 - t2) * h * pchipSlopes[k + 1];
   }
 
+  /**
+   * Fritsch-Carlson slopes for a shape-preserving (monotone) piecewise cubic, as in MATLAB's pchip.
+   */
+  private static double[] computePchipSlopes(double[] x, double[] y) {
+
+    int n = x.length;
+    double[] slopes = new double[n];
+    if (n < 2) {
+      return slopes;
+    }
+
+    double[] h = new double[n - 1];
+    double[] delta = new double[n - 1];
+    for (int k = 0; k < n - 1; k++) {
+      h[k] = x[k + 1] - x[k];
+      delta[k] = h[k] == 0 ? 0 : (y[k + 1] - y[k]) / h[k];
+    }
+
+    if (n == 2) {
+      slopes[0] = delta[0];
+      slopes[1] = delta[0];
+      return slopes;
+    }
+
+    for (int k = 1; k < n - 1; k++) {
+      if (delta[k - 1] * delta[k] <= 0) {
+        slopes[k] = 0;
+      } else {
+        double w1 = 2 * h[k] + h[k - 1];
+        double w2 = h[k] + 2 * h[k - 1];
+        slopes[k] = (w1 + w2) / (w1 / delta[k - 1] + w2 / delta[k]);
+      }
+    }
+
+    slopes[0] = endSlope(h[0], h[1], delta[0], delta[1]);
+    slopes[n - 1] = endSlope(h[n - 2], h[n - 3], delta[n - 2], delta[n - 3]);
+    return slopes;
+  }
+
+  private static double endSlope(double h0, double h1, double delta0, double delta1) {
+
+    if (h0 + h1 == 0) {
+      return 0;
+    }
+    double d = ((2 * h0 + h1) * delta0 - h0 * delta1) / (h0 + h1);
+    if (Math.signum(d) != Math.signum(delta0)) {
+      return 0;
+    } else if (Math.signum(delta0) != Math.signum(delta1) && Math.abs(d) > Math.abs(3 * delta0)) {
+      return 3 * delta0;
+    }
+    return d;
+  }
+
+  private static boolean isMonotone(double[] x, boolean isRising) {
+
+    for (int i = 1; i < x.length; i++) {
+      if (isRising ? x[i] < x[i - 1] : x[i] > x[i - 1]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds the voltage-->resistance table, either on an adaptive grid (see {@link RC_AdaptiveGrid})
+   * or on the fixed R_STEP grid. Each SPICE point is an independent simulation, so with the Spice
+   * engine the sweep is split across the common ForkJoinPool and every task writes straight into
+   * its own slots of the result arrays, keeping them in resistance order. Analytic tables, which
+   * the experiments use, take milliseconds and are built on the calling thread.
+   */
   public void loadTrace() {
 
-    double Rinit = 1E2;
-    double Rfinal = 1E8;
+    if (adaptiveTolerance > 0) {
+      RC_TableCache.Table table =
+          new RC_AdaptiveGrid(getSolver(), adaptiveTolerance)
+              .build(R_INIT, R_FINAL, engine == Engine.Spice);
+      this.voltage = table.getVoltage();
+      this.resistance = table.getResistance();
+      return;
+    }
+
+    int length = 0;
+    for (double Rm = R_INIT; Rm < R_FINAL; Rm *= R_STEP) {
+      length++;
+    }
+
+    double[] resistance = new double[length];
+    double Rm = R_INIT;
+    for (int i = 0; i < length; i++) {
+      resistance[i] = Rm;
+      Rm *= R_STEP;
+    }
+
+    double[] voltage = new double[length];
+    RC_Solver solver = getSolver();
+
+    if (engine == Engine.Spice) {
+      ForkJoinPool.commonPool().invoke(new SweepTask(solver, resistance, voltage, 0, length));
+    } else {
+      for (int i = 0; i < length; i++) {
+        voltage[i] = solver.getEndOfPulseVoltage(resistance[i]);
+      }
+    }
 
-    List<Number> voltage = new ArrayList<>();
-    List<Number> resistance = new ArrayList<>();
+    this.voltage = voltage;
+    this.resistance = resistance;
+  }
 
-    double simStepSize = readPulseWidth / 20;
-    TransientConfig transientConfig =
-        new TransientConfig(
-            "" + readPulseWidth, "" + simStepSize, new DC("V1", readPulseAmplitude));
-    for (double Rm = Rinit; Rm < Rfinal; Rm *= 1.025) {
+  /**
+   * Re-simulates a few points of a freshly built analytic table with JSpice and logs a warning if
+   * they disagree, e.g. because the board netlists changed and the closed form no longer matches
+   * them. Only cache misses are checked, and only with debug logging, as each point is a transient
+   * simulation.
+   */
+  private void spotCheck() {
 
-      Netlist netlist;
-      if (boardVersion == 2) {
-        netlist = new MD_V2_Board(Rm, seriesResistor, parasiticCapacitance);
+    RC_Solver spice =
+        new RC_SpiceSolver(
+            boardVersion, readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
+    for (int k = 0; k < SPOT_CHECK_POINTS; k++) {
+      int i = (int) ((long) (resistance.length - 1) * (2 * k + 1) / (2 * SPOT_CHECK_POINTS));
+      double vSpice = spice.getEndOfPulseVoltage(resistance[i]);
+      double error = Math.abs(voltage[i] - vSpice) / Math.abs(readPulseAmplitude);
+      if (error > SPOT_CHECK_TOLERANCE) {
+        logger.warn(
+            "Analytic RC table disagrees with JSpice at Rm="
+                + resistance[i]
+                + ": "
+                + voltage[i]
+                + "V vs "
+                + vSpice
+                + "V");
       } else {
-        netlist = new MD_V0_V1_Board(Rm, seriesResistor, parasiticCapacitance);
+        logger.debug(
+            "Analytic RC table matches JSpice at Rm=" + resistance[i] + ", error=" + error);
       }
+    }
+  }
 
-      netlist.setSimulationConfig(transientConfig);
-      SimulationResult simulationResult = JSpice.simulate(netlist);
-      SimulationPlotData simulationData = simulationResult.getSimulationPlotDataMap().get("V(2)");
-      voltage.add(simulationData.getyData().get(simulationData.getyData().size() - 1));
-      resistance.add(Rm);
+  public RC_Solver getSolver() {
+
+    if (engine == Engine.Spice) {
+      return new RC_SpiceSolver(
+          boardVersion, readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
+    } else {
+      return new RC_AnalyticSolver(
+          boardVersion, readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
     }
+  }
+
+  public Engine getEngine() {
+
+    return engine;
+  }
 
-    this.voltage = new double[voltage.size()];
-    this.resistance = new double[resistance.size()];
+  public double getAdaptiveTolerance() {
 
-    for (int i = 0; i < this.resistance.length; i++) {
-      this.voltage[i] = voltage.get(i).doubleValue();
-      this.resistance[i] = resistance.get(i).doubleValue();
+    return adaptiveTolerance;
+  }
+
+  public int getTableSize() {
+
+    return voltage.length;
+  }
+
+  /** identifies how the table was generated, for the table cache key */
+  private String getGeneratorId() {
+
+    if (adaptiveTolerance > 0) {
+      return engine.name() + ",adaptive=" + adaptiveTolerance;
+    } else {
+      return engine.name() + ",fixed=" + R_STEP;
     }
   }
+
+  private static class SweepTask extends RecursiveAction {
+
+    private final RC_Solver solver;
+    private final double[] resistance;
+    private final double[] voltage;
+    private final int from;
+    private final int to;
+
+    SweepTask(RC_Solver solver, double[] resistance, double[] voltage, int from, int to) {
+
+      this.solver = solver;
+      this.resistance = resistance;
+      this.voltage = voltage;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+
+      if (to - from <= SWEEP_CHUNK_SIZE) {
+        for (int i = from; i < to; i++) {
+          voltage[i] = solver.getEndOfPulseVoltage(resistance[i]);
+        }
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll(
+            new SweepTask(solver, resistance, voltage, from, mid),
+            new SweepTask(solver, resistance, voltage, mid, to));
+      }
+    }
+  }
+
+  /** how to interpolate between table points */
+  public enum Interpolation {
+    Linear,
+    Pchip;
+  }
+
+  /**
+   * Analytic is exact for the MD_V0_V1_Board and MD_V2_Board read circuits and builds a table in
+   * well under a millisecond. Spice runs a JSpice transient per table point. The two are not
+   * compared at runtime, except for a few spot checks of new analytic tables with debug logging.
+   */
+  public enum Engine {
+    Analytic,
+    Spice;
+  }
 }
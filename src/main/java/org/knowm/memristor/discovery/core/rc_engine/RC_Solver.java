@@ -0,0 +1,88 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+/**
+ * Computes the voltage at the sense node (V(2)) at the end of a read pulse, given a memristor
+ * resistance. {@link RC_ResistanceComputer} samples one of these over the resistance range to build
+ * its voltage--&gt;resistance table.
+ */
+public abstract class RC_Solver {
+
+  protected final int boardVersion;
+  protected final double readPulseAmplitude;
+  protected final double readPulseWidth;
+  protected final double seriesResistance;
+  protected final double parasiticCapacitance;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param readPulseAmplitude
+   * @param readPulseWidth
+   * @param seriesResistance
+   * @param parasiticCapacitance
+   */
+  public RC_Solver(
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance) {
+
+    this.boardVersion = boardVersion;
+    this.readPulseAmplitude = readPulseAmplitude;
+    this.readPulseWidth = readPulseWidth;
+    this.seriesResistance = seriesResistance;
+    this.parasiticCapacitance = parasiticCapacitance;
+  }
+
+  public abstract double getEndOfPulseVoltage(double memristorResistance);
+
+  public int getBoardVersion() {
+
+    return boardVersion;
+  }
+
+  public double getReadPulseAmplitude() {
+
+    return readPulseAmplitude;
+  }
+
+  public double getReadPulseWidth() {
+
+    return readPulseWidth;
+  }
+
+  public double getSeriesResistance() {
+
+    return seriesResistance;
+  }
+
+  public double getParasiticCapacitance() {
+
+    return parasiticCapacitance;
+  }
+}
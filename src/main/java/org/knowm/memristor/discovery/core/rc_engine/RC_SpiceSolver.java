@@ -0,0 +1,81 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+import java.util.List;
+import org.knowm.jspice.JSpice;
+import org.knowm.jspice.netlist.Netlist;
+import org.knowm.jspice.simulate.SimulationPlotData;
+import org.knowm.jspice.simulate.SimulationResult;
+import org.knowm.jspice.simulate.transientanalysis.TransientConfig;
+import org.knowm.jspice.simulate.transientanalysis.driver.DC;
+
+/**
+ * Runs a JSpice transient simulation of the board read circuit for every resistance. Slow, but works
+ * for any netlist: subclass and override {@link #getNetlist(double)} (and {@link #getProbe()} if
+ * the sense node is not node 2) to model a different circuit.
+ */
+public class RC_SpiceSolver extends RC_Solver {
+
+  public RC_SpiceSolver(
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance) {
+
+    super(
+        boardVersion, readPulseAmplitude, readPulseWidth, seriesResistance, parasiticCapacitance);
+  }
+
+  @Override
+  public double getEndOfPulseVoltage(double memristorResistance) {
+
+    double simStepSize = readPulseWidth / 20;
+    TransientConfig transientConfig =
+        new TransientConfig(
+            "" + readPulseWidth, "" + simStepSize, new DC("V1", readPulseAmplitude));
+
+    Netlist netlist = getNetlist(memristorResistance);
+    netlist.setSimulationConfig(transientConfig);
+    SimulationResult simulationResult = JSpice.simulate(netlist);
+    SimulationPlotData simulationData = simulationResult.getSimulationPlotDataMap().get(getProbe());
+    List<Number> yData = simulationData.getyData();
+    return yData.get(yData.size() - 1).doubleValue();
+  }
+
+  protected Netlist getNetlist(double memristorResistance) {
+
+    if (boardVersion == 2) {
+      return new MD_V2_Board(memristorResistance, seriesResistance, parasiticCapacitance);
+    } else {
+      return new MD_V0_V1_Board(memristorResistance, seriesResistance, parasiticCapacitance);
+    }
+  }
+
+  protected String getProbe() {
+
+    return "V(2)";
+  }
+}
@@ -0,0 +1,326 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two-level cache for the voltage-->resistance tables computed by {@link RC_ResistanceComputer}.
+ * An in-memory LRU map sits in front of a content-addressed directory on disk, where each table is
+ * stored under the SHA-256 of its parameter key. A table is only re-simulated the first time a
+ * given generator/board/read-pulse/series-resistor/capacitance combination is seen on this machine.
+ */
+public class RC_TableCache {
+
+  /**
+   * Bump this whenever the way tables are generated changes, so stale tables on disk are no longer
+   * addressed.
+   */
+  public static final int FORMAT_VERSION = 3;
+
+  public static final int MEMORY_CAPACITY = 16;
+
+  private static final int MAGIC = 0x52435442; // "RCTB"
+
+  private static final Logger logger = LoggerFactory.getLogger(RC_TableCache.class);
+
+  private static final Map<String, Table> memoryCache =
+      new LinkedHashMap<String, Table>(MEMORY_CAPACITY, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Table> eldest) {
+
+          return size() > MEMORY_CAPACITY;
+        }
+      };
+
+  private static File cacheDir =
+      new File(
+          System.getProperty("user.home")
+              + File.separator
+              + ".memristor-discovery"
+              + File.separator
+              + "rc-cache");
+
+  private static int memoryHits = 0;
+  private static int diskHits = 0;
+  private static int misses = 0;
+
+  /**
+   * Returns the cached table for the given parameters, or null if it has to be computed.
+   *
+   * @param generator
+   * @param boardVersion
+   * @param readPulseAmplitude
+   * @param readPulseWidth
+   * @param seriesResistance
+   * @param parasiticCapacitance
+   * @return
+   */
+  public static synchronized Table get(
+      String generator,
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance) {
+
+    String key =
+        getKey(
+            generator,
+            boardVersion,
+            readPulseAmplitude,
+            readPulseWidth,
+            seriesResistance,
+            parasiticCapacitance);
+
+    Table table = memoryCache.get(key);
+    if (table != null) {
+      memoryHits++;
+      return table;
+    }
+
+    table = readFromDisk(key);
+    if (table != null) {
+      diskHits++;
+      memoryCache.put(key, table);
+      return table;
+    }
+
+    misses++;
+    return null;
+  }
+
+  /**
+   * Stores a freshly computed table in memory and on disk. Disk failures are logged and otherwise
+   * ignored, the table is still usable for this session.
+   *
+   * @param generator
+   * @param boardVersion
+   * @param readPulseAmplitude
+   * @param readPulseWidth
+   * @param seriesResistance
+   * @param parasiticCapacitance
+   * @param voltage
+   * @param resistance
+   */
+  public static synchronized void put(
+      String generator,
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance,
+      double[] voltage,
+      double[] resistance) {
+
+    String key =
+        getKey(
+            generator,
+            boardVersion,
+            readPulseAmplitude,
+            readPulseWidth,
+            seriesResistance,
+            parasiticCapacitance);
+
+    Table table = new Table(voltage, resistance);
+    memoryCache.put(key, table);
+    writeToDisk(key, table);
+  }
+
+  /** Drops the in-memory layer. The tables on disk are kept. */
+  public static synchronized void clearMemory() {
+
+    memoryCache.clear();
+  }
+
+  public static synchronized void setCacheDir(File dir) {
+
+    cacheDir = dir;
+    memoryCache.clear();
+  }
+
+  public static synchronized File getCacheDir() {
+
+    return cacheDir;
+  }
+
+  public static synchronized int getMemoryHits() {
+
+    return memoryHits;
+  }
+
+  public static synchronized int getDiskHits() {
+
+    return diskHits;
+  }
+
+  public static synchronized int getMisses() {
+
+    return misses;
+  }
+
+  /**
+   * Canonical parameter key. Doubles are encoded by their exact bit pattern so that two
+   * configurations only share a table when they are numerically identical.
+   */
+  static String getKey(
+      String generator,
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistance,
+      double parasiticCapacitance) {
+
+    return "v"
+        + FORMAT_VERSION
+        + ";generator="
+        + generator
+        + ";board="
+        + boardVersion
+        + ";amplitude="
+        + Long.toHexString(Double.doubleToLongBits(readPulseAmplitude))
+        + ";width="
+        + Long.toHexString(Double.doubleToLongBits(readPulseWidth))
+        + ";rs="
+        + Long.toHexString(Double.doubleToLongBits(seriesResistance))
+        + ";c="
+        + Long.toHexString(Double.doubleToLongBits(parasiticCapacitance));
+  }
+
+  private static File getFile(String key) {
+
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+      byte[] digest = messageDigest.digest(key.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest) {
+        sb.append(String.format("%02x", b));
+      }
+      return new File(cacheDir, sb.toString() + ".rct");
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required to be present on every JVM
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Table readFromDisk(String key) {
+
+    File file = getFile(key);
+    if (!file.exists()) {
+      return null;
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+      if (in.readInt() != MAGIC || !key.equals(in.readUTF())) {
+        logger.warn("Ignoring foreign RC table cache file: " + file);
+        return null;
+      }
+      int length = in.readInt();
+      double[] voltage = new double[length];
+      double[] resistance = new double[length];
+      for (int i = 0; i < length; i++) {
+        voltage[i] = in.readDouble();
+      }
+      for (int i = 0; i < length; i++) {
+        resistance[i] = in.readDouble();
+      }
+      return new Table(voltage, resistance);
+    } catch (IOException e) {
+      logger.warn("Could not read RC table cache file: " + file, e);
+      return null;
+    }
+  }
+
+  private static void writeToDisk(String key, Table table) {
+
+    File file = getFile(key);
+    try {
+      if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+        logger.warn("Could not create RC table cache directory: " + cacheDir);
+        return;
+      }
+
+      // write to a temp file first so a crash never leaves a truncated table behind
+      File tempFile = File.createTempFile("rct", ".tmp", cacheDir);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+
+        out.writeInt(MAGIC);
+        out.writeUTF(key);
+        out.writeInt(table.voltage.length);
+        for (double v : table.voltage) {
+          out.writeDouble(v);
+        }
+        for (double r : table.resistance) {
+          out.writeDouble(r);
+        }
+      }
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.warn("Could not write RC table cache file: " + file, e);
+    }
+  }
+
+  /** An immutable voltage-->resistance table. The arrays must not be modified. */
+  public static class Table {
+
+    private final double[] voltage;
+    private final double[] resistance;
+
+    public Table(double[] voltage, double[] resistance) {
+
+      this.voltage = voltage;
+      this.resistance = resistance;
+    }
+
+    public double[] getVoltage() {
+
+      return voltage;
+    }
+
+    public double[] getResistance() {
+
+      return resistance;
+    }
+  }
+}
@@ -0,0 +1,315 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.rc_engine;
+
+/**
+ * Estimates the memristor resistance (and optionally the parasitic capacitance) from the whole
+ * captured charge curve of a read pulse instead of a single sample before the falling edge. The
+ * samples between the rising and falling edge are least-squares fitted to the step response of
+ * {@link RC_AnalyticSolver}, so the transient does not need to settle and much shorter read pulses
+ * can be used.
+ *
+ * <p>The fit runs in log space: a coarse scan of ln(R) over the table range finds the basin, then
+ * {@link RC_LeastSquares} refines ln(R), or ln(R) and ln(C) together.
+ */
+public class RC_WaveformFitter {
+
+  /** fewest samples on the charge curve that are accepted for a fit */
+  public static final int MIN_SAMPLES = 4;
+
+  private static final int SCAN_POINTS = 49;
+
+  private final int boardVersion;
+  private final double seriesResistance;
+  private final double parasiticCapacitance;
+  private final boolean fitCapacitance;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   * @param seriesResistance
+   * @param parasiticCapacitance fixed capacitance, or the starting guess if it is fitted
+   * @param fitCapacitance
+   */
+  public RC_WaveformFitter(
+      int boardVersion,
+      double seriesResistance,
+      double parasiticCapacitance,
+      boolean fitCapacitance) {
+
+    this.boardVersion = boardVersion;
+    this.seriesResistance = seriesResistance;
+    this.parasiticCapacitance = parasiticCapacitance;
+    this.fitCapacitance = fitCapacitance;
+  }
+
+  /**
+   * Locates the read pulse on the drive channel and fits the response channel during it. The pulse
+   * amplitude is taken from the drive plateau rather than the nominal setting, and the rising edge
+   * is placed between samples by linear interpolation through the half-amplitude crossing.
+   *
+   * @param drive the scope channel on the pulse source side
+   * @param response the scope channel on the sense node
+   * @param samplePeriod in seconds
+   * @return the fit, or null if no complete pulse with enough samples was found
+   */
+  public Fit fit(double[] drive, double[] response, double samplePeriod) {
+
+    Pulse pulse = Pulse.locate(drive, samplePeriod);
+    if (pulse == null) {
+      return null;
+    }
+    return fit(response, pulse.start, pulse.end, pulse.t0, samplePeriod, pulse.amplitude);
+  }
+
+  /**
+   * Fits response[start..end) where sample i was taken at i * samplePeriod - t0 after the rising
+   * edge.
+   *
+   * @param response
+   * @param start
+   * @param end
+   * @param t0 time of the rising edge in seconds, relative to sample 0
+   * @param samplePeriod in seconds
+   * @param amplitude the applied pulse amplitude
+   * @return the fit, or null if there are too few samples
+   */
+  public Fit fit(
+      double[] response, int start, int end, double t0, double samplePeriod, double amplitude) {
+
+    int n = end - start;
+    if (n < MIN_SAMPLES) {
+      return null;
+    }
+    final double[] t = new double[n];
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      t[i] = (start + i) * samplePeriod - t0;
+      y[i] = response[start + i];
+    }
+    final double pulseAmplitude = amplitude;
+    final double fixedLnC = Math.log(parasiticCapacitance);
+
+    // p = {ln(R)} or {ln(R), ln(C)}
+    RC_LeastSquares leastSquares =
+        new RC_LeastSquares(y) {
+
+          @Override
+          double getModel(int i, double[] p) {
+
+            return getStepResponse(t[i], pulseAmplitude, p[0], fitCapacitance ? p[1] : fixedLnC);
+          }
+        };
+
+    double lnRMin = Math.log(RC_ResistanceComputer.R_INIT);
+    double lnRMax = Math.log(RC_ResistanceComputer.R_FINAL);
+
+    // coarse scan for a starting point
+    double[] p = fitCapacitance ? new double[] {lnRMin, fixedLnC} : new double[] {lnRMin};
+    double lnR = lnRMin;
+    double bestError = Double.MAX_VALUE;
+    for (int i = 0; i < SCAN_POINTS; i++) {
+      p[0] = lnRMin + (lnRMax - lnRMin) * i / (SCAN_POINTS - 1);
+      double error = leastSquares.getSquaredError(p);
+      if (error < bestError) {
+        bestError = error;
+        lnR = p[0];
+      }
+    }
+    p[0] = lnR;
+
+    double[] min;
+    double[] max;
+    if (fitCapacitance) {
+      min = new double[] {lnRMin, Double.NEGATIVE_INFINITY};
+      max = new double[] {lnRMax, Double.POSITIVE_INFINITY};
+    } else {
+      min = new double[] {lnRMin};
+      max = new double[] {lnRMax};
+    }
+    p = leastSquares.minimize(p, min, max);
+
+    return new Fit(
+        Math.exp(p[0]),
+        fitCapacitance ? Math.exp(p[1]) : parasiticCapacitance,
+        Math.sqrt(leastSquares.getSquaredError() / n),
+        leastSquares.getIterations(),
+        leastSquares.isConverged());
+  }
+
+  public int getBoardVersion() {
+
+    return boardVersion;
+  }
+
+  public double getSeriesResistance() {
+
+    return seriesResistance;
+  }
+
+  public double getParasiticCapacitance() {
+
+    return parasiticCapacitance;
+  }
+
+  public boolean isFitCapacitance() {
+
+    return fitCapacitance;
+  }
+
+  private double getStepResponse(double t, double amplitude, double lnR, double lnC) {
+
+    if (t <= 0) {
+      return 0;
+    }
+    return RC_AnalyticSolver.getStepResponse(
+        boardVersion, amplitude, seriesResistance, Math.exp(lnR), Math.exp(lnC), t);
+  }
+
+  /**
+   * The fit window of a read pulse located on the drive channel. The amplitude is taken from the
+   * drive plateau rather than the nominal setting, and the rising edge is placed between samples by
+   * linear interpolation through the half-amplitude crossing.
+   */
+  static class Pulse {
+
+    /** first sample of the fit window */
+    final int start;
+    /** end of the fit window, exclusive */
+    final int end;
+    /** time of the rising edge in seconds, relative to sample 0 */
+    final double t0;
+
+    final double amplitude;
+
+    private Pulse(int start, int end, double t0, double amplitude) {
+
+      this.start = start;
+      this.end = end;
+      this.t0 = t0;
+      this.amplitude = amplitude;
+    }
+
+    /**
+     * A capture that is already high at sample 0 is taken to start on the rising edge, as captures
+     * triggered on the waveform generator do: the AWG starts the pulse with the capture.
+     *
+     * @param drive
+     * @param samplePeriod
+     * @return the pulse, or null if no complete pulse was captured, i.e. it doesn't fall again
+     */
+    static Pulse locate(double[] drive, double samplePeriod) {
+
+      double peak = 0;
+      for (int i = 0; i < drive.length; i++) {
+        if (Math.abs(drive[i]) > Math.abs(peak)) {
+          peak = drive[i];
+        }
+      }
+      if (peak == 0) {
+        return null;
+      }
+      double half = Math.abs(peak) / 2;
+
+      int rise = 0;
+      while (rise < drive.length && Math.abs(drive[rise]) < half) {
+        rise++;
+      }
+      int fall = rise;
+      while (fall < drive.length && Math.abs(drive[fall]) >= half) {
+        fall++;
+      }
+      if (fall == drive.length) {
+        return null; // falling edge not captured
+      }
+
+      double edge = 0;
+      if (rise > 0) {
+        double d0 = Math.abs(drive[rise - 1]);
+        double d1 = Math.abs(drive[rise]);
+        edge = rise - 1 + (half - d0) / (d1 - d0);
+      }
+
+      // plateau average, skipping the samples closest to the edges
+      int plateauStart = Math.min(rise + 2, fall - 1);
+      int plateauEnd = Math.max(fall - 2, plateauStart + 1);
+      double amplitude = 0;
+      for (int i = plateauStart; i < plateauEnd; i++) {
+        amplitude += drive[i];
+      }
+      amplitude /= plateauEnd - plateauStart;
+
+      // the samples right at either edge are the most sensitive to timing jitter, leave them out
+      return new Pulse(rise + 1, fall - 1, edge * samplePeriod, amplitude);
+    }
+  }
+
+  /** Result of a waveform fit */
+  public static class Fit {
+
+    private final double resistance;
+    private final double capacitance;
+    private final double rmsError;
+    private final int iterations;
+    private final boolean converged;
+
+    public Fit(
+        double resistance, double capacitance, double rmsError, int iterations, boolean converged) {
+
+      this.resistance = resistance;
+      this.capacitance = capacitance;
+      this.rmsError = rmsError;
+      this.iterations = iterations;
+      this.converged = converged;
+    }
+
+    public double getResistance() {
+
+      return resistance;
+    }
+
+    /** the fitted capacitance, or the fixed one if it was not fitted */
+    public double getCapacitance() {
+
+      return capacitance;
+    }
+
+    /** root mean square of the residuals in volts */
+    public double getRmsError() {
+
+      return rmsError;
+    }
+
+    public int getIterations() {
+
+      return iterations;
+    }
+
+    public boolean isConverged() {
+
+      return converged;
+    }
+  }
+}
@@ -0,0 +1,519 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.session;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import org.knowm.memristor.discovery.DeviceBackend;
+import org.knowm.memristor.discovery.core.session.SessionLog.Encoder;
+import org.knowm.memristor.discovery.core.session.SessionLog.Op;
+import org.knowm.memristor.discovery.core.session.SessionLog.Writer;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.knowm.waveforms4j.DWF.Waveform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DeviceBackend} that passes every call on to another backend and journals it, with its
+ * arguments, its result and a timestamp, to a {@link SessionLog}. The log can be served back
+ * later by a {@link ReplayBackend}, e.g. {@code new DWFProxy(boardVersion, new
+ * RecordingBackend(new DWFBackend(), file))}.
+ *
+ * <p>Recording never gets in the way of the device: if the log can't be written, the error is
+ * logged once and the session carries on unrecorded.
+ */
+public class RecordingBackend implements DeviceBackend, Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecordingBackend.class);
+
+  private DeviceBackend deviceBackend;
+  private final File file;
+  private final Encoder args = new Encoder();
+  private final Encoder result = new Encoder();
+
+  private Writer writer;
+  private Op op;
+  private long timestamp;
+  private long frameCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param deviceBackend the backend that does the work
+   * @param file the log, it is overwritten
+   * @throws IOException
+   */
+  public RecordingBackend(DeviceBackend deviceBackend, File file) throws IOException {
+
+    this.deviceBackend = deviceBackend;
+    this.file = file;
+    writer = new Writer(file);
+  }
+
+  /**
+   * Passes the following calls on to another backend, e.g. a simulated board of another version
+   * after the board was switched. The log carries on.
+   *
+   * @param deviceBackend
+   */
+  public synchronized void setDeviceBackend(DeviceBackend deviceBackend) {
+
+    this.deviceBackend = deviceBackend;
+  }
+
+  public synchronized long getFrameCount() {
+
+    return frameCount;
+  }
+
+  public synchronized boolean isRecording() {
+
+    return writer != null;
+  }
+
+  /** Flushes and closes the log, calls keep being passed on but are no longer recorded. */
+  @Override
+  public synchronized void close() {
+
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.close();
+    } catch (IOException e) {
+      logger.error("Could not close device session log: " + file, e);
+    }
+    writer = null;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDeviceOpen() {
+
+    begin(Op.DeviceOpen);
+    boolean isOk = deviceBackend.FDwfDeviceOpen();
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceCloseAll() {
+
+    begin(Op.DeviceCloseAll);
+    boolean isOk = deviceBackend.FDwfDeviceCloseAll();
+    result.writeBoolean(isOk);
+    end();
+    flush();
+    return isOk;
+  }
+
+  @Override
+  public synchronized String FDwfGetLastErrorMsg() {
+
+    begin(Op.GetLastErrorMsg);
+    String msg = deviceBackend.FDwfGetLastErrorMsg();
+    result.writeString(msg);
+    end();
+    return msg;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    begin(Op.DeviceAutoConfigureSet);
+    args.writeBoolean(autoConfigure);
+    boolean isOk = deviceBackend.FDwfDeviceAutoConfigureSet(autoConfigure);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    begin(Op.DigitalIOOutputEnableSet);
+    args.writeInt(outputEnableMask);
+    boolean isOk = deviceBackend.FDwfDigitalIOOutputEnableSet(outputEnableMask);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    begin(Op.DigitalIOOutputSet);
+    args.writeInt(outputSetMask);
+    boolean isOk = deviceBackend.FDwfDigitalIOOutputSet(outputSetMask);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOConfigure() {
+
+    begin(Op.DigitalIOConfigure);
+    boolean isOk = deviceBackend.FDwfDigitalIOConfigure();
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized int getDigitalIOStatus() {
+
+    begin(Op.DigitalIOStatus);
+    int states = deviceBackend.getDigitalIOStatus();
+    result.writeInt(states);
+    end();
+    return states;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOReset() {
+
+    begin(Op.DigitalIOReset);
+    boolean isOk = deviceBackend.FDwfDigitalIOReset();
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalOutReset() {
+
+    begin(Op.DigitalOutReset);
+    boolean isOk = deviceBackend.FDwfDigitalOutReset();
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog I/O ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean setPowerSupply(int idxChannel, double value) {
+
+    begin(Op.PowerSupply);
+    args.writeInt(idxChannel);
+    args.writeDouble(value);
+    boolean isOk = deviceBackend.setPowerSupply(idxChannel, value);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset) {
+
+    begin(Op.AnalogOutNodeOffsetSet);
+    args.writeInt(idxChannel);
+    args.writeDouble(offset);
+    boolean isOk = deviceBackend.FDwfAnalogOutNodeOffsetSet(idxChannel, offset);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogOutConfigure(int idxChannel, boolean start) {
+
+    begin(Op.AnalogOutConfigure);
+    args.writeInt(idxChannel);
+    args.writeBoolean(start);
+    boolean isOk = deviceBackend.FDwfAnalogOutConfigure(idxChannel, start);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean startWave(
+      int idxChannel,
+      Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    begin(Op.StartWave);
+    args.writeInt(idxChannel);
+    args.writeString(waveform.name());
+    args.writeDouble(frequency);
+    args.writeDouble(amplitude);
+    args.writeDouble(offset);
+    args.writeDouble(dutyCycle);
+    boolean isOk =
+        deviceBackend.startWave(idxChannel, waveform, frequency, amplitude, offset, dutyCycle);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean stopWave(int idxChannel) {
+
+    begin(Op.StopWave);
+    args.writeInt(idxChannel);
+    boolean isOk = deviceBackend.stopWave(idxChannel);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean startPulseTrain(int idxChannel) {
+
+    begin(Op.StartPulseTrain);
+    args.writeInt(idxChannel);
+    boolean isOk = deviceBackend.startPulseTrain(idxChannel);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean setCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    begin(Op.SetCustomPulseTrain);
+    writePulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    boolean isOk =
+        deviceBackend.setCustomPulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean startCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    begin(Op.StartCustomPulseTrain);
+    writePulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    boolean isOk =
+        deviceBackend.startCustomPulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable) {
+
+    begin(Op.AnalogInChannelEnableSet);
+    args.writeInt(idxChannel);
+    args.writeBoolean(enable);
+    boolean isOk = deviceBackend.FDwfAnalogInChannelEnableSet(idxChannel, enable);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange) {
+
+    begin(Op.AnalogInChannelRangeSet);
+    args.writeInt(idxChannel);
+    args.writeDouble(voltsRange);
+    boolean isOk = deviceBackend.FDwfAnalogInChannelRangeSet(idxChannel, voltsRange);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    begin(Op.AnalogInConfigure);
+    args.writeBoolean(reconfigure);
+    args.writeBoolean(start);
+    boolean isOk = deviceBackend.FDwfAnalogInConfigure(reconfigure, start);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized byte FDwfAnalogInStatus(boolean readData) {
+
+    begin(Op.AnalogInStatus);
+    args.writeBoolean(readData);
+    byte state = deviceBackend.FDwfAnalogInStatus(readData);
+    result.writeByte(state);
+    end();
+    return state;
+  }
+
+  @Override
+  public synchronized int FDwfAnalogInStatusSamplesValid() {
+
+    begin(Op.AnalogInStatusSamplesValid);
+    int samplesValid = deviceBackend.FDwfAnalogInStatusSamplesValid();
+    result.writeInt(samplesValid);
+    end();
+    return samplesValid;
+  }
+
+  @Override
+  public synchronized double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize) {
+
+    begin(Op.AnalogInStatusData);
+    args.writeInt(idxChannel);
+    args.writeInt(bufferSize);
+    double[] data = deviceBackend.FDwfAnalogInStatusData(idxChannel, bufferSize);
+    result.writeDoubles(data);
+    end();
+    return data;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int idxChannel, double sampleFrequency, int bufferSize, boolean isScale2Volts) {
+
+    begin(Op.StartCaptureTriggerOnWaveformGenerator);
+    args.writeInt(idxChannel);
+    args.writeDouble(sampleFrequency);
+    args.writeInt(bufferSize);
+    args.writeBoolean(isScale2Volts);
+    boolean isOk =
+        deviceBackend.startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+            idxChannel, sampleFrequency, bufferSize, isScale2Volts);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    begin(Op.StartCaptureLevelTrigger);
+    args.writeDouble(sampleFrequency);
+    args.writeDouble(triggerLevel);
+    args.writeInt(bufferSize);
+    boolean isOk =
+        deviceBackend.startAnalogCaptureBothChannelsLevelTrigger(
+            sampleFrequency, triggerLevel, bufferSize);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    begin(Op.StartCaptureImmediately);
+    args.writeDouble(sampleFrequency);
+    args.writeInt(bufferSize);
+    args.writeString(acquisitionMode.name());
+    boolean isOk =
+        deviceBackend.startAnalogCaptureBothChannelsImmediately(
+            sampleFrequency, bufferSize, acquisitionMode);
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  @Override
+  public synchronized boolean stopAnalogCaptureBothChannels() {
+
+    begin(Op.StopCapture);
+    boolean isOk = deviceBackend.stopAnalogCaptureBothChannels();
+    result.writeBoolean(isOk);
+    end();
+    return isOk;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Log //////////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  private void writePulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    args.writeInt(idxChannel);
+    args.writeDouble(frequency);
+    args.writeDouble(offset);
+    args.writeInt(numPulses);
+    args.writeBuffer(rgdData);
+  }
+
+  /** Starts a frame, the timestamp is taken before the call goes to the device. */
+  private void begin(Op op) {
+
+    this.op = op;
+    timestamp = writer == null ? 0 : writer.getElapsedNanos();
+    args.reset();
+    result.reset();
+  }
+
+  private void end() {
+
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.write(op, timestamp, args, result);
+      frameCount++;
+    } catch (IOException e) {
+      logger.error("Could not write device session log, recording stopped: " + file, e);
+      close();
+    }
+  }
+
+  private void flush() {
+
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      logger.error("Could not write device session log, recording stopped: " + file, e);
+      close();
+    }
+  }
+}
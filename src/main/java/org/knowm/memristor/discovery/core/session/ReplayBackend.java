@@ -0,0 +1,515 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.session;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.knowm.memristor.discovery.DeviceBackend;
+import org.knowm.memristor.discovery.core.session.SessionLog.Decoder;
+import org.knowm.memristor.discovery.core.session.SessionLog.Encoder;
+import org.knowm.memristor.discovery.core.session.SessionLog.Frame;
+import org.knowm.memristor.discovery.core.session.SessionLog.Op;
+import org.knowm.memristor.discovery.core.session.SessionLog.Reader;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.knowm.waveforms4j.DWF.Waveform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DeviceBackend} that serves a recorded {@link SessionLog} back, so a session from the
+ * lab can be re-run offline and the host side of it (post-processing, charting, RC lookup)
+ * profiled against real data.
+ *
+ * <p>Each call is answered with the result of the next recorded call of the same kind. If the
+ * application has drifted from the recording, e.g. a newer build skips or adds a call, up to
+ * {@link #LOOKAHEAD} recorded calls are skipped to resync. A call that has no recorded
+ * counterpart is answered with a neutral result: success, the last DIO word written, a finished
+ * acquisition and zeroed samples. Both are counted, as are calls whose arguments differ from the
+ * recording.
+ *
+ * <p>By default every call returns immediately. Paced replay waits until each call is as far into
+ * the session as it was when recorded, which gives wall-clock runs comparable to the original.
+ */
+public class ReplayBackend implements DeviceBackend, Closeable {
+
+  /** how many recorded calls are looked at to find the one matching the present call */
+  public static final int LOOKAHEAD = 64;
+
+  // DwfState of a finished acquisition
+  private static final byte STATE_DONE = 2;
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplayBackend.class);
+
+  private final File file;
+  private final Reader reader;
+  private final Encoder args = new Encoder();
+
+  /** recorded calls read ahead of the present one */
+  private final List<Frame> pending = new ArrayList<Frame>();
+
+  private final long startNanos;
+  private boolean isPaced = false;
+  private boolean isExhausted = false;
+  private int lastDigitalIOOutput = 0;
+  private Op op;
+
+  private long replayedCount = 0;
+  private long skippedCount = 0;
+  private long unmatchedCount = 0;
+  private long argumentMismatchCount = 0;
+
+  /**
+   * Constructor
+   *
+   * @param file a log written by a {@link RecordingBackend}
+   * @throws IOException
+   */
+  public ReplayBackend(File file) throws IOException {
+
+    this.file = file;
+    reader = new Reader(file);
+    startNanos = System.nanoTime();
+  }
+
+  public synchronized void setPaced(boolean isPaced) {
+
+    this.isPaced = isPaced;
+  }
+
+  public synchronized boolean isPaced() {
+
+    return isPaced;
+  }
+
+  /** @return true once every recorded call has been served or skipped */
+  public synchronized boolean isExhausted() {
+
+    return pending.isEmpty() && !readAhead();
+  }
+
+  public synchronized long getReplayedCount() {
+
+    return replayedCount;
+  }
+
+  /** @return recorded calls the application never made */
+  public synchronized long getSkippedCount() {
+
+    return skippedCount;
+  }
+
+  /** @return calls the application made that weren't recorded */
+  public synchronized long getUnmatchedCount() {
+
+    return unmatchedCount;
+  }
+
+  /** @return replayed calls made with different arguments than recorded */
+  public synchronized long getArgumentMismatchCount() {
+
+    return argumentMismatchCount;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+
+    reader.close();
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDeviceOpen() {
+
+    begin(Op.DeviceOpen);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceCloseAll() {
+
+    begin(Op.DeviceCloseAll);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized String FDwfGetLastErrorMsg() {
+
+    begin(Op.GetLastErrorMsg);
+    Decoder result = end();
+    return result == null ? "" : result.readString();
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    begin(Op.DeviceAutoConfigureSet);
+    args.writeBoolean(autoConfigure);
+    return readBoolean(end());
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    begin(Op.DigitalIOOutputEnableSet);
+    args.writeInt(outputEnableMask);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    lastDigitalIOOutput = outputSetMask;
+    begin(Op.DigitalIOOutputSet);
+    args.writeInt(outputSetMask);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOConfigure() {
+
+    begin(Op.DigitalIOConfigure);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized int getDigitalIOStatus() {
+
+    begin(Op.DigitalIOStatus);
+    Decoder result = end();
+    return result == null ? lastDigitalIOOutput : result.readInt();
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOReset() {
+
+    begin(Op.DigitalIOReset);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalOutReset() {
+
+    begin(Op.DigitalOutReset);
+    return readBoolean(end());
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog I/O ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean setPowerSupply(int idxChannel, double value) {
+
+    begin(Op.PowerSupply);
+    args.writeInt(idxChannel);
+    args.writeDouble(value);
+    return readBoolean(end());
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset) {
+
+    begin(Op.AnalogOutNodeOffsetSet);
+    args.writeInt(idxChannel);
+    args.writeDouble(offset);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogOutConfigure(int idxChannel, boolean start) {
+
+    begin(Op.AnalogOutConfigure);
+    args.writeInt(idxChannel);
+    args.writeBoolean(start);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean startWave(
+      int idxChannel,
+      Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    begin(Op.StartWave);
+    args.writeInt(idxChannel);
+    args.writeString(waveform.name());
+    args.writeDouble(frequency);
+    args.writeDouble(amplitude);
+    args.writeDouble(offset);
+    args.writeDouble(dutyCycle);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean stopWave(int idxChannel) {
+
+    begin(Op.StopWave);
+    args.writeInt(idxChannel);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean startPulseTrain(int idxChannel) {
+
+    begin(Op.StartPulseTrain);
+    args.writeInt(idxChannel);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean setCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    begin(Op.SetCustomPulseTrain);
+    writePulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean startCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    begin(Op.StartCustomPulseTrain);
+    writePulseTrain(idxChannel, frequency, offset, numPulses, rgdData);
+    return readBoolean(end());
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable) {
+
+    begin(Op.AnalogInChannelEnableSet);
+    args.writeInt(idxChannel);
+    args.writeBoolean(enable);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange) {
+
+    begin(Op.AnalogInChannelRangeSet);
+    args.writeInt(idxChannel);
+    args.writeDouble(voltsRange);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    begin(Op.AnalogInConfigure);
+    args.writeBoolean(reconfigure);
+    args.writeBoolean(start);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized byte FDwfAnalogInStatus(boolean readData) {
+
+    begin(Op.AnalogInStatus);
+    args.writeBoolean(readData);
+    Decoder result = end();
+    return result == null ? STATE_DONE : result.readByte();
+  }
+
+  @Override
+  public synchronized int FDwfAnalogInStatusSamplesValid() {
+
+    begin(Op.AnalogInStatusSamplesValid);
+    Decoder result = end();
+    return result == null ? 0 : result.readInt();
+  }
+
+  @Override
+  public synchronized double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize) {
+
+    begin(Op.AnalogInStatusData);
+    args.writeInt(idxChannel);
+    args.writeInt(bufferSize);
+    Decoder result = end();
+    return result == null ? new double[bufferSize] : result.readDoubles();
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int idxChannel, double sampleFrequency, int bufferSize, boolean isScale2Volts) {
+
+    begin(Op.StartCaptureTriggerOnWaveformGenerator);
+    args.writeInt(idxChannel);
+    args.writeDouble(sampleFrequency);
+    args.writeInt(bufferSize);
+    args.writeBoolean(isScale2Volts);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    begin(Op.StartCaptureLevelTrigger);
+    args.writeDouble(sampleFrequency);
+    args.writeDouble(triggerLevel);
+    args.writeInt(bufferSize);
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    begin(Op.StartCaptureImmediately);
+    args.writeDouble(sampleFrequency);
+    args.writeInt(bufferSize);
+    args.writeString(acquisitionMode.name());
+    return readBoolean(end());
+  }
+
+  @Override
+  public synchronized boolean stopAnalogCaptureBothChannels() {
+
+    begin(Op.StopCapture);
+    return readBoolean(end());
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Log //////////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  private void writePulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    args.writeInt(idxChannel);
+    args.writeDouble(frequency);
+    args.writeDouble(offset);
+    args.writeInt(numPulses);
+    args.writeBuffer(rgdData);
+  }
+
+  private void begin(Op op) {
+
+    this.op = op;
+    args.reset();
+  }
+
+  /**
+   * Finds the recorded counterpart of the present call.
+   *
+   * @return its result, or null if there is none
+   */
+  private Decoder end() {
+
+    for (int i = 0; i < LOOKAHEAD; i++) {
+      if (i == pending.size() && !readAhead()) {
+        break;
+      }
+      Frame frame = pending.get(i);
+      if (frame.getOp() != op) {
+        continue;
+      }
+
+      if (i > 0) {
+        if (skippedCount == 0) {
+          logger.warn("Replay diverged from " + file + ", skipping recorded calls before " + op);
+        }
+        skippedCount += i;
+      }
+      pending.subList(0, i + 1).clear();
+      if (!Arrays.equals(args.toByteArray(), frame.getArgs())) {
+        if (argumentMismatchCount == 0) {
+          logger.warn("Replayed " + op + " with different arguments than recorded in " + file);
+        }
+        argumentMismatchCount++;
+      }
+      pace(frame.getTimestamp());
+      replayedCount++;
+      return new Decoder(frame.getResult());
+    }
+
+    if (unmatchedCount == 0) {
+      logger.warn("Replay diverged from " + file + ", " + op + " wasn't recorded");
+    }
+    unmatchedCount++;
+    return null;
+  }
+
+  /** @return false if the log is used up */
+  private boolean readAhead() {
+
+    if (isExhausted) {
+      return false;
+    }
+    try {
+      Frame frame = reader.read();
+      if (frame != null) {
+        pending.add(frame);
+        return true;
+      }
+    } catch (IOException e) {
+      logger.error("Could not read device session log: " + file, e);
+    }
+    isExhausted = true;
+    return false;
+  }
+
+  private void pace(long timestamp) {
+
+    if (!isPaced) {
+      return;
+    }
+    long waitNanos = startNanos + timestamp - System.nanoTime();
+    if (waitNanos <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean readBoolean(Decoder result) {
+
+    return result == null || result.readBoolean();
+  }
+}
@@ -0,0 +1,418 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The binary format of a device session log, as written by {@link RecordingBackend} and served
+ * back by {@link ReplayBackend}.
+ *
+ * <p>A log starts with {@link #MAGIC}, {@link #FORMAT_VERSION} and the wall-clock start time in
+ * milliseconds. It is followed by one frame per device call: the {@link Op} code, the nanoseconds
+ * since the start, then the length-prefixed arguments and the length-prefixed result. All numbers
+ * are big-endian. AWG buffers are written in full the first time they are seen and by index after
+ * that, so a session that replays the same pulse thousands of times stays small.
+ */
+public class SessionLog {
+
+  /**
+   * Bump this whenever the frame layout or the meaning of an op changes, old logs are then
+   * rejected.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  public static final int MAGIC = 0x4d44534c; // "MDSL"
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** The device calls, the ordinal is written to the log so only ever append to this. */
+  public enum Op {
+    DeviceOpen,
+    DeviceCloseAll,
+    GetLastErrorMsg,
+    DeviceAutoConfigureSet,
+    DigitalIOOutputEnableSet,
+    DigitalIOOutputSet,
+    DigitalIOConfigure,
+    DigitalIOStatus,
+    DigitalIOReset,
+    DigitalOutReset,
+    PowerSupply,
+    AnalogOutNodeOffsetSet,
+    AnalogOutConfigure,
+    StartWave,
+    StopWave,
+    StartPulseTrain,
+    SetCustomPulseTrain,
+    StartCustomPulseTrain,
+    AnalogInChannelEnableSet,
+    AnalogInChannelRangeSet,
+    AnalogInConfigure,
+    AnalogInStatus,
+    AnalogInStatusSamplesValid,
+    AnalogInStatusData,
+    StartCaptureTriggerOnWaveformGenerator,
+    StartCaptureLevelTrigger,
+    StartCaptureImmediately,
+    StopCapture
+  }
+
+  /** One device call. The byte arrays must not be modified. */
+  public static class Frame {
+
+    private final Op op;
+    private final long timestamp;
+    private final byte[] args;
+    private final byte[] result;
+
+    public Frame(Op op, long timestamp, byte[] args, byte[] result) {
+
+      this.op = op;
+      this.timestamp = timestamp;
+      this.args = args;
+      this.result = result;
+    }
+
+    public Op getOp() {
+
+      return op;
+    }
+
+    /** @return nanoseconds since the session started */
+    public long getTimestamp() {
+
+      return timestamp;
+    }
+
+    public byte[] getArgs() {
+
+      return args;
+    }
+
+    public byte[] getResult() {
+
+      return result;
+    }
+  }
+
+  /** Appends frames to a new log file. */
+  public static class Writer implements Closeable {
+
+    private final DataOutputStream out;
+    private final long startNanos;
+
+    public Writer(File file) throws IOException {
+
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+      startNanos = System.nanoTime();
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(System.currentTimeMillis());
+    }
+
+    /** @return nanoseconds since the log was created, for the timestamp of the next frame */
+    public long getElapsedNanos() {
+
+      return System.nanoTime() - startNanos;
+    }
+
+    public void write(Op op, long timestamp, Encoder args, Encoder result) throws IOException {
+
+      out.writeByte(op.ordinal());
+      out.writeLong(timestamp);
+      out.writeInt(args.size());
+      args.writeTo(out);
+      out.writeInt(result.size());
+      result.writeTo(out);
+    }
+
+    public void flush() throws IOException {
+
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+      out.close();
+    }
+  }
+
+  /** Reads the frames of a log in order. */
+  public static class Reader implements Closeable {
+
+    private final DataInputStream in;
+    private final long startTime;
+
+    public Reader(File file) throws IOException {
+
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+      try {
+        if (in.readInt() != MAGIC) {
+          throw new IOException("Not a device session log: " + file);
+        }
+        int formatVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+          throw new IOException(
+              "Unsupported device session log version " + formatVersion + ": " + file);
+        }
+        startTime = in.readLong();
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+    }
+
+    /** @return the wall-clock time the session was recorded, in milliseconds */
+    public long getStartTime() {
+
+      return startTime;
+    }
+
+    /**
+     * @return the next frame, or null at the end of the log. A frame cut off by a crash while
+     *     recording counts as the end.
+     */
+    public Frame read() throws IOException {
+
+      int opCode = in.read();
+      if (opCode < 0) {
+        return null;
+      }
+      if (opCode >= Op.values().length) {
+        throw new IOException("Unknown op code in device session log: " + opCode);
+      }
+      try {
+        long timestamp = in.readLong();
+        byte[] args = new byte[in.readInt()];
+        in.readFully(args);
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return new Frame(Op.values()[opCode], timestamp, args, result);
+      } catch (EOFException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+      in.close();
+    }
+  }
+
+  /**
+   * Serializes the arguments or the result of one call. It is reused frame after frame with
+   * {@link #reset()}, the table of AWG buffers already written is kept.
+   */
+  public static class Encoder extends ByteArrayOutputStream {
+
+    private final Map<BufferKey, Integer> bufferIndices = new HashMap<BufferKey, Integer>();
+
+    public void writeBoolean(boolean value) {
+
+      write(value ? 1 : 0);
+    }
+
+    public void writeByte(byte value) {
+
+      write(value);
+    }
+
+    public void writeInt(int value) {
+
+      write(value >>> 24);
+      write(value >>> 16);
+      write(value >>> 8);
+      write(value);
+    }
+
+    public void writeLong(long value) {
+
+      writeInt((int) (value >>> 32));
+      writeInt((int) value);
+    }
+
+    public void writeDouble(double value) {
+
+      writeLong(Double.doubleToLongBits(value));
+    }
+
+    /** @param value may be null */
+    public void writeString(String value) {
+
+      if (value == null) {
+        writeInt(-1);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeInt(bytes.length);
+      write(bytes, 0, bytes.length);
+    }
+
+    /** @param values may be null */
+    public void writeDoubles(double[] values) {
+
+      if (values == null) {
+        writeInt(-1);
+        return;
+      }
+      writeInt(values.length);
+      for (double value : values) {
+        writeDouble(value);
+      }
+    }
+
+    /**
+     * Writes an AWG buffer in full the first time its content is seen, and just its index after
+     * that.
+     *
+     * @param values may be null
+     */
+    public void writeBuffer(double[] values) {
+
+      if (values == null) {
+        writeInt(-1);
+        return;
+      }
+      BufferKey key = new BufferKey(values);
+      Integer index = bufferIndices.get(key);
+      if (index != null) {
+        writeInt(index);
+        return;
+      }
+      index = bufferIndices.size();
+      bufferIndices.put(new BufferKey(values.clone()), index);
+      writeInt(index);
+      writeDoubles(values);
+    }
+  }
+
+  /** Reads back what an {@link Encoder} wrote. */
+  public static class Decoder {
+
+    private final ByteBuffer byteBuffer;
+
+    public Decoder(byte[] bytes) {
+
+      byteBuffer = ByteBuffer.wrap(bytes);
+    }
+
+    public boolean readBoolean() {
+
+      return byteBuffer.get() != 0;
+    }
+
+    public byte readByte() {
+
+      return byteBuffer.get();
+    }
+
+    public int readInt() {
+
+      return byteBuffer.getInt();
+    }
+
+    public long readLong() {
+
+      return byteBuffer.getLong();
+    }
+
+    public double readDouble() {
+
+      return byteBuffer.getDouble();
+    }
+
+    public String readString() {
+
+      int length = byteBuffer.getInt();
+      if (length < 0) {
+        return null;
+      }
+      byte[] bytes = new byte[length];
+      byteBuffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public double[] readDoubles() {
+
+      int length = byteBuffer.getInt();
+      if (length < 0) {
+        return null;
+      }
+      double[] values = new double[length];
+      byteBuffer.asDoubleBuffer().get(values);
+      byteBuffer.position(byteBuffer.position() + length * Double.BYTES);
+      return values;
+    }
+  }
+
+  /** content-equality key for AWG buffers */
+  private static final class BufferKey {
+
+    private final double[] values;
+    private final int hashCode;
+
+    BufferKey(double[] values) {
+
+      this.values = values;
+      this.hashCode = Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BufferKey)) {
+        return false;
+      }
+      BufferKey bufferKey = (BufferKey) o;
+      return hashCode == bufferKey.hashCode && Arrays.equals(values, bufferKey.values);
+    }
+
+    @Override
+    public int hashCode() {
+
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.simulator;
+
+/**
+ * Mean-field version of Knowm's metastable switch (MSS) memristor model. The device is a large
+ * number of two-state switches in parallel, onFraction of them in the low resistance state. A
+ * switch turns on with a probability that rises sharply around vOn and off around -vOff, both with
+ * the thermal voltage as width. For a voltage held over dt the fraction relaxes exponentially
+ * towards its equilibrium, which is exact and stable for any dt.
+ */
+public class MSSMemristorModel implements MemristorModel {
+
+  /** kT/q at 25C */
+  public static final double THERMAL_VOLTAGE = 0.02569;
+
+  // in the range of Knowm's SDC devices, with thresholds high enough that a device at rest keeps
+  // its state for hours and read pulses barely disturb it
+  public static final double DEFAULT_R_ON = 5_000;
+  public static final double DEFAULT_R_OFF = 100_000;
+  public static final double DEFAULT_V_ON = 0.5;
+  public static final double DEFAULT_V_OFF = 0.5;
+  public static final double DEFAULT_TAU = 1E-4;
+
+  private final double rOn;
+  private final double rOff;
+  private final double vOn;
+  private final double vOff;
+  private final double tau;
+
+  private double onFraction;
+
+  /** Constructor for an erased device with the default parameters */
+  public MSSMemristorModel() {
+
+    this(DEFAULT_R_ON, DEFAULT_R_OFF, DEFAULT_V_ON, DEFAULT_V_OFF, DEFAULT_TAU, 0);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param rOn resistance with all switches on
+   * @param rOff resistance with all switches off
+   * @param vOn write threshold
+   * @param vOff erase threshold, as a positive number
+   * @param tau switching time constant in seconds
+   * @param onFraction initial state, 0 is erased and 1 fully written
+   */
+  public MSSMemristorModel(
+      double rOn, double rOff, double vOn, double vOff, double tau, double onFraction) {
+
+    this.rOn = rOn;
+    this.rOff = rOff;
+    this.vOn = vOn;
+    this.vOff = vOff;
+    this.tau = tau;
+    this.onFraction = onFraction;
+  }
+
+  @Override
+  public double getResistance() {
+
+    return 1 / (onFraction / rOn + (1 - onFraction) / rOff);
+  }
+
+  @Override
+  public void step(double voltage, double dt) {
+
+    double onRate = 1 / (1 + Math.exp(-(voltage - vOn) / THERMAL_VOLTAGE)) / tau;
+    double offRate = 1 / (1 + Math.exp((voltage + vOff) / THERMAL_VOLTAGE)) / tau;
+    double totalRate = onRate + offRate;
+    if (totalRate <= 0) {
+      return;
+    }
+    double equilibrium = onRate / totalRate;
+    onFraction = equilibrium + (onFraction - equilibrium) * Math.exp(-totalRate * dt);
+  }
+
+  public double getOnFraction() {
+
+    return onFraction;
+  }
+
+  public void setOnFraction(double onFraction) {
+
+    this.onFraction = onFraction;
+  }
+}
@@ -0,0 +1,678 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.simulator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.knowm.memristor.discovery.DeviceBackend;
+import org.knowm.waveforms4j.DWF;
+import org.knowm.waveforms4j.DWF.AcquisitionMode;
+import org.knowm.waveforms4j.DWF.Waveform;
+
+/**
+ * A {@link DeviceBackend} that simulates an AD2 attached to a Memristor Discovery board, so the
+ * experiments can run without hardware, e.g. headless on a CI machine with {@code new
+ * DWFProxy(boardVersion, new SimulatedBackend(boardVersion))}.
+ *
+ * <p>Waveform generator channel 1 drives the {@link SimulatedBoard}, channel 2 is generated but
+ * not connected. The DIO word closes the memristor switches while the positive supply is on. A
+ * pulse train is played out in simulated time the moment it starts, recording into the scope
+ * buffers if a capture is armed for it. A continuous wave only advances the board while it is
+ * being captured.
+ *
+ * <p>By default everything completes immediately. In real time mode the scope takes {@link
+ * #ARM_LATENCY_NANOS} to arm and only reports a capture done once its acquisition time has
+ * passed, as the AD2 would.
+ */
+public class SimulatedBackend implements DeviceBackend {
+
+  public static final long ARM_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+  /** Custom waveforms are normalized by WaveformUtils and played with this amplitude. */
+  public static final double CUSTOM_WAVEFORM_AMPLITUDE = 5.0;
+
+  // DwfState values
+  private static final byte STATE_READY = 0;
+  private static final byte STATE_ARMED = 1;
+  private static final byte STATE_DONE = 2;
+  private static final byte STATE_TRIGGERED = 3;
+  private static final byte STATE_PREFILL = 5;
+
+  private final SimulatedBoard board;
+  private final AnalogOutChannel[] analogOutChannels = {
+    new AnalogOutChannel(), new AnalogOutChannel()
+  };
+  private final Random random = new Random(0);
+
+  private boolean isAttached = true;
+  private boolean isOpen = false;
+  private String lastErrorMsg = "";
+  private boolean isRealTime = false;
+  private double noise = 0;
+
+  /** simulated seconds, advanced as waveforms are played */
+  private double time = 0;
+
+  // Digital I/O
+  private int dioOutputEnableMask = 0;
+  private int dioOutputSetMask = 0;
+  private int dioStates = 0;
+  private double positiveSupply = 0;
+
+  // Analog In
+  private Trigger trigger = Trigger.None;
+  private int triggerChannel = 0;
+  private double triggerLevel = 0;
+  private boolean isScanMode = false;
+  private double sampleFrequency = 0;
+  private int bufferSize = 0;
+  private byte analogInState = STATE_READY;
+  private double[][] samples = new double[2][0];
+  private int validSamples = 0;
+  private long armedAtNanos = 0;
+  private long doneAtNanos = 0;
+
+  /**
+   * Constructor
+   *
+   * @param boardVersion
+   */
+  public SimulatedBackend(int boardVersion) {
+
+    this(new SimulatedBoard(boardVersion));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param board
+   */
+  public SimulatedBackend(SimulatedBoard board) {
+
+    this.board = board;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Device ///////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDeviceOpen() {
+
+    if (!isAttached) {
+      lastErrorMsg = "No simulated device attached.";
+      return false;
+    }
+    lastErrorMsg = "";
+    isOpen = true;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceCloseAll() {
+
+    isOpen = false;
+    for (AnalogOutChannel analogOutChannel : analogOutChannels) {
+      analogOutChannel.isRunning = false;
+    }
+    analogInState = STATE_READY;
+    dioOutputEnableMask = 0;
+    dioOutputSetMask = 0;
+    dioStates = 0;
+    positiveSupply = 0;
+    updateSwitches();
+    return true;
+  }
+
+  @Override
+  public synchronized String FDwfGetLastErrorMsg() {
+
+    return lastErrorMsg;
+  }
+
+  @Override
+  public synchronized boolean FDwfDeviceAutoConfigureSet(boolean autoConfigure) {
+
+    return isOpen;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Digital I/O //////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputEnableSet(int outputEnableMask) {
+
+    dioOutputEnableMask = outputEnableMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOOutputSet(int outputSetMask) {
+
+    dioOutputSetMask = outputSetMask;
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOConfigure() {
+
+    if (!isOpen) {
+      return false;
+    }
+    dioStates = dioOutputSetMask & dioOutputEnableMask;
+    updateSwitches();
+    return true;
+  }
+
+  @Override
+  public synchronized int getDigitalIOStatus() {
+
+    return dioStates;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalIOReset() {
+
+    dioOutputEnableMask = 0;
+    dioOutputSetMask = 0;
+    dioStates = 0;
+    updateSwitches();
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfDigitalOutReset() {
+
+    return isOpen;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog I/O ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean setPowerSupply(int idxChannel, double value) {
+
+    if (!isOpen) {
+      return false;
+    }
+    if (idxChannel == 0) {
+      positiveSupply = value;
+      updateSwitches();
+    }
+    return true;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog Out ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogOutNodeOffsetSet(int idxChannel, double offset) {
+
+    AnalogOutChannel analogOutChannel = getAnalogOutChannel(idxChannel);
+    if (analogOutChannel == null) {
+      return false;
+    }
+    analogOutChannel.offset = offset;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogOutConfigure(int idxChannel, boolean start) {
+
+    if (start) {
+      return startAnalogOut(idxChannel);
+    }
+    return stopWave(idxChannel);
+  }
+
+  @Override
+  public synchronized boolean startWave(
+      int idxChannel,
+      Waveform waveform,
+      double frequency,
+      double amplitude,
+      double offset,
+      double dutyCycle) {
+
+    AnalogOutChannel analogOutChannel = getAnalogOutChannel(idxChannel);
+    if (analogOutChannel == null || frequency <= 0) {
+      return false;
+    }
+    analogOutChannel.waveform = waveform;
+    analogOutChannel.frequency = frequency;
+    analogOutChannel.amplitude = amplitude;
+    analogOutChannel.offset = offset;
+    analogOutChannel.dutyCycle = dutyCycle;
+    analogOutChannel.isConfigured = true;
+    return startAnalogOut(idxChannel);
+  }
+
+  @Override
+  public synchronized boolean stopWave(int idxChannel) {
+
+    AnalogOutChannel analogOutChannel = getAnalogOutChannel(idxChannel);
+    if (analogOutChannel == null) {
+      return false;
+    }
+    analogOutChannel.isRunning = false;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean startPulseTrain(int idxChannel) {
+
+    return startAnalogOut(idxChannel);
+  }
+
+  @Override
+  public synchronized boolean setCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    AnalogOutChannel analogOutChannel = getAnalogOutChannel(idxChannel);
+    if (analogOutChannel == null || frequency <= 0 || rgdData == null || rgdData.length == 0) {
+      return false;
+    }
+    analogOutChannel.waveform = null;
+    analogOutChannel.frequency = frequency;
+    analogOutChannel.offset = offset;
+    analogOutChannel.numPulses = numPulses;
+    analogOutChannel.data = rgdData.clone();
+    analogOutChannel.isConfigured = true;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean startCustomPulseTrain(
+      int idxChannel, double frequency, double offset, int numPulses, double[] rgdData) {
+
+    return setCustomPulseTrain(idxChannel, frequency, offset, numPulses, rgdData)
+        && startAnalogOut(idxChannel);
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Analog In ////////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelEnableSet(int idxChannel, boolean enable) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInChannelRangeSet(int idxChannel, double voltsRange) {
+
+    return isOpen;
+  }
+
+  @Override
+  public synchronized boolean FDwfAnalogInConfigure(boolean reconfigure, boolean start) {
+
+    if (!isOpen) {
+      return false;
+    }
+    if (!start) {
+      analogInState = STATE_READY;
+      return true;
+    }
+    if (trigger == Trigger.None) {
+      return false;
+    }
+    arm();
+    return true;
+  }
+
+  @Override
+  public synchronized byte FDwfAnalogInStatus(boolean readData) {
+
+    if (!isOpen) {
+      lastErrorMsg = "The simulated device is not open.";
+      return -1;
+    }
+    if (readData && isScanMode && analogInState == STATE_TRIGGERED) {
+      record();
+    }
+    if (isRealTime) {
+      long now = System.nanoTime();
+      if (analogInState == STATE_ARMED && now < armedAtNanos) {
+        return STATE_PREFILL;
+      }
+      if (analogInState == STATE_DONE && now < doneAtNanos) {
+        return STATE_TRIGGERED;
+      }
+    }
+    return analogInState;
+  }
+
+  @Override
+  public synchronized int FDwfAnalogInStatusSamplesValid() {
+
+    if (analogInState == STATE_DONE && (!isRealTime || System.nanoTime() >= doneAtNanos)) {
+      return validSamples;
+    }
+    if (analogInState == STATE_TRIGGERED && isScanMode) {
+      return validSamples;
+    }
+    return 0;
+  }
+
+  @Override
+  public synchronized double[] FDwfAnalogInStatusData(int idxChannel, int bufferSize) {
+
+    if (idxChannel < 0 || idxChannel >= samples.length) {
+      return null;
+    }
+    double[] data = new double[bufferSize];
+    System.arraycopy(samples[idxChannel], 0, data, 0, Math.min(bufferSize, validSamples));
+    return data;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+      int idxChannel, double sampleFrequency, int bufferSize, boolean isScale2Volts) {
+
+    if (!configureAnalogIn(Trigger.WaveformGenerator, sampleFrequency, bufferSize)) {
+      return false;
+    }
+    triggerChannel = idxChannel;
+    arm();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsLevelTrigger(
+      double sampleFrequency, double triggerLevel, int bufferSize) {
+
+    if (!configureAnalogIn(Trigger.Level, sampleFrequency, bufferSize)) {
+      return false;
+    }
+    this.triggerLevel = triggerLevel;
+    arm();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean startAnalogCaptureBothChannelsImmediately(
+      double sampleFrequency, int bufferSize, AcquisitionMode acquisitionMode) {
+
+    if (!configureAnalogIn(Trigger.Immediate, sampleFrequency, bufferSize)) {
+      return false;
+    }
+    isScanMode = acquisitionMode == AcquisitionMode.ScanShift;
+    arm();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean stopAnalogCaptureBothChannels() {
+
+    analogInState = STATE_READY;
+    return isOpen;
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Simulation ///////////////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  private AnalogOutChannel getAnalogOutChannel(int idxChannel) {
+
+    if (!isOpen || idxChannel < 0 || idxChannel >= analogOutChannels.length) {
+      return null;
+    }
+    return analogOutChannels[idxChannel];
+  }
+
+  private void updateSwitches() {
+
+    board.setSwitches(positiveSupply > 0 ? dioStates : 0);
+  }
+
+  private boolean configureAnalogIn(Trigger trigger, double sampleFrequency, int bufferSize) {
+
+    if (!isOpen || sampleFrequency <= 0 || bufferSize <= 0) {
+      return false;
+    }
+    this.trigger = trigger;
+    this.sampleFrequency = sampleFrequency;
+    this.bufferSize = bufferSize;
+    isScanMode = false;
+    if (samples[0].length != bufferSize) {
+      samples = new double[2][bufferSize];
+    }
+    return true;
+  }
+
+  private void arm() {
+
+    validSamples = 0;
+    if (trigger == Trigger.Immediate) {
+      record();
+      return;
+    }
+    analogInState = STATE_ARMED;
+    armedAtNanos = System.nanoTime() + (isRealTime ? ARM_LATENCY_NANOS : 0);
+  }
+
+  private boolean isArmed() {
+
+    return analogInState == STATE_ARMED && (!isRealTime || System.nanoTime() >= armedAtNanos);
+  }
+
+  /**
+   * Starts a configured output and plays it out. A capture armed for it is recorded on the way.
+   */
+  private boolean startAnalogOut(int idxChannel) {
+
+    AnalogOutChannel analogOutChannel = getAnalogOutChannel(idxChannel);
+    if (analogOutChannel == null || !analogOutChannel.isConfigured) {
+      return false;
+    }
+    analogOutChannel.isRunning = true;
+    analogOutChannel.startTime = time;
+
+    if (isArmed() && trigger == Trigger.WaveformGenerator && triggerChannel == idxChannel) {
+      record();
+    } else if (isArmed() && trigger == Trigger.Level) {
+      searchLevelTrigger(analogOutChannel.getDuration());
+    }
+
+    // play out the rest of a pulse train on the channel that drives the board
+    if (idxChannel == DWF.WAVEFORM_CHANNEL_1) {
+      double remaining = analogOutChannel.startTime + analogOutChannel.getDuration() - time;
+      if (remaining > 0 && !Double.isInfinite(remaining)) {
+        advance(remaining, analogOutChannel.getStepSize());
+      }
+    }
+    return true;
+  }
+
+  private double getSourceVoltage() {
+
+    return analogOutChannels[DWF.WAVEFORM_CHANNEL_1].getVoltage(time);
+  }
+
+  private void advance(double duration, double dt) {
+
+    long steps = (long) Math.ceil(duration / dt);
+    for (long i = 0; i < steps; i++) {
+      board.step(getSourceVoltage(), dt);
+      time += dt;
+    }
+  }
+
+  /** Fills the scope buffers from the present simulated time. */
+  private void record() {
+
+    double dt = 1 / sampleFrequency;
+    for (int i = 0; i < bufferSize; i++) {
+      double sourceVoltage = getSourceVoltage();
+      samples[0][i] = board.getScopeVoltage(DWF.OSCILLOSCOPE_CHANNEL_1, sourceVoltage);
+      samples[1][i] = board.getScopeVoltage(DWF.OSCILLOSCOPE_CHANNEL_2, sourceVoltage);
+      if (noise > 0) {
+        samples[0][i] += noise * random.nextGaussian();
+        samples[1][i] += noise * random.nextGaussian();
+      }
+      board.step(sourceVoltage, dt);
+      time += dt;
+    }
+    validSamples = bufferSize;
+    analogInState = isScanMode ? STATE_TRIGGERED : STATE_DONE;
+    doneAtNanos =
+        System.nanoTime() + (isRealTime ? (long) (bufferSize / sampleFrequency * 1E9) : 0);
+  }
+
+  /**
+   * Advances sample by sample until scope channel 1 crosses the trigger level, then records.
+   *
+   * @param duration how long the output that might trigger runs, infinite for a continuous wave
+   */
+  private void searchLevelTrigger(double duration) {
+
+    double dt = 1 / sampleFrequency;
+    long steps = (long) Math.ceil(Math.min(duration, bufferSize * dt) / dt);
+    double previous = board.getScopeVoltage(DWF.OSCILLOSCOPE_CHANNEL_1, getSourceVoltage());
+    for (long i = 0; i < steps; i++) {
+      board.step(getSourceVoltage(), dt);
+      time += dt;
+      double present = board.getScopeVoltage(DWF.OSCILLOSCOPE_CHANNEL_1, getSourceVoltage());
+      boolean isCrossed =
+          triggerLevel >= 0
+              ? previous < triggerLevel && present >= triggerLevel
+              : previous > triggerLevel && present <= triggerLevel;
+      if (isCrossed) {
+        record();
+        return;
+      }
+      previous = present;
+    }
+  }
+
+  // ///////////////////////////////////////////////////////////
+  // Getters and Setters //////////////////////////////////////
+  // ///////////////////////////////////////////////////////////
+
+  public SimulatedBoard getBoard() {
+
+    return board;
+  }
+
+  /** @return the simulated seconds that passed so far */
+  public synchronized double getTime() {
+
+    return time;
+  }
+
+  /**
+   * @param isAttached false to have opening the device fail, as with no AD2 plugged in. An open
+   *     device is lost, as with a USB drop.
+   */
+  public synchronized void setAttached(boolean isAttached) {
+
+    this.isAttached = isAttached;
+    if (!isAttached && isOpen) {
+      FDwfDeviceCloseAll();
+      lastErrorMsg = "The simulated device was unplugged.";
+    }
+  }
+
+  /** @param isRealTime true to make arming and captures take as long as they would on an AD2 */
+  public synchronized void setRealTime(boolean isRealTime) {
+
+    this.isRealTime = isRealTime;
+  }
+
+  /** @param noise standard deviation in volts of the noise added to every scope sample */
+  public synchronized void setNoise(double noise) {
+
+    this.noise = noise;
+  }
+
+  private enum Trigger {
+    None,
+    WaveformGenerator,
+    Level,
+    Immediate
+  }
+
+  /** One waveform generator channel, a custom pulse train if waveform is null. */
+  private static class AnalogOutChannel {
+
+    private Waveform waveform = null;
+    private double frequency = 0;
+    private double amplitude = 0;
+    private double offset = 0;
+    private double dutyCycle = 50;
+    private int numPulses = 0;
+    private double[] data = new double[0];
+    private boolean isConfigured = false;
+    private boolean isRunning = false;
+    private double startTime = 0;
+
+    /** @return seconds the output runs for, infinite for a continuous wave */
+    private double getDuration() {
+
+      return waveform == null ? numPulses / frequency : Double.POSITIVE_INFINITY;
+    }
+
+    /** @return the integration step, fine enough to follow the waveform */
+    private double getStepSize() {
+
+      return waveform == null ? 1 / (frequency * data.length) : 1 / (frequency * 1000);
+    }
+
+    /**
+     * @param t simulated seconds
+     * @return the output voltage
+     */
+    private double getVoltage(double t) {
+
+      double elapsed = t - startTime;
+      if (!isRunning || elapsed < 0) {
+        return 0;
+      }
+      double phase = elapsed * frequency - Math.floor(elapsed * frequency);
+      if (waveform == null) {
+        if (elapsed >= getDuration()) {
+          return offset;
+        }
+        return offset
+            + CUSTOM_WAVEFORM_AMPLITUDE
+                * data[Math.min((int) (phase * data.length), data.length - 1)];
+      }
+      switch (waveform) {
+        case Sine:
+          return offset + amplitude * Math.sin(2 * Math.PI * phase);
+        case Square:
+          return offset + (phase < dutyCycle / 100 ? amplitude : -amplitude);
+        case Triangle:
+          return offset + amplitude * (phase < 0.5 ? 4 * phase - 1 : 3 - 4 * phase);
+        default:
+          return offset;
+      }
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.core.simulator;
+
+import org.knowm.memristor.discovery.core.rc_engine.RC_AnalyticSolver;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.waveforms4j.DWF;
+
+/**
+ * The read circuit of a Memristor Discovery board, with the topologies of {@link
+ * org.knowm.memristor.discovery.core.rc_engine.MD_V0_V1_Board} and {@link
+ * org.knowm.memristor.discovery.core.rc_engine.MD_V2_Board}:
+ *
+ * <p>V0/V1: source --Rm-- node 2 --(Rs || scope || C)-- ground, scope 1 on the source and scope 2
+ * on node 2
+ *
+ * <p>V2: source --Rs-- node 2 --(Rm || scope || C)-- ground, scope 2 on the source and scope 1 on
+ * node 2
+ *
+ * <p>Rm is the memristors whose switches are closed in parallel, each in series with the switch
+ * and trace resistance. With no switch closed node 2 only sees the scope. Node 2 is integrated
+ * exactly for a source voltage held over each step, {@link RC_AnalyticSolver} is the special case
+ * of a step from zero.
+ */
+public class SimulatedBoard {
+
+  public static final int MEMRISTOR_COUNT = 16;
+
+  /** The DIO bits that close a memristor switch. The upper bits select MUXes on some boards. */
+  public static final int DEFAULT_MEMRISTOR_MASK = 0x00FF;
+
+  public static final double DEFAULT_SERIES_RESISTANCE = 5_000;
+  public static final double DEFAULT_CAPACITANCE = 140E-12;
+
+  private final int boardVersion;
+  private final MemristorModel[] memristors = new MemristorModel[MEMRISTOR_COUNT];
+
+  private double seriesResistance = DEFAULT_SERIES_RESISTANCE;
+  private double switchResistance = ExperimentPreferences.TOTAL_PARASITIC_RESISTANCE;
+  private double capacitance = DEFAULT_CAPACITANCE;
+  private int memristorMask = DEFAULT_MEMRISTOR_MASK;
+
+  private int closedSwitches = 0;
+  private double nodeVoltage = 0;
+
+  /**
+   * Constructor, with an erased {@link MSSMemristorModel} behind every switch
+   *
+   * @param boardVersion
+   */
+  public SimulatedBoard(int boardVersion) {
+
+    this.boardVersion = boardVersion;
+    for (int i = 0; i < MEMRISTOR_COUNT; i++) {
+      memristors[i] = new MSSMemristorModel();
+    }
+  }
+
+  /**
+   * Closes the switches whose bits are set, as far as they are in the memristor mask.
+   *
+   * @param dioStates the DIO word, 0 if the board isn't powered
+   */
+  public void setSwitches(int dioStates) {
+
+    closedSwitches = dioStates & memristorMask;
+  }
+
+  /**
+   * Advances node 2 and the connected memristors.
+   *
+   * @param sourceVoltage the waveform generator output, held for the whole step
+   * @param dt seconds
+   */
+  public void step(double sourceVoltage, double dt) {
+
+    double memristorConductance = 0;
+    for (int i = 0; i < MEMRISTOR_COUNT; i++) {
+      if ((closedSwitches & (1 << i)) != 0) {
+        memristorConductance += 1 / (memristors[i].getResistance() + switchResistance);
+      }
+    }
+
+    double vThevenin;
+    double rThevenin;
+    if (boardVersion == 2) {
+      double rBottom =
+          memristorConductance == 0
+              ? RC_AnalyticSolver.SCOPE_INPUT_RESISTANCE
+              : parallel(1 / memristorConductance, RC_AnalyticSolver.SCOPE_INPUT_RESISTANCE);
+      vThevenin = sourceVoltage * rBottom / (seriesResistance + rBottom);
+      rThevenin = parallel(seriesResistance, rBottom);
+    } else {
+      double rBottom = parallel(seriesResistance, RC_AnalyticSolver.SCOPE_INPUT_RESISTANCE);
+      if (memristorConductance == 0) {
+        vThevenin = 0;
+        rThevenin = rBottom;
+      } else {
+        double rTop = 1 / memristorConductance;
+        vThevenin = sourceVoltage * rBottom / (rTop + rBottom);
+        rThevenin = parallel(rTop, rBottom);
+      }
+    }
+
+    double tau = rThevenin * capacitance;
+    if (tau <= 0) {
+      nodeVoltage = vThevenin;
+    } else {
+      nodeVoltage = vThevenin + (nodeVoltage - vThevenin) * Math.exp(-dt / tau);
+    }
+
+    // the V2 board has the memristors from ground to node 2, so they see the inverted node voltage
+    double branchVoltage = boardVersion == 2 ? -nodeVoltage : sourceVoltage - nodeVoltage;
+    for (int i = 0; i < MEMRISTOR_COUNT; i++) {
+      if ((closedSwitches & (1 << i)) != 0) {
+        double resistance = memristors[i].getResistance();
+        memristors[i].step(branchVoltage * resistance / (resistance + switchResistance), dt);
+      }
+    }
+  }
+
+  /**
+   * @param scopeChannel
+   * @param sourceVoltage the waveform generator output at this moment
+   * @return what the scope channel measures
+   */
+  public double getScopeVoltage(int scopeChannel, double sourceVoltage) {
+
+    boolean isOnSource = (boardVersion == 2) == (scopeChannel == DWF.OSCILLOSCOPE_CHANNEL_2);
+    return isOnSource ? sourceVoltage : nodeVoltage;
+  }
+
+  /** Discharges node 2, the memristor states are kept. */
+  public void reset() {
+
+    nodeVoltage = 0;
+  }
+
+  /**
+   * @param index the DIO bit of the memristor's switch
+   * @return
+   */
+  public MemristorModel getMemristor(int index) {
+
+    return memristors[index];
+  }
+
+  /**
+   * @param index the DIO bit of the memristor's switch
+   * @param memristor
+   */
+  public void setMemristor(int index, MemristorModel memristor) {
+
+    memristors[index] = memristor;
+  }
+
+  public int getBoardVersion() {
+
+    return boardVersion;
+  }
+
+  public double getNodeVoltage() {
+
+    return nodeVoltage;
+  }
+
+  public void setSeriesResistance(double seriesResistance) {
+
+    this.seriesResistance = seriesResistance;
+  }
+
+  public void setSwitchResistance(double switchResistance) {
+
+    this.switchResistance = switchResistance;
+  }
+
+  public void setCapacitance(double capacitance) {
+
+    this.capacitance = capacitance;
+  }
+
+  public void setMemristorMask(int memristorMask) {
+
+    this.memristorMask = memristorMask;
+  }
+
+  private static double parallel(double r1, double r2) {
+
+    return r1 * r2 / (r1 + r2);
+  }
+}
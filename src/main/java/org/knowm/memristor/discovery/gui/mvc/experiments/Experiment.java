@@ -36,6 +36,9 @@ import org.knowm.memristor.discovery.gui.mvc.rightbar.RightBarPanel;
 
 public abstract class Experiment implements PropertyChangeListener {
 
+  /** how long stop() waits for the workers to return, they poll for cancellation */
+  private static final long STOP_TIMEOUT_MILLIS = 2000;
+
   public final DWFProxy dwfProxy;
 
   public final Container mainFrameContainer;
@@ -68,6 +71,9 @@ public abstract class Experiment implements PropertyChangeListener {
 
   public abstract void doCreateAndShowGUI();
 
+  /** @return the workers this experiment may have running on the AD2, unstarted ones are null */
+  protected abstract ExperimentWorker[] getWorkers();
+
   public void createAndShowGUI() {
 
     // //////////////////////
@@ -106,6 +112,38 @@ public abstract class Experiment implements PropertyChangeListener {
     // overridden.
   }
 
+  /**
+   * This is called from `MemristorDiscovery` before switching to another experiment, which keeps
+   * using the open AD2. Cancels the workers of this experiment and waits up to {@link
+   * #STOP_TIMEOUT_MILLIS} for them to return.
+   *
+   * @return true if a worker is still running after that, so it may still be using the AD2
+   */
+  public boolean stop() {
+
+    ExperimentWorker[] workers = getWorkers();
+    for (ExperimentWorker worker : workers) {
+      if (worker != null) {
+        worker.cancel(true);
+      }
+    }
+
+    long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+    boolean isStillRunning = false;
+    for (ExperimentWorker worker : workers) {
+      if (worker == null) {
+        continue;
+      }
+      try {
+        isStillRunning |= !worker.awaitExit(Math.max(0, deadline - System.currentTimeMillis()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return true;
+      }
+    }
+    return isStillRunning;
+  }
+
   /**
    * This is called from `MemristorDiscovery` when the Preferences window is closed and by the
    * Experiments when their models are created
@@ -0,0 +1,98 @@
+/**
+ * Memristor-Discovery is distributed under the GNU General Public License version 3 and is also
+ * available under alternative licenses negotiated directly with Knowm, Inc.
+ *
+ * <p>Copyright (c) 2016-2019 Knowm Inc. www.knowm.org
+ *
+ * <p>This package also includes various components that are not part of Memristor-Discovery itself:
+ *
+ * <p>* `Multibit`: Copyright 2011 multibit.org, MIT License * `SteelCheckBox`: Copyright 2012
+ * Gerrit, BSD license
+ *
+ * <p>Knowm, Inc. holds copyright and/or sufficient licenses to all components of the
+ * Memristor-Discovery package, and therefore can grant, at its sole discretion, the ability for
+ * companies, individuals, or organizations to create proprietary or open source (even if not GPL)
+ * modules which may be dynamically linked at runtime with the portions of Memristor-Discovery which
+ * fall under our copyright/license umbrella, or are distributed under more flexible licenses than
+ * GPL.
+ *
+ * <p>The 'Knowm' name and logos are trademarks owned by Knowm, Inc.
+ *
+ * <p>If you have any questions regarding our licensing policy, please contact us at
+ * `contact@knowm.org`.
+ */
+package org.knowm.memristor.discovery.gui.mvc.experiments;
+
+import javax.swing.SwingWorker;
+
+/**
+ * A worker of an {@link Experiment} that may drive the AD2. {@link #isDone()} is already true when
+ * a worker is cancelled, while its background work can still be using the AD2. This tracks when
+ * {@link #doWork()} has actually returned, so the AD2 is only handed on after that.
+ *
+ * @param <T> the result type
+ * @param <V> the type of the intermediate results, see {@link #publish}
+ */
+public abstract class ExperimentWorker<T, V> extends SwingWorker<T, V> {
+
+  private final Object lock = new Object();
+  private boolean isRunning = false;
+
+  /**
+   * The background work, run in place of {@link #doInBackground()}.
+   *
+   * @return
+   * @throws Exception
+   */
+  protected abstract T doWork() throws Exception;
+
+  @Override
+  protected final T doInBackground() throws Exception {
+
+    synchronized (lock) {
+      isRunning = true;
+    }
+    try {
+      // cancelled while starting up, stop() may not have seen this worker running
+      if (isCancelled()) {
+        return null;
+      }
+      return doWork();
+    } finally {
+      synchronized (lock) {
+        isRunning = false;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /** @return true while {@link #doWork()} runs, even after the worker was cancelled */
+  public boolean isRunning() {
+
+    synchronized (lock) {
+      return isRunning;
+    }
+  }
+
+  /**
+   * Waits for {@link #doWork()} to return, if it is running.
+   *
+   * @param timeoutMillis
+   * @return true if it isn't running anymore
+   * @throws InterruptedException
+   */
+  public boolean awaitExit(long timeoutMillis) throws InterruptedException {
+
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    synchronized (lock) {
+      while (isRunning) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        lock.wait(remaining);
+      }
+      return true;
+    }
+  }
+}
@@ -31,16 +31,17 @@ import java.text.DecimalFormat;
 import java.util.Arrays;
 import java.util.List;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
 import org.knowm.memristor.discovery.core.experiment_common.PulseUtility;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
 import org.knowm.memristor.discovery.core.gpio.MuxController.Destination;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibration;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.boardcheck.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.boardcheck.control.ControlModel;
@@ -53,13 +54,14 @@ import org.knowm.waveforms4j.DWF;
 public class BoardCheckExperiment extends Experiment {
 
   private static final float V_MUX_TEST = 1.5f; // the voltage used to test the waveform generators/muxes
-  private static final float V_READ = .1f;
-  private static final float V_WRITE = 1.5f;
-  private static final float V_RESET = -2f;
+  public static final float V_READ = .1f;
+  public static final float V_WRITE = 1.5f;
+  public static final float V_RESET = -2f;
   private static final float MIN_DEVIATION = .03F; // Line trace resistance, AD2 Calibration.
   private final MuxController muxController;
 
-  private static final int PULSE_WIDTH_IN_MICRO_SECONDS = 50_000;
+  public static final int PULSE_WIDTH_IN_MICRO_SECONDS = 50_000;
+  private static final int CALIBRATION_PULSE_WIDTH_IN_MICRO_SECONDS = 50; // short enough to resolve the RC rise
 
   // private static final float VOLTAGE_READ_NOISE_FLOOR = .001f; // if the measured voltage across
   // series resistor is less than this, you are getting
@@ -84,10 +86,11 @@ public class BoardCheckExperiment extends Experiment {
 
   // SwingWorkers
   //  private SwingWorker aHAH12X7TestWorker;
-  private SwingWorker meminlineTestWorker;
-  private SwingWorker muxTestWorker;
-  private SwingWorker switchTestWorker;
-  private SwingWorker clearConsoleWorker;
+  private ExperimentWorker meminlineTestWorker;
+  private ExperimentWorker muxTestWorker;
+  private ExperimentWorker switchTestWorker;
+  private ExperimentWorker rcCalibrationWorker;
+  private ExperimentWorker clearConsoleWorker;
   //  private SwingWorker synapse12TestWorker;
   //  private SwingWorker synapse12iTestWorker;
 
@@ -187,6 +190,16 @@ public class BoardCheckExperiment extends Experiment {
       }
     });
 
+    controlPanel.rcCalibrationButton.addActionListener(new ActionListener() {
+
+      @Override
+      public void actionPerformed(ActionEvent e) {
+
+        rcCalibrationWorker = new RcCalibrationWorker();
+        rcCalibrationWorker.execute();
+      }
+    });
+
     controlPanel.clearConsolButton.addActionListener(new ActionListener() {
 
       @Override
@@ -198,6 +211,18 @@ public class BoardCheckExperiment extends Experiment {
     });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {
+      meminlineTestWorker,
+      muxTestWorker,
+      switchTestWorker,
+      rcCalibrationWorker,
+      clearConsoleWorker
+    };
+  }
+
   float[] measureMuxDeviation(int dWFWaveformChannel, Destination destination) {
 
     muxController.setScope1(destination);
@@ -297,10 +322,10 @@ public class BoardCheckExperiment extends Experiment {
     return new BoardCheckPreferences();
   }
 
-  private class SwitchDiagnosticWorker extends SwingWorker<Boolean, Double> {
+  private class SwitchDiagnosticWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       resultController.addNewLine("");
       resultController.addNewLine("Testing Board Switches");
@@ -348,10 +373,10 @@ public class BoardCheckExperiment extends Experiment {
     }
   }
 
-  private class MuxDiagnosticWorker extends SwingWorker<Boolean, Double> {
+  private class MuxDiagnosticWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       if (boardVersion == 1) {
 
@@ -437,20 +462,56 @@ public class BoardCheckExperiment extends Experiment {
     }
   }
 
-  private class ClearConsoleWorker extends SwingWorker<Boolean, Double> {
+  private class RcCalibrationWorker extends ExperimentWorker<Boolean, Double> {
+
+    @Override
+    protected Boolean doWork() throws Exception {
+
+      int calibrationSwitch = controlModel.getCalibrationSwitch();
+      int calibrationResistance = controlModel.getCalibrationResistance();
+
+      resultController.addNewLine("");
+      resultController.addNewLine("RC Calibration");
+      if (boardVersion == 2) {
+        resultController.addNewLine("NOTE: V2 board must be in Mode 1");
+      }
+      resultController.addNewLine("Known resistor: " + calibrationResistance + "Ω on switch " + calibrationSwitch);
+      resultController.addNewLine("Series resistor: " + controlModel.getSeriesResistance() + "Ω");
+      resultController.addNewLine("");
+
+      RC_Calibration calibration = pulseUtility.calibrateReadCircuit(boardVersion == 2 ? -V_READ : V_READ, CALIBRATION_PULSE_WIDTH_IN_MICRO_SECONDS,
+          new int[]{calibrationSwitch}, new double[]{calibrationResistance});
+
+      if (calibration == null) {
+        resultController.addNewLine("PULSE CAPTURE FAILURE");
+        return true;
+      }
+
+      calibration.save();
+
+      resultController.addNewLine("Parasitic capacitance: " + new DecimalFormat("0.0 pF").format(calibration.getCapacitance() * 1E12));
+      resultController.addNewLine("Effective series resistance: " + new DecimalFormat("0 Ω").format(calibration.getSeriesResistance()));
+      resultController.addNewLine("Fit RMS error: " + new DecimalFormat("0.00 mV").format(calibration.getRmsError() * 1E3));
+      resultController.addNewLine("Saved for all V" + boardVersion + " boards, recalibrate after swapping boards");
+
+      return true;
+    }
+  }
+
+  private class ClearConsoleWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       resultController.clear();
       return true;
     }
   }
 
-  private class MeminlineTestWorker extends SwingWorker<Boolean, Double> {
+  private class MeminlineTestWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       // if its a v1 board, we must set the MUXes
 
@@ -41,6 +41,12 @@ public class BoardCheckPreferences extends ExperimentPreferences {
   private static final String PREFIX = "BOARDCHECK_";
   public static final String SERIES_R_INIT_KEY = PREFIX + "SERIES_R_INIT_KEY";
 
+  // known resistor used for the RC calibration
+  public static final String CALIBRATION_R_INIT_KEY = PREFIX + "CALIBRATION_R_INIT_KEY";
+  public static final int CALIBRATION_R_INIT_DEFAULT_VALUE = 10_000;
+  public static final String CALIBRATION_SWITCH_INIT_KEY = PREFIX + "CALIBRATION_SWITCH_INIT_KEY";
+  public static final int CALIBRATION_SWITCH_INIT_DEFAULT_VALUE = 1;
+
   /** Constructor */
   public BoardCheckPreferences() {
 
@@ -37,6 +37,12 @@ public class BoardCheckPreferencesPanel extends ExperimentPreferencesPanel {
   private JLabel seriesResistorLabel;
   private JTextField seriesResistorTextField;
 
+  private JLabel calibrationResistorLabel;
+  private JTextField calibrationResistorTextField;
+
+  private JLabel calibrationSwitchLabel;
+  private JTextField calibrationSwitchTextField;
+
   public BoardCheckPreferencesPanel(JFrame owner, String experimentName) {
 
     super(owner, experimentName);
@@ -64,6 +70,36 @@ public class BoardCheckPreferencesPanel extends ExperimentPreferencesPanel {
     preferencesPanel.add(seriesResistorTextField, gc);
 
     gc.gridy++;
+
+    gc.gridx = 0;
+    this.calibrationResistorLabel = new JLabel("Calibration Resistor (Ω):");
+    preferencesPanel.add(calibrationResistorLabel, gc);
+
+    gc.gridx = 1;
+    this.calibrationResistorTextField = new JTextField(12);
+    this.calibrationResistorTextField.setText(
+        String.valueOf(
+            experimentPreferences.getInteger(
+                BoardCheckPreferences.CALIBRATION_R_INIT_KEY,
+                BoardCheckPreferences.CALIBRATION_R_INIT_DEFAULT_VALUE)));
+    preferencesPanel.add(calibrationResistorTextField, gc);
+
+    gc.gridy++;
+
+    gc.gridx = 0;
+    this.calibrationSwitchLabel = new JLabel("Calibration Switch:");
+    preferencesPanel.add(calibrationSwitchLabel, gc);
+
+    gc.gridx = 1;
+    this.calibrationSwitchTextField = new JTextField(12);
+    this.calibrationSwitchTextField.setText(
+        String.valueOf(
+            experimentPreferences.getInteger(
+                BoardCheckPreferences.CALIBRATION_SWITCH_INIT_KEY,
+                BoardCheckPreferences.CALIBRATION_SWITCH_INIT_DEFAULT_VALUE)));
+    preferencesPanel.add(calibrationSwitchTextField, gc);
+
+    gc.gridy++;
   }
 
   @Override
@@ -72,6 +108,12 @@ public class BoardCheckPreferencesPanel extends ExperimentPreferencesPanel {
     experimentPreferences.setInteger(
         BoardCheckPreferences.SERIES_R_INIT_KEY,
         Integer.parseInt(seriesResistorTextField.getText()));
+    experimentPreferences.setInteger(
+        BoardCheckPreferences.CALIBRATION_R_INIT_KEY,
+        Integer.parseInt(calibrationResistorTextField.getText()));
+    experimentPreferences.setInteger(
+        BoardCheckPreferences.CALIBRATION_SWITCH_INIT_KEY,
+        Integer.parseInt(calibrationSwitchTextField.getText()));
   }
 
   @Override
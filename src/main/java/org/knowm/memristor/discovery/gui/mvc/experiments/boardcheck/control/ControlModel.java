@@ -29,6 +29,9 @@ import org.knowm.memristor.discovery.gui.mvc.experiments.boardcheck.BoardCheckPr
 
 public class ControlModel extends Model {
 
+  private int calibrationResistance;
+  private int calibrationSwitch;
+
   public ControlModel() {}
 
   @Override
@@ -38,5 +41,23 @@ public class ControlModel extends Model {
         experimentPreferences.getInteger(
             BoardCheckPreferences.SERIES_R_INIT_KEY,
             BoardCheckPreferences.SERIES_R_INIT_DEFAULT_VALUE);
+    calibrationResistance =
+        experimentPreferences.getInteger(
+            BoardCheckPreferences.CALIBRATION_R_INIT_KEY,
+            BoardCheckPreferences.CALIBRATION_R_INIT_DEFAULT_VALUE);
+    calibrationSwitch =
+        experimentPreferences.getInteger(
+            BoardCheckPreferences.CALIBRATION_SWITCH_INIT_KEY,
+            BoardCheckPreferences.CALIBRATION_SWITCH_INIT_DEFAULT_VALUE);
+  }
+
+  public int getCalibrationResistance() {
+
+    return calibrationResistance;
+  }
+
+  public int getCalibrationSwitch() {
+
+    return calibrationSwitch;
   }
 }
@@ -38,6 +38,7 @@ public class ControlPanel extends ControlView {
   public JButton meminlineTestButton;
   public JButton muxTestButton;
   public JButton switchTestButton;
+  public JButton rcCalibrationButton;
   public JButton aHAH12X7TestButton;
   public JButton synapse12TestButton;
   public JButton synapse12iTestButton;
@@ -76,6 +77,12 @@ public class ControlPanel extends ControlView {
     c.insets = new Insets(0, 0, 0, 0);
     add(meminlineTestButton, c);
 
+    c.gridy++;
+    rcCalibrationButton = new JButton("RC Calibration");
+    rcCalibrationButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+    c.insets = new Insets(0, 0, 0, 0);
+    add(rcCalibrationButton, c);
+
     //    c.gridy++;
     //    aHAH12X7TestButton = new JButton("1-2 X 7 AHaH Chip Test");
     //    aHAH12X7TestButton.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -104,6 +111,7 @@ public class ControlPanel extends ControlView {
     meminlineTestButton.setEnabled(enabled);
     muxTestButton.setEnabled(enabled);
     switchTestButton.setEnabled(enabled);
+    rcCalibrationButton.setEnabled(enabled);
     //    aHAH12X7TestButton.setEnabled(enabled);
     //    synapse12TestButton.setEnabled(enabled);
   }
@@ -32,11 +32,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.classify12.Classify12Preferences.AHaHRoutine;
 import org.knowm.memristor.discovery.gui.mvc.experiments.classify12.KTRAM_Controller_12.Instruction12;
@@ -62,8 +62,8 @@ public class Classify12Experiment extends Experiment {
   private final ResultController resultController;
 
   // SwingWorkers
-  private SwingWorker runTrialWorker;
-  private SwingWorker resetWorker;
+  private ExperimentWorker runTrialWorker;
+  private ExperimentWorker resetWorker;
 
   private KTRAM_Controller_12 KTRAM_Controller;
 
@@ -127,6 +127,12 @@ public class Classify12Experiment extends Experiment {
     });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {runTrialWorker, resetWorker};
+  }
+
   private void learnCombo(SupervisedPattern pattern, double Vy) {
     if (pattern.state) {
       KTRAM_Controller.executeInstruction(pattern, Instruction12.FA);
@@ -220,10 +226,10 @@ public class Classify12Experiment extends Experiment {
     return new Classify12Preferences();
   }
 
-  private class ResetWorker extends SwingWorker<Boolean, Double> {
+  private class ResetWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       List<Integer> allSpikes = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
 
@@ -254,10 +260,10 @@ public class Classify12Experiment extends Experiment {
     }
   }
 
-  private class TrialWorker extends SwingWorker<Boolean, Double> {
+  private class TrialWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       try {
 
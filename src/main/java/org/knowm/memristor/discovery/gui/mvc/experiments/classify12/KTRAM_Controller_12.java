@@ -121,14 +121,16 @@ public class KTRAM_Controller_12 {
         .getDwf()
         .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
             DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300, 300 * 1, true);
-    dWFProxy.waitUntilArmed();
+    DWFProxy.ArmResult armResult = dWFProxy.waitUntilArmed();
     dWFProxy
         .getDwf()
         .setCustomPulseTrain(
             DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
     dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
 
-    boolean success = dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
+    boolean success =
+        armResult == DWFProxy.ArmResult.Armed
+            && dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
     if (success) {
 
       if (instruction == Instruction12.FLV || instruction == Instruction12.RLV) {
@@ -33,11 +33,11 @@ import java.util.Collections;
 import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.classify21.Classify21Preferences.AHaHRoutine;
 import org.knowm.memristor.discovery.gui.mvc.experiments.classify21.KTRAM_Controller_21.Instruction;
@@ -63,8 +63,8 @@ public class Classify21Experiment extends Experiment {
   private final ResultController resultController;
 
   // SwingWorkers
-  private SwingWorker runTrialWorker;
-  private SwingWorker resetWorker;
+  private ExperimentWorker runTrialWorker;
+  private ExperimentWorker resetWorker;
 
   private KTRAM_Controller_21 kTRAM_Controller;
 
@@ -135,6 +135,12 @@ public class Classify21Experiment extends Experiment {
         });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {runTrialWorker, resetWorker};
+  }
+
   private void learnCombo(SupervisedPattern pattern, double Vy) {
 
     if (pattern.state) {
@@ -221,10 +227,10 @@ public class Classify21Experiment extends Experiment {
     return new Classify21Preferences();
   }
 
-  private class ResetWorker extends SwingWorker<Boolean, Double> {
+  private class ResetWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       List<Integer> allSpikes = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
 
@@ -251,10 +257,10 @@ public class Classify21Experiment extends Experiment {
     }
   }
 
-  private class TrialWorker extends SwingWorker<Boolean, Double> {
+  private class TrialWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       try {
 
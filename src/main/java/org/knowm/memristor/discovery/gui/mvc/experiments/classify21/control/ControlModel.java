@@ -118,17 +118,12 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = 1 / getCalculatedFrequency() * pulseNumber;
     double timeStep =
         1 / getCalculatedFrequency() / Classify21Preferences.CAPTURE_BUFFER_SIZE * pulseNumber;
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= Classify21Preferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i * Classify21Preferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    driver.fill(waveformAmplitudeData, 0, Classify21Preferences.CAPTURE_BUFFER_SIZE, 0, timeStep);
+    for (int i = 0; i < Classify21Preferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * Classify21Preferences.TIME_UNIT.getDivisor();
     }
   }
 
@@ -29,7 +29,6 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.util.List;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
 import org.knowm.memristor.discovery.core.WaveformUtils;
@@ -37,6 +36,7 @@ import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.control.ControlModel;
@@ -56,7 +56,7 @@ public class ConductanceExperiment extends Experiment {
   private ResultPanel resultPanel;
 
   // SwingWorkers
-  private SwingWorker experimentCaptureWorker;
+  private ExperimentWorker experimentCaptureWorker;
 
   /**
    * Constructor
@@ -111,6 +111,12 @@ public class ConductanceExperiment extends Experiment {
             });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker};
+  }
+
   /**
    * These property change events are triggered in the controlModel in the case where the underlying
    * controlModel is updated. Here, the controller can respond to those events and make sure the
@@ -181,10 +187,10 @@ public class ConductanceExperiment extends Experiment {
     return new ConductancePreferences();
   }
 
-  private class ResetCaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class ResetCaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       // Send off Single Pulse and capture the response
 
@@ -317,10 +323,10 @@ public class ConductanceExperiment extends Experiment {
     }
   }
 
-  private class SetCaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class SetCaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       while (!isCancelled()) {
 
@@ -29,13 +29,13 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.util.List;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.dc.control.ControlModel;
@@ -55,7 +55,7 @@ public class DCExperiment extends Experiment {
   private ResultPanel resultPanel;
 
   // SwingWorkers
-  private SwingWorker experimentCaptureWorker;
+  private ExperimentWorker experimentCaptureWorker;
 
   /**
    * Constructor
@@ -121,6 +121,12 @@ public class DCExperiment extends Experiment {
             });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker};
+  }
+
   @Override
   public Model getControlModel() {
 
@@ -176,10 +182,10 @@ public class DCExperiment extends Experiment {
     return new DCPreferences();
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class CaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       // ////////////////////////////////
       // Analog In /////////////////
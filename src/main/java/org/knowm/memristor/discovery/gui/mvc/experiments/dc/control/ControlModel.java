@@ -96,12 +96,10 @@ public class ControlModel extends Model {
 
     double timeStep = 1 / getCalculatedFrequency() * pulseNumber / waveformTimeData.length;
 
-    int counter = 0;
-    do {
-      double time = counter * timeStep;
-      waveformTimeData[counter] = time * DCPreferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter] = driver.getSignal(time);
-    } while (++counter < waveformTimeData.length);
+    driver.fill(waveformAmplitudeData, 0, waveformTimeData.length, 0, timeStep);
+    for (int i = 0; i < waveformTimeData.length; i++) {
+      waveformTimeData[i] = i * timeStep * DCPreferences.TIME_UNIT.getDivisor();
+    }
   }
 
   /////////////////////////////////////////////////////////////
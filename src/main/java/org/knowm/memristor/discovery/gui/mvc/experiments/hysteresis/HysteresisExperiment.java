@@ -29,7 +29,6 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.util.List;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
 import org.knowm.memristor.discovery.core.Util;
@@ -37,6 +36,7 @@ import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.hysteresis.control.ControlModel;
@@ -57,7 +57,7 @@ public class HysteresisExperiment extends Experiment {
   private final ResultController resultController;
 
   // SwingWorkers
-  private SwingWorker experimentCaptureWorker;
+  private ExperimentWorker experimentCaptureWorker;
 
   /**
    * Constructor
@@ -124,6 +124,12 @@ public class HysteresisExperiment extends Experiment {
             });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker};
+  }
+
   @Override
   public Model getControlModel() {
 
@@ -234,10 +240,10 @@ public class HysteresisExperiment extends Experiment {
     return new HysteresisPreferences();
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class CaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       // AnalogOut
 
@@ -110,16 +110,11 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = 1 / getCalculatedFrequency() * pulseNumber;
     double timeStep = 1 / getCalculatedFrequency() / kTBitSatSolverPreferences.CAPTURE_BUFFER_SIZE * pulseNumber;
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= kTBitSatSolverPreferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i * kTBitSatSolverPreferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    driver.fill(waveformAmplitudeData, 0, kTBitSatSolverPreferences.CAPTURE_BUFFER_SIZE, 0, timeStep);
+    for (int i = 0; i < kTBitSatSolverPreferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * kTBitSatSolverPreferences.TIME_UNIT.getDivisor();
     }
   }
 
@@ -37,12 +37,12 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ktbitsatsolver.KTRAM_Controller_12.Instruction;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ktbitsatsolver.control.ControlController;
@@ -64,9 +64,9 @@ public class kTBitSatSolverExperiment extends Experiment {
   private final ResultController resultController;
 
   // SwingWorkers
-  private SwingWorker runTrialWorker;
-  private SwingWorker resetWorker;
-  private SwingWorker initWorker;
+  private ExperimentWorker runTrialWorker;
+  private ExperimentWorker resetWorker;
+  private ExperimentWorker initWorker;
 
   private KTRAM_Controller_12 KTRAM_Controller;
 
@@ -146,6 +146,12 @@ public class kTBitSatSolverExperiment extends Experiment {
 
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {initWorker, runTrialWorker, resetWorker};
+  }
+
   private float[] initSynapses() {
 
     // int pw = controlModel.getPulseWidth();
@@ -227,10 +233,10 @@ public class kTBitSatSolverExperiment extends Experiment {
     return new kTBitSatSolverPreferences();
   }
 
-  private class InitializeWorker extends SwingWorker<Boolean, Double> {
+  private class InitializeWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       try {
 
@@ -246,10 +252,10 @@ public class kTBitSatSolverExperiment extends Experiment {
     }
   }
 
-  private class TrialWorker extends SwingWorker<Boolean, Double> {
+  private class TrialWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       try {
 
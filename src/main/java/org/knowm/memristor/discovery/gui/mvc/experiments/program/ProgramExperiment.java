@@ -26,10 +26,12 @@ package org.knowm.memristor.discovery.gui.mvc.experiments.program;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
 import org.knowm.memristor.discovery.core.WaveformUtils;
+import org.knowm.memristor.discovery.core.rc_engine.RC_WaveformFitter;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.ConductancePreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.program.control.ControlController;
@@ -64,7 +66,9 @@ public class ProgramExperiment extends Experiment {
   private int count=0;
   private String timeStamp, filepath, filename;
   // SwingWorkers
-  private SwingWorker experimentCaptureWorker;
+  private ExperimentWorker experimentCaptureWorker;
+
+  private static final int READ_SAMPLES_PER_PULSE = 300;
 
   // private static float READ_PULSE_AMPLITUDE = .07f;//move this to preferences eventually...
 
@@ -141,6 +145,12 @@ public class ProgramExperiment extends Experiment {
             });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker};
+  }
+
   @Override
   public Model getControlModel() {
 
@@ -196,10 +206,90 @@ public class ProgramExperiment extends Experiment {
     return new ProgramPreferences();
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  // ////////////////////////////////
+  // READ PULSE /////////////////
+  // ////////////////////////////////
+
+  static double getReadSampleFrequency(double readPulseWidth) {
+
+    return 1 / (readPulseWidth * 2) * READ_SAMPLES_PER_PULSE;
+  }
+
+  /**
+   * Sends one square read pulse and captures it, as each read of the program loop does.
+   *
+   * @param dwfProxy
+   * @param readPulseAmplitude
+   * @param readPulseWidth in seconds
+   * @return {V1, V2} with the idle samples trimmed off, or null if the capture failed
+   */
+  static double[][] captureReadPulse(
+      DWFProxy dwfProxy, double readPulseAmplitude, double readPulseWidth) {
+
+    // ////////////////////////////////
+    // Analog In /////////////////
+    // ////////////////////////////////
+
+    // trigger on 20% the rising .1 V read pulse
+    double f = 1 / (readPulseWidth * 2);
+    double sampleFrequency = getReadSampleFrequency(readPulseWidth);
+    dwfProxy
+        .getDwf()
+        .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
+            DWF.WAVEFORM_CHANNEL_1, sampleFrequency, READ_SAMPLES_PER_PULSE, true);
+    dwfProxy.waitUntilArmed();
+
+    // ////////////////////////////////
+    // Pulse Out /////////////////
+    // ////////////////////////////////
+
+    // read pulse: 0.1 V, 5 us pulse width
+
+    double[] customWaveform =
+        WaveformUtils.generateCustomWaveform(Waveform.Square, readPulseAmplitude, f);
+
+    dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, f, 0, 1, customWaveform);
+
+    // Read In Data
+    boolean success = dwfProxy.capturePulseData(f, 1);
+    if (!success) {
+      return null;
+    }
+
+    // Get Raw Data from Oscilloscope
+    int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
+    double[] v1 =
+        dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
+    double[] v2 =
+        dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
+
+    return PostProcessDataUtils.trimIdleData(v1, v2, 0, 10);
+  }
+
+  /**
+   * Fits R to the whole charge curve of a captured read pulse. V2 drives the V2 board and V1 the
+   * older ones, the other channel is the sense node.
+   *
+   * @param waveformFitter
+   * @param boardVersion
+   * @param capture {V1, V2} as from {@link #captureReadPulse(DWFProxy, double, double)}
+   * @param samplePeriod
+   * @return the fit, or null if the capture holds no complete pulse
+   */
+  static RC_WaveformFitter.Fit fitReadPulse(
+      RC_WaveformFitter waveformFitter, int boardVersion, double[][] capture, double samplePeriod) {
+
+    if (boardVersion == 2) {
+      return waveformFitter.fit(capture[1], capture[0], samplePeriod);
+    } else {
+      return waveformFitter.fit(capture[0], capture[1], samplePeriod);
+    }
+  }
+
+  private class CaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
       if(controlModel.isSave()){
         timeStamp = new SimpleDateFormat("yyyy.MM.dd.HH.mm.ss").format(new Date());
         filepath = System.getProperty("user.dir") + "\\" + timeStamp;
@@ -212,7 +302,7 @@ public class ProgramExperiment extends Experiment {
         count = 0;
       }
 
-      while (controlModel.isStartToggled()) {
+      while (controlModel.isStartToggled() && !isCancelled()) {
         if (!readCycle())
           return false;
         else {
@@ -294,9 +384,7 @@ public class ProgramExperiment extends Experiment {
       // ////////////////////////////////
 
       // Read In Data
-      boolean success =
-              dwfProxy.capturePulseData(
-                      controlModel.getCalculatedFrequency(), controlModel.getPulseNumber());
+      boolean success = dwfProxy.waitUntilCaptured(sampleFrequency, bufferSize);
       if (!success) {
         // Stop Analog In and Out
         dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
@@ -463,9 +551,7 @@ public class ProgramExperiment extends Experiment {
       // ////////////////////////////////
 
       // Read In Data
-      boolean success =
-              dwfProxy.capturePulseData(
-                      controlModel.getReverseCalculatedFrequency(), controlModel.getReversePulseNumber());
+      boolean success = dwfProxy.waitUntilCaptured(sampleFrequency, bufferSize);
       if (!success) {
         // Stop Analog In and Out
         dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
@@ -597,35 +683,13 @@ public class ProgramExperiment extends Experiment {
           dwfProxy.getDwf().stopAnalogCaptureBothChannels();
         }
 
-        // ////////////////////////////////
-        // Analog In /////////////////
-        // ////////////////////////////////
-
-        // trigger on 20% the rising .1 V read pulse
-        int samplesPerPulse = 300;
-        double f = 1 / (controlModel.getReadPulseWidth() * 2);
-        double sampleFrequency = f * samplesPerPulse;
-        dwfProxy
-                .getDwf()
-                .startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(
-                        DWF.WAVEFORM_CHANNEL_1, sampleFrequency, samplesPerPulse, true);
-        dwfProxy.waitUntilArmed();
-
-        //////////////////////////////////
-        // Pulse Out /////////////////
-        //////////////////////////////////
-
-        // read pulse: 0.1 V, 5 us pulse width
-
-        double[] customWaveform =
-                WaveformUtils.generateCustomWaveform(
-                        Waveform.Square, controlModel.getReadPulseAmplitude(), f);
-
-        dwfProxy.getDwf().startCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, f, 0, 1, customWaveform);
-
-        // Read In Data
-        boolean success = dwfProxy.capturePulseData(f, 1);
-        if (!success) {
+        double sampleFrequency = getReadSampleFrequency(controlModel.getReadPulseWidth());
+        double[][] trimmedRawData =
+                captureReadPulse(
+                        dwfProxy,
+                        controlModel.getReadPulseAmplitude(),
+                        controlModel.getReadPulseWidth());
+        if (trimmedRawData == null) {
           // Stop Analog In and Out
           dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
           dwfProxy.getDwf().stopAnalogCaptureBothChannels();
@@ -633,16 +697,10 @@ public class ProgramExperiment extends Experiment {
           return false;
         } else {
 
-          // Get Raw Data from Oscilloscope
-          int validSamples = dwfProxy.getDwf().FDwfAnalogInStatusSamplesValid();
-          double[] v1 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples);
-          double[] v2 = dwfProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples);
-
           // /////////////////////////
           // Create Chart Data //////
           // /////////////////////////
 
-          double[][] trimmedRawData = PostProcessDataUtils.trimIdleData(v1, v2, 0, 10);
           double[] V1Trimmed = trimmedRawData[0];
           double[] V2Trimmed = trimmedRawData[1];
           double[] VMemristor;
@@ -662,13 +720,24 @@ public class ProgramExperiment extends Experiment {
             timeData[i] = i * timeStep;
           }
 
-          /*
-           * get the voltage of V2 right before pulse falling/rising edge. This is given to the RC Computer to get the resistance.
-           */
-
           double resistance;
 
-          if (boardVersion == 2) {
+          RC_WaveformFitter.Fit fit =
+                  fitReadPulse(
+                          controlModel.getWaveformFitter(),
+                          boardVersion,
+                          trimmedRawData,
+                          1.0 / sampleFrequency);
+
+          if (fit != null) {
+
+            resistance = fit.getResistance();
+
+          } else if (boardVersion == 2) {
+
+            /*
+             * no complete pulse to fit, get the voltage of V2 right before pulse falling/rising edge. This is given to the RC Computer to get the resistance.
+             */
 
             double vRead = V1Trimmed[V1Trimmed.length / 3]; // best guess
             for (int i = 50; i < V1Trimmed.length; i++) {
@@ -27,12 +27,16 @@ import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.driver.Driver;
 import org.knowm.memristor.discovery.core.driver.pulse.*;
 import org.knowm.memristor.discovery.core.driver.waveform.Sawtooth;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibration;
 import org.knowm.memristor.discovery.core.rc_engine.RC_ResistanceComputer;
+import org.knowm.memristor.discovery.core.rc_engine.RC_WaveformFitter;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.program.ProgramPreferences;
 
 import java.text.DecimalFormat;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingWorker;
 
 public class ControlModel extends Model {
 
@@ -59,14 +63,17 @@ public class ControlModel extends Model {
   private double lastG;
   private int sampleRate;
 
+  // used until the board is calibrated in Board Check
+  private static final double DEFAULT_PARASITIC_READ_CAPACITANCE = 140E-12;
+
   private double readPulseWidth = 25E-6;
 //  private double readPulseAmplitude = .1;
   private double readPulseAmplitude;
-  private double parasiticReadCapacitance = 140E-12;
+  private double parasiticReadCapacitance = DEFAULT_PARASITIC_READ_CAPACITANCE;
 
   // used to compute resistance give read pulse voltage and takes into account parasitic capacitance
-  // by using a board circuit model
-  private RC_ResistanceComputer rcComputer;
+  // by using a board circuit model. Built in the background so the GUI does not freeze.
+  private RcComputerWorker rcComputerWorker;
 
   private int boardVersion;
 
@@ -137,13 +144,9 @@ public class ControlModel extends Model {
 
     updateWaveformChartData();
 
-    rcComputer =
-        new RC_ResistanceComputer(
-            boardVersion,
-            readPulseAmplitude,
-            readPulseWidth,
-            seriesResistance,
-            parasiticReadCapacitance);
+    parasiticReadCapacitance =
+        RC_Calibration.getEffectiveCapacitance(boardVersion, DEFAULT_PARASITIC_READ_CAPACITANCE);
+    rebuildRcComputer();
   }
 
   /** Given the state of the model, update the waveform x and y axis data arrays. */
@@ -187,36 +190,24 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = driver.getPeriod() * pulseNumber;
     double timeStep = driver.getPeriod() / ProgramPreferences.CAPTURE_BUFFER_SIZE * pulseNumber;
 
     //    System.out.println("driver.getPeriod()=" + driver.getPeriod());
-    //    System.out.println("stopTime=" + stopTime);
     //    System.out.println("timeStep=" + timeStep);
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= ProgramPreferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i * ProgramPreferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    driver.fill(waveformAmplitudeData, 0, ProgramPreferences.CAPTURE_BUFFER_SIZE, 0, timeStep);
+    for (int i = 0; i < ProgramPreferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * ProgramPreferences.TIME_UNIT.getDivisor();
     }
 
-    double reverseStopTime = reverseDriver.getPeriod() * reversePulseNumber;
     double reverseTimeStep = reverseDriver.getPeriod() / ProgramPreferences.CAPTURE_BUFFER_SIZE * reversePulseNumber;
 
     //    System.out.println("driver.getPeriod()=" + driver.getPeriod());
-    //    System.out.println("stopTime=" + stopTime);
     //    System.out.println("timeStep=" + timeStep);
 
-    counter = 0;
-    for (double i = 0.0; i < reverseStopTime; i = i + reverseTimeStep) {
-      if (counter >= ProgramPreferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      reverseWaveformTimeData[counter] = i * ProgramPreferences.TIME_UNIT.getDivisor();
-      reverseWaveformAmplitudeData[counter++] = reverseDriver.getSignal(i);
+    reverseDriver.fill(reverseWaveformAmplitudeData, 0, ProgramPreferences.CAPTURE_BUFFER_SIZE, 0, reverseTimeStep);
+    for (int i = 0; i < ProgramPreferences.CAPTURE_BUFFER_SIZE; i++) {
+      reverseWaveformTimeData[i] = i * reverseTimeStep * ProgramPreferences.TIME_UNIT.getDivisor();
     }
   }
 
@@ -227,13 +218,7 @@ public class ControlModel extends Model {
   public void setSeriesResistance(int seriesResistance) {
 
     this.seriesResistance = seriesResistance;
-    rcComputer =
-        new RC_ResistanceComputer(
-            boardVersion,
-            readPulseAmplitude,
-            readPulseWidth,
-            seriesResistance,
-            parasiticReadCapacitance);
+    rebuildRcComputer();
   }
 
   public boolean isReadOnly() {
@@ -512,13 +497,7 @@ public class ControlModel extends Model {
 
   public void setReadPulseAmplitude(double readPulseAmplitude) {
     this.readPulseAmplitude = readPulseAmplitude;
-    rcComputer =
-            new RC_ResistanceComputer(
-                    boardVersion,
-                    readPulseAmplitude,
-                    readPulseWidth,
-                    seriesResistance,
-                    parasiticReadCapacitance);
+    rebuildRcComputer();
   }
 
   public double getParasiticReadCapacitance() {
@@ -529,7 +508,62 @@ public class ControlModel extends Model {
     this.parasiticReadCapacitance = parasiticReadCapacitance;
   }
 
+  /**
+   * Blocks until the RC table for the current read settings is ready.
+   *
+   * @return
+   */
   public RC_ResistanceComputer getRcComputer() {
-    return rcComputer;
+    try {
+      return rcComputerWorker.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while building the RC table!", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Could not build the RC table!", e.getCause());
+    }
+  }
+
+  /**
+   * Fits whole read pulse captures for the current read settings. It is cheap to create, so a new
+   * one is returned each time.
+   *
+   * @return
+   */
+  public RC_WaveformFitter getWaveformFitter() {
+    return new RC_WaveformFitter(
+        boardVersion, getReadSeriesResistance(), parasiticReadCapacitance, false);
+  }
+
+  /** the series resistance seen by the read circuit, including the calibrated offset */
+  private double getReadSeriesResistance() {
+    return RC_Calibration.getEffectiveSeriesResistance(boardVersion, seriesResistance);
+  }
+
+  private void rebuildRcComputer() {
+
+    // a superseded worker is left to finish, its table still ends up in the cache
+    rcComputerWorker = new RcComputerWorker();
+    rcComputerWorker.execute();
+  }
+
+  private class RcComputerWorker extends SwingWorker<RC_ResistanceComputer, Void> {
+
+    // snapshot of the read settings at the time of the request
+    private final double readPulseAmplitude = ControlModel.this.readPulseAmplitude;
+    private final double readPulseWidth = ControlModel.this.readPulseWidth;
+    private final double seriesResistance = getReadSeriesResistance();
+    private final double parasiticReadCapacitance = ControlModel.this.parasiticReadCapacitance;
+
+    @Override
+    protected RC_ResistanceComputer doInBackground() {
+
+      return new RC_ResistanceComputer(
+          boardVersion,
+          readPulseAmplitude,
+          readPulseWidth,
+          seriesResistance,
+          parasiticReadCapacitance);
+    }
   }
 }
@@ -29,7 +29,6 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.util.List;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
 import org.knowm.memristor.discovery.core.WaveformUtils;
@@ -37,6 +36,7 @@ import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.conductance.ConductancePreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.pulse.control.ControlController;
@@ -58,7 +58,7 @@ public class PulseExperiment extends Experiment {
   private ResultPanel resultPanel;
 
   // SwingWorkers
-  private SwingWorker experimentCaptureWorker;
+  private ExperimentWorker experimentCaptureWorker;
 
   // private static float READ_PULSE_AMPLITUDE = .07f;//move this to preferences eventually...
 
@@ -126,6 +126,12 @@ public class PulseExperiment extends Experiment {
             });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker};
+  }
+
   @Override
   public Model getControlModel() {
 
@@ -176,10 +182,10 @@ public class PulseExperiment extends Experiment {
     return new PulsePreferences();
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class CaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       // ////////////////////////////////
       // Analog In /////////////////
@@ -230,9 +236,7 @@ public class PulseExperiment extends Experiment {
       // ////////////////////////////////
 
       // Read In Data
-      boolean success =
-          dwfProxy.capturePulseData(
-              controlModel.getCalculatedFrequency(), controlModel.getPulseNumber());
+      boolean success = dwfProxy.waitUntilCaptured(sampleFrequency, bufferSize);
       if (!success) {
         // Stop Analog In and Out
         dwfProxy.getDwf().stopWave(DWF.WAVEFORM_CHANNEL_1);
@@ -34,6 +34,7 @@ import org.knowm.memristor.discovery.core.driver.pulse.SquarePulse;
 import org.knowm.memristor.discovery.core.driver.pulse.SquareSmoothPulse;
 import org.knowm.memristor.discovery.core.driver.pulse.TrianglePulse;
 import org.knowm.memristor.discovery.core.driver.waveform.Sawtooth;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibration;
 import org.knowm.memristor.discovery.core.rc_engine.RC_ResistanceComputer;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
@@ -62,9 +63,12 @@ public class ControlModel extends Model {
 
   private boolean isStartToggled = false;
 
+  // used until the board is calibrated in Board Check
+  private static final double DEFAULT_PARASITIC_READ_CAPACITANCE = 140E-12;
+
   private double readPulseWidth = 25E-6;
   private double readPulseAmplitude = .1;
-  private double parasiticReadCapacitance = 140E-12;
+  private double parasiticReadCapacitance = DEFAULT_PARASITIC_READ_CAPACITANCE;
 
   // used to compute resistance give read pulse voltage and takes into account parasitic capacitance
   // by using a board circuit model
@@ -113,12 +117,14 @@ public class ControlModel extends Model {
 
     updateWaveformChartData();
 
+    parasiticReadCapacitance =
+        RC_Calibration.getEffectiveCapacitance(boardVersion, DEFAULT_PARASITIC_READ_CAPACITANCE);
     rcComputer =
         new RC_ResistanceComputer(
             boardVersion,
             readPulseAmplitude,
             readPulseWidth,
-            seriesResistance,
+            getReadSeriesResistance(),
             parasiticReadCapacitance);
   }
 
@@ -154,20 +160,14 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = driver.getPeriod() * pulseNumber;
     double timeStep = driver.getPeriod() / PulsePreferences.CAPTURE_BUFFER_SIZE * pulseNumber;
 
     //    System.out.println("driver.getPeriod()=" + driver.getPeriod());
-    //    System.out.println("stopTime=" + stopTime);
     //    System.out.println("timeStep=" + timeStep);
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= PulsePreferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i * PulsePreferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    driver.fill(waveformAmplitudeData, 0, PulsePreferences.CAPTURE_BUFFER_SIZE, 0, timeStep);
+    for (int i = 0; i < PulsePreferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * PulsePreferences.TIME_UNIT.getDivisor();
     }
   }
 
@@ -183,7 +183,7 @@ public class ControlModel extends Model {
             boardVersion,
             readPulseAmplitude,
             readPulseWidth,
-            seriesResistance,
+            getReadSeriesResistance(),
             parasiticReadCapacitance);
   }
 
@@ -364,6 +364,11 @@ public class ControlModel extends Model {
     this.readPulseAmplitude = readPulseAmplitude;
   }
 
+  /** the series resistance seen by the read circuit, including the calibrated offset */
+  private double getReadSeriesResistance() {
+    return RC_Calibration.getEffectiveSeriesResistance(boardVersion, seriesResistance);
+  }
+
   public double getParasiticReadCapacitance() {
     return parasiticReadCapacitance;
   }
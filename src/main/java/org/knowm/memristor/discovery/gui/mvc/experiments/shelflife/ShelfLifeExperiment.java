@@ -36,17 +36,19 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils;
 import org.knowm.memristor.discovery.core.PostProcessDataUtils.MemristorTestResult;
 import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.experiment_common.PulseUtility;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibration;
+import org.knowm.memristor.discovery.core.rc_engine.RC_WaveformFitter;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences.Waveform;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.shelflife.control.ControlController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.shelflife.control.ControlModel;
@@ -69,7 +71,7 @@ public class ShelfLifeExperiment extends Experiment {
   private final ResultController resultController;
 
   // SwingWorkers
-  private SwingWorker experimentCaptureWorker;
+  private ExperimentWorker experimentCaptureWorker;
 
   private MuxController muxController;
   private PulseUtility pulseUtility;
@@ -140,6 +142,12 @@ public class ShelfLifeExperiment extends Experiment {
             });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker};
+  }
+
   /**
    * These property change events are triggered in the controlModel in the case where the underlying
    * controlModel is updated. Here, the controller can respond to those events and make sure the
@@ -177,10 +185,10 @@ public class ShelfLifeExperiment extends Experiment {
     return new ShelfLifePreferences();
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, double[][]> {
+  private class CaptureWorker extends ExperimentWorker<Boolean, double[][]> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH-mm a z");
       String timeString = dateFormat.format(new Date());
@@ -202,6 +210,15 @@ public class ShelfLifeExperiment extends Experiment {
       float maxWriteResistance = controlModel.getMaxWriteResistance();
       float minEraseResistance = controlModel.getMinEraseResistance();
 
+      // fit the whole read pulse so short read pulses are still accurate
+      pulseUtility.setReadWaveformFitter(
+          new RC_WaveformFitter(
+              boardVersion,
+              RC_Calibration.getEffectiveSeriesResistance(boardVersion, seriesResistor),
+              RC_Calibration.getEffectiveCapacitance(
+                  boardVersion, controlModel.getParasiticReadCapacitance()),
+              false));
+
       // information file-->
 
       String saveInfoFilePath = controlModel.getSaveDirectory() + "/" + infoFileName;
@@ -275,6 +292,16 @@ public class ShelfLifeExperiment extends Experiment {
 
         while (!isCancelled()) {
 
+          // an AD2 that dropped off the USB is re-opened, the run skips a measurement at most
+          if (!dwfProxy.checkAD2()) {
+            resultController.addNewLine(
+                dateFormat.format(new Date())
+                    + " AD2 not responding: "
+                    + dwfProxy.getLastDeviceError());
+            Thread.sleep(controlModel.getTimeUnit().toMillis(controlModel.getRepeatInterval()));
+            continue;
+          }
+
           float[][] reads;
 
           if (boardVersion == 2) {
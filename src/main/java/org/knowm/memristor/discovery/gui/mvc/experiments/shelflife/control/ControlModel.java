@@ -46,6 +46,8 @@ public class ControlModel extends Model {
   private float maxWriteResistance;
   private float minEraseResistance;
 
+  private double parasiticReadCapacitance = 140E-12;
+
   /** Constructor */
   public ControlModel() {}
 
@@ -216,4 +218,12 @@ public class ControlModel extends Model {
   public void setMinEraseResistance(float minEraseResistance) {
     this.minEraseResistance = minEraseResistance;
   }
+
+  public double getParasiticReadCapacitance() {
+    return parasiticReadCapacitance;
+  }
+
+  public void setParasiticReadCapacitance(double parasiticReadCapacitance) {
+    this.parasiticReadCapacitance = parasiticReadCapacitance;
+  }
 }
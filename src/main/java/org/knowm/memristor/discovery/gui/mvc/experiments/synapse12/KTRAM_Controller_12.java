@@ -24,6 +24,7 @@
 package org.knowm.memristor.discovery.gui.mvc.experiments.synapse12;
 
 import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.SampleBufferPool;
 import org.knowm.memristor.discovery.core.Util;
 import org.knowm.memristor.discovery.core.WaveformUtils;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
@@ -139,11 +140,13 @@ public class KTRAM_Controller_12 {
 
     dWFProxy.getDwf().startAnalogCaptureBothChannelsTriggerOnWaveformGenerator(DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency() * 300,
         300 * 1, true);
-    dWFProxy.waitUntilArmed();
+    DWFProxy.ArmResult armResult = dWFProxy.waitUntilArmed();
     dWFProxy.getDwf().setCustomPulseTrain(DWF.WAVEFORM_CHANNEL_1, controlModel.getCalculatedFrequency(), 0, 1, W1);
     dWFProxy.getDwf().startPulseTrain(DWF.WAVEFORM_CHANNEL_1);
 
-    boolean success = dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
+    boolean success =
+        armResult == DWFProxy.ArmResult.Armed
+            && dWFProxy.capturePulseData(controlModel.getCalculatedFrequency(), 1);
     if (success) {
 
       if (instruction == Instruction12.FLV || instruction == Instruction12.RLV) {
@@ -186,8 +189,16 @@ public class KTRAM_Controller_12 {
 
     int validSamples = dWFProxy.getDwf().FDwfAnalogInStatusSamplesValid();
 
-    double peakV1 = Util.maxAbs(dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_1, validSamples));
-    double peakV2 = Util.maxAbs(dWFProxy.getDwf().FDwfAnalogInStatusData(DWF.OSCILLOSCOPE_CHANNEL_2, validSamples));
+    // the peak can be anywhere in the period for the waveforms, so the whole capture is read, but into pooled buffers
+    SampleBufferPool sampleBufferPool = dWFProxy.getSampleBufferPool();
+    double[] v1 = sampleBufferPool.acquire(validSamples);
+    double[] v2 = sampleBufferPool.acquire(validSamples);
+    dWFProxy.readChannel(DWF.OSCILLOSCOPE_CHANNEL_1, v1, validSamples);
+    dWFProxy.readChannel(DWF.OSCILLOSCOPE_CHANNEL_2, v2, validSamples);
+    double peakV1 = Util.maxAbs(v1);
+    double peakV2 = Util.maxAbs(v2);
+    sampleBufferPool.release(v1);
+    sampleBufferPool.release(v2);
 
     this.vy = -(peakV1 - peakV2) / W1Amplitude;
 
@@ -33,11 +33,11 @@ import java.text.DecimalFormat;
 import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.synapse12.KTRAM_Controller_12.Instruction12;
 import org.knowm.memristor.discovery.gui.mvc.experiments.synapse12.control.ControlController;
@@ -61,8 +61,8 @@ public class Synapse12Experiment extends Experiment {
 
   // SwingWorkers
   //  private SwingWorker initSynapseWorker;
-  private SwingWorker experimentCaptureWorker;
-  private SwingWorker clearChartWorker;
+  private ExperimentWorker experimentCaptureWorker;
+  private ExperimentWorker clearChartWorker;
 
   /**
    * Constructor
@@ -147,6 +147,12 @@ public class Synapse12Experiment extends Experiment {
     //    });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {experimentCaptureWorker, clearChartWorker};
+  }
+
   @Override
   public Model getControlModel() {
 
@@ -200,20 +206,20 @@ public class Synapse12Experiment extends Experiment {
     return new Synapse12Preferences();
   }
 
-  private class ClearChartWorker extends SwingWorker<Boolean, Double> {
+  private class ClearChartWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       resultController.resetChart();
       return true;
     }
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, Double> {
+  private class CaptureWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       kTRAM_Controller.executeInstruction(controlModel.getInstruction());
       while (!isCancelled()) {
@@ -245,10 +251,10 @@ public class Synapse12Experiment extends Experiment {
     }
   }
 
-  private class InitSynapseWorker extends SwingWorker<Boolean, Double> {
+  private class InitSynapseWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       try {
 
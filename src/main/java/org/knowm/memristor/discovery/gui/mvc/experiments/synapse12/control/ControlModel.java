@@ -129,17 +129,12 @@ public class ControlModel extends Model {
         break;
     }
 
-    double stopTime = 1 / getCalculatedFrequency() * pulseNumber;
     double timeStep =
         1 / getCalculatedFrequency() / Synapse12Preferences.CAPTURE_BUFFER_SIZE * pulseNumber;
 
-    int counter = 0;
-    for (double i = 0.0; i < stopTime; i = i + timeStep) {
-      if (counter >= Synapse12Preferences.CAPTURE_BUFFER_SIZE) {
-        break;
-      }
-      waveformTimeData[counter] = i * Synapse12Preferences.TIME_UNIT.getDivisor();
-      waveformAmplitudeData[counter++] = driver.getSignal(i);
+    driver.fill(waveformAmplitudeData, 0, Synapse12Preferences.CAPTURE_BUFFER_SIZE, 0, timeStep);
+    for (int i = 0; i < Synapse12Preferences.CAPTURE_BUFFER_SIZE; i++) {
+      waveformTimeData[i] = i * timeStep * Synapse12Preferences.TIME_UNIT.getDivisor();
     }
   }
 
@@ -33,12 +33,12 @@ import java.text.DecimalFormat;
 import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 import org.knowm.memristor.discovery.DWFProxy;
 import org.knowm.memristor.discovery.core.gpio.MuxController;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ControlView;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Experiment;
 import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentWorker;
 import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
 import org.knowm.memristor.discovery.gui.mvc.experiments.synapse21.KTRAM_Controller_21.Instruction21;
 import org.knowm.memristor.discovery.gui.mvc.experiments.synapse21.control.ControlController;
@@ -65,9 +65,9 @@ public class Synapse21Experiment extends Experiment {
   private final ResultController resultController;
 
   // SwingWorkers
-  private SwingWorker initSynapseWorker;
-  private SwingWorker experimentCaptureWorker;
-  private SwingWorker clearChartWorker;
+  private ExperimentWorker initSynapseWorker;
+  private ExperimentWorker experimentCaptureWorker;
+  private ExperimentWorker clearChartWorker;
 
   /**
    * Constructor
@@ -157,6 +157,12 @@ public class Synapse21Experiment extends Experiment {
         });
   }
 
+  @Override
+  protected ExperimentWorker[] getWorkers() {
+
+    return new ExperimentWorker[] {initSynapseWorker, experimentCaptureWorker, clearChartWorker};
+  }
+
   @Override
   public Model getControlModel() {
 
@@ -210,20 +216,20 @@ public class Synapse21Experiment extends Experiment {
     return new Synapse21Preferences();
   }
 
-  private class ClearChartWorker extends SwingWorker<Boolean, Double> {
+  private class ClearChartWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       resultController.resetChart();
       return true;
     }
   }
 
-  private class CaptureWorker extends SwingWorker<Boolean, Double> {
+  private class CaptureWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       kTRAM_Controller.executeInstruction(controlModel.getInstruction());
       while (!isCancelled()) {
@@ -255,10 +261,10 @@ public class Synapse21Experiment extends Experiment {
     }
   }
 
-  private class InitSynapseWorker extends SwingWorker<Boolean, Double> {
+  private class InitSynapseWorker extends ExperimentWorker<Boolean, Double> {
 
     @Override
-    protected Boolean doInBackground() throws Exception {
+    protected Boolean doWork() throws Exception {
 
       try {
         int initPulseWidth = controlModel.getPulseWidth();
@@ -0,0 +1,98 @@
+package org.knowm.memristor.discovery.circuit;
+
+import org.knowm.memristor.discovery.core.rc_engine.RC_AnalyticSolver;
+import org.knowm.memristor.discovery.core.rc_engine.RC_ResistanceComputer;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Solver;
+import org.knowm.memristor.discovery.core.rc_engine.RC_SpiceSolver;
+
+/**
+ * Sweeps the full RC_ResistanceComputer resistance range and checks that the closed-form solver
+ * agrees with the JSpice transient for both board topologies. The JSpice step is a 20th of the
+ * pulse width, so it is only held to 2% of the read amplitude.
+ */
+public class RC_AnalyticSolverCheck {
+
+  private static final double TOLERANCE = 0.02;
+
+  public static void main(String[] args) {
+
+    double seriesResistor = 5000;
+    double readPulseWidth = 25E-6;
+    double readPulseAmplitude = .1;
+
+    // default board capacitance plus one large enough that tau ~ pulse width at high Rm
+    double[] capacitances = new double[] {140E-12, 2E-9};
+
+    boolean passed = true;
+    for (double parasiticCapacitance : capacitances) {
+      passed &= check(1, readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
+      passed &=
+          check(2, -readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
+    }
+
+    if (!passed) {
+      throw new IllegalStateException("Analytic solver disagrees with JSpice!");
+    }
+    System.out.println("PASSED");
+  }
+
+  private static boolean check(
+      int boardVersion,
+      double readPulseAmplitude,
+      double readPulseWidth,
+      double seriesResistor,
+      double parasiticCapacitance) {
+
+    RC_Solver analytic =
+        new RC_AnalyticSolver(
+            boardVersion, readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
+    RC_Solver spice =
+        new RC_SpiceSolver(
+            boardVersion, readPulseAmplitude, readPulseWidth, seriesResistor, parasiticCapacitance);
+
+    double maxError = 0;
+    double maxErrorRm = 0;
+    long analyticNanos = 0;
+    long spiceNanos = 0;
+    int points = 0;
+
+    for (double Rm = RC_ResistanceComputer.R_INIT;
+        Rm < RC_ResistanceComputer.R_FINAL;
+        Rm *= RC_ResistanceComputer.R_STEP) {
+
+      long startTime = System.nanoTime();
+      double vAnalytic = analytic.getEndOfPulseVoltage(Rm);
+      analyticNanos += System.nanoTime() - startTime;
+
+      startTime = System.nanoTime();
+      double vSpice = spice.getEndOfPulseVoltage(Rm);
+      spiceNanos += System.nanoTime() - startTime;
+
+      double error = Math.abs(vAnalytic - vSpice) / Math.abs(readPulseAmplitude);
+      if (error > maxError) {
+        maxError = error;
+        maxErrorRm = Rm;
+      }
+      points++;
+    }
+
+    System.out.println(
+        "board=V"
+            + boardVersion
+            + ", C="
+            + parasiticCapacitance
+            + ", points="
+            + points
+            + ", max error="
+            + maxError * 100
+            + "% of amplitude at Rm="
+            + maxErrorRm
+            + ", analytic="
+            + analyticNanos / 1000
+            + "us, spice="
+            + spiceNanos / 1_000_000
+            + "ms");
+
+    return maxError <= TOLERANCE;
+  }
+}
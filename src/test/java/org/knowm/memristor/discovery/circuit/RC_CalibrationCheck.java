@@ -0,0 +1,104 @@
+package org.knowm.memristor.discovery.circuit;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.MemristorDiscoveryPreferences;
+import org.knowm.memristor.discovery.core.experiment_common.PulseUtility;
+import org.knowm.memristor.discovery.core.gpio.MuxController;
+import org.knowm.memristor.discovery.core.rc_engine.RC_Calibration;
+import org.knowm.memristor.discovery.core.simulator.MemristorModel;
+import org.knowm.memristor.discovery.core.simulator.SimulatedBackend;
+import org.knowm.memristor.discovery.core.simulator.SimulatedBoard;
+import org.knowm.memristor.discovery.gui.mvc.experiments.ExperimentPreferences;
+import org.knowm.memristor.discovery.gui.mvc.experiments.Model;
+
+/**
+ * Calibrates a simulated board with a known resistor on switch 1, as Board Check does, and checks
+ * that the fitted parasitic capacitance matches the one simulated for both board topologies.
+ */
+public class RC_CalibrationCheck {
+
+  private static final double TOLERANCE = 0.05;
+
+  public static void main(String[] args) {
+
+    double capacitance = 300E-12;
+    double knownResistance = 10_000;
+
+    boolean passed = true;
+    for (int boardVersion = 1; boardVersion <= 2; boardVersion++) {
+      passed &= check(boardVersion, capacitance, knownResistance);
+    }
+
+    if (!passed) {
+      throw new IllegalStateException("RC calibration failed!");
+    }
+    System.out.println("PASSED");
+  }
+
+  private static boolean check(int boardVersion, double capacitance, final double knownResistance) {
+
+    SimulatedBoard board = new SimulatedBoard(boardVersion);
+    board.setCapacitance(capacitance);
+    board.setMemristor(
+        0,
+        new MemristorModel() {
+
+          @Override
+          public double getResistance() {
+
+            return knownResistance;
+          }
+
+          @Override
+          public void step(double voltage, double dt) {}
+        });
+
+    DWFProxy dwfProxy = new DWFProxy(boardVersion, new SimulatedBackend(board));
+    if (!dwfProxy.startupAD2AndWait()) {
+      throw new IllegalStateException("Simulated AD2 did not start!");
+    }
+
+    try {
+      Model model =
+          new Model() {
+
+            @Override
+            public void doLoadModelFromPrefs(ExperimentPreferences experimentPreferences) {}
+          };
+      model.setSeriesResistance((int) SimulatedBoard.DEFAULT_SERIES_RESISTANCE);
+      PulseUtility pulseUtility =
+          new PulseUtility(
+              boardVersion,
+              model,
+              dwfProxy,
+              new MuxController(),
+              MemristorDiscoveryPreferences.MIN_VOLTAGE_MEASURE_AMPLITUDE);
+
+      RC_Calibration calibration =
+          pulseUtility.calibrateReadCircuit(
+              boardVersion == 2 ? -.1f : .1f,
+              50,
+              new int[] {1},
+              new double[] {knownResistance});
+      if (calibration == null) {
+        System.out.println("board=V" + boardVersion + " no calibration");
+        return false;
+      }
+
+      double error = Math.abs(calibration.getCapacitance() - capacitance) / capacitance;
+      System.out.println(
+          "board=V"
+              + boardVersion
+              + " C="
+              + calibration.getCapacitance()
+              + " Rseries="
+              + calibration.getSeriesResistance()
+              + " error="
+              + error);
+      return error <= TOLERANCE;
+    } finally {
+      dwfProxy.shutdownAD2();
+      dwfProxy.shutdownDeviceExecutor();
+    }
+  }
+}
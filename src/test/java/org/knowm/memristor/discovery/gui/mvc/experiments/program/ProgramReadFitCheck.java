@@ -0,0 +1,65 @@
+package org.knowm.memristor.discovery.gui.mvc.experiments.program;
+
+import org.knowm.memristor.discovery.DWFProxy;
+import org.knowm.memristor.discovery.core.rc_engine.RC_WaveformFitter;
+import org.knowm.memristor.discovery.core.simulator.SimulatedBackend;
+import org.knowm.memristor.discovery.gui.mvc.experiments.program.control.ControlModel;
+
+/**
+ * Reads the simulated board the way the program loop does and checks that the read pulse is fitted
+ * rather than falling back to the end-of-pulse lookup. The read captures are triggered on the
+ * waveform generator, so they start on the rising edge of the pulse.
+ */
+public class ProgramReadFitCheck {
+
+  public static void main(String[] args) {
+
+    boolean passed = true;
+    for (int boardVersion = 1; boardVersion <= 2; boardVersion++) {
+      passed &= check(boardVersion);
+    }
+
+    if (!passed) {
+      throw new IllegalStateException("Program read pulse was not fitted!");
+    }
+    System.out.println("PASSED");
+  }
+
+  private static boolean check(int boardVersion) {
+
+    ControlModel controlModel = new ControlModel(boardVersion);
+    controlModel.loadModelFromPrefs(new ProgramPreferences());
+    DWFProxy dwfProxy = new DWFProxy(boardVersion, new SimulatedBackend(boardVersion));
+    if (!dwfProxy.startupAD2AndWait()) {
+      throw new IllegalStateException("Simulated AD2 did not start!");
+    }
+
+    try {
+      double[][] capture =
+          ProgramExperiment.captureReadPulse(
+              dwfProxy, controlModel.getReadPulseAmplitude(), controlModel.getReadPulseWidth());
+      if (capture == null) {
+        System.out.println("board=V" + boardVersion + " capture failed");
+        return false;
+      }
+      RC_WaveformFitter.Fit fit =
+          ProgramExperiment.fitReadPulse(
+              controlModel.getWaveformFitter(),
+              boardVersion,
+              capture,
+              1.0 / ProgramExperiment.getReadSampleFrequency(controlModel.getReadPulseWidth()));
+
+      System.out.println(
+          "board=V"
+              + boardVersion
+              + " samples="
+              + capture[0].length
+              + " fit="
+              + (fit == null ? null : "R=" + fit.getResistance() + " rms=" + fit.getRmsError()));
+      return fit != null;
+    } finally {
+      dwfProxy.shutdownAD2();
+      dwfProxy.shutdownDeviceExecutor();
+    }
+  }
+}